@@ -22,6 +22,8 @@
  */
 package org.mrcp4j;
 
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the event names that are valid values for MRCPv2 event messages.
  * 
@@ -90,6 +92,8 @@ public enum MrcpEventName {
     //START_OF_INPUT                ("START-OF-INPUT"),  <- already defined under recognizer-event
 
 
+    private static final TokenTable<MrcpEventName> EVENT_NAMES = new TokenTable<MrcpEventName>(values());
+
     private String _name;
 
     private MrcpEventName(String name) {
@@ -112,12 +116,34 @@ public enum MrcpEventName {
      * a valid MRCP event name
      */
     public static MrcpEventName fromString(String str) throws IllegalArgumentException {
-        for (MrcpEventName value : MrcpEventName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpEventName value = lookup(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP event-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP event-name: " + str);
+        return value;
+    }
+
+    /**
+     * Resolves an MRCP event-name in string format, without throwing an exception for unknown values.
+     * @param str MRCP event-name
+     * @return the event name enum instance matching the string value, ignoring case, or null if the string value
+     *         does not correspond to an existing MRCP event-name
+     */
+    public static MrcpEventName lookup(String str) {
+        return (str == null) ? null : EVENT_NAMES.get(str);
+    }
+
+    /**
+     * Resolves an MRCP event-name held in a range of bytes, as received from the network, without first
+     * converting it to a string.
+     * @param bytes array holding the event-name in US-ASCII encoding.
+     * @param offset the index of the first byte of the event-name.
+     * @param length the number of bytes of the event-name.
+     * @return the event name enum instance matching the bytes, ignoring case, or null if the bytes do not
+     *         correspond to an existing MRCP event-name
+     */
+    public static MrcpEventName fromBytes(byte[] bytes, int offset, int length) {
+        return EVENT_NAMES.get(bytes, offset, length);
     }
 
 }
\ No newline at end of file
@@ -22,6 +22,8 @@
  */
 package org.mrcp4j;
 
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the method names that are valid values for MRCPv2 request messages.
  *
@@ -247,6 +249,8 @@ public enum MrcpMethodName {
 
     SPEECHDATA ("SPEECHDATA");
 
+    private static final TokenTable<MrcpMethodName> METHOD_NAMES = new TokenTable<MrcpMethodName>(values());
+
     private String _name;
 
     private MrcpMethodName(String name) {
@@ -269,12 +273,34 @@ public enum MrcpMethodName {
      * an existing MRCP method name
      */
     public static MrcpMethodName fromString(String str) throws IllegalArgumentException {
-        for (MrcpMethodName value : MrcpMethodName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpMethodName value = lookup(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP method-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP method-name: " + str);
+        return value;
+    }
+
+    /**
+     * Resolves an MRCP method-name in string format, without throwing an exception for unknown values.
+     * @param str MRCP method-name
+     * @return the method name enum instance matching the string value, ignoring case, or null if the string value
+     *         does not correspond to an existing MRCP method-name
+     */
+    public static MrcpMethodName lookup(String str) {
+        return (str == null) ? null : METHOD_NAMES.get(str);
+    }
+
+    /**
+     * Resolves an MRCP method-name held in a range of bytes, as received from the network, without first
+     * converting it to a string.
+     * @param bytes array holding the method-name in US-ASCII encoding.
+     * @param offset the index of the first byte of the method-name.
+     * @param length the number of bytes of the method-name.
+     * @return the method name enum instance matching the bytes, ignoring case, or null if the bytes do not
+     *         correspond to an existing MRCP method-name
+     */
+    public static MrcpMethodName fromBytes(byte[] bytes, int offset, int length) {
+        return METHOD_NAMES.get(bytes, offset, length);
     }
 
 }
\ No newline at end of file
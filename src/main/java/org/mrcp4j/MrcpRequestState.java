@@ -22,6 +22,8 @@
  */
 package org.mrcp4j;
 
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the request states that are valid for MRCPv2.
  * 
@@ -47,6 +49,8 @@ public enum MrcpRequestState {
      */
     COMPLETE    ("COMPLETE");
 
+    private static final TokenTable<MrcpRequestState> REQUEST_STATES = new TokenTable<MrcpRequestState>(values());
+
     private String _name;
 
     MrcpRequestState(String name) {
@@ -69,12 +73,34 @@ public enum MrcpRequestState {
      * an existing MRCP request state
      */
     public static MrcpRequestState fromString(String str) throws IllegalArgumentException {
-        for (MrcpRequestState value : MrcpRequestState.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpRequestState value = lookup(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP request-state: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP request-state: " + str);
+        return value;
+    }
+
+    /**
+     * Resolves an MRCP request state in string format, without throwing an exception for unknown values.
+     * @param str MRCP request state
+     * @return the request state enum instance matching the string value, ignoring case, or null if the string value
+     *         does not correspond to an existing MRCP request state
+     */
+    public static MrcpRequestState lookup(String str) {
+        return (str == null) ? null : REQUEST_STATES.get(str);
+    }
+
+    /**
+     * Resolves an MRCP request state held in a range of bytes, as received from the network, without first
+     * converting it to a string.
+     * @param bytes array holding the request-state in US-ASCII encoding.
+     * @param offset the index of the first byte of the request-state.
+     * @param length the number of bytes of the request-state.
+     * @return the request state enum instance matching the bytes, ignoring case, or null if the bytes do not
+     *         correspond to an existing MRCP request state
+     */
+    public static MrcpRequestState fromBytes(byte[] bytes, int offset, int length) {
+        return REQUEST_STATES.get(bytes, offset, length);
     }
 
 }
\ No newline at end of file
@@ -22,6 +22,8 @@
  */
 package org.mrcp4j;
 
+import org.mrcp4j.util.TokenTable;
+
 /**
  * Defines the resource types that are valid for MRCPv2.
  * 
@@ -64,6 +66,8 @@ public enum MrcpResourceType {
     RECORDER     ("recorder");
 
 
+    private static final TokenTable<MrcpResourceType> RESOURCE_TYPES = new TokenTable<MrcpResourceType>(values());
+
     private String _name;
 
     MrcpResourceType(String name) {
@@ -86,12 +90,34 @@ public enum MrcpResourceType {
      * an existing MRCP resource type.
      */
     public static MrcpResourceType fromString(String str) throws IllegalArgumentException {
-        for (MrcpResourceType value : MrcpResourceType.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpResourceType value = lookup(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP resource type: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP resource type: " + str);
+        return value;
+    }
+
+    /**
+     * Resolves an MRCP resource type in string format, without throwing an exception for unknown values.
+     * @param str MRCP resource type
+     * @return the resource type enum instance matching the string value, ignoring case, or null if the string value
+     *         does not correspond to an existing MRCP resource type
+     */
+    public static MrcpResourceType lookup(String str) {
+        return (str == null) ? null : RESOURCE_TYPES.get(str);
+    }
+
+    /**
+     * Resolves an MRCP resource type held in a range of bytes, as received from the network, without first
+     * converting it to a string.
+     * @param bytes array holding the resource type in US-ASCII encoding.
+     * @param offset the index of the first byte of the resource type.
+     * @param length the number of bytes of the resource type.
+     * @return the resource type enum instance matching the bytes, ignoring case, or null if the bytes do not
+     *         correspond to an existing MRCP resource type
+     */
+    public static MrcpResourceType fromBytes(byte[] bytes, int offset, int length) {
+        return RESOURCE_TYPES.get(bytes, offset, length);
     }
 
     /**
@@ -101,11 +127,11 @@ public enum MrcpResourceType {
      * @throws IllegalArgumentException if the channel ID is not correctly formatted.
      */
     public static MrcpResourceType fromChannelID(String channelID) {
-        String[] tokens = channelID.split("@");
-        if (tokens.length != 2) {
+        int index = channelID.indexOf('@');
+        if (index < 0 || channelID.indexOf('@', index + 1) >= 0) {
             throw new IllegalArgumentException("Illegal Channel-Identifier value: " + channelID);
         }
-        return fromString(tokens[1]);
+        return fromString(channelID.substring(index + 1));
     }
 
 }
\ No newline at end of file
@@ -30,17 +30,30 @@ import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpMessage;
 import org.mrcp4j.message.MrcpResponse;
 import org.mrcp4j.message.header.ChannelIdentifier;
-import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
 import org.mrcp4j.message.request.MrcpRequestFactory;
+import org.mrcp4j.util.HashedWheelTimer;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 /**
  * Provides all primary functionality required for an MRCPv2 client to interact with an MRCPv2 resource.  Through an instance of this class
@@ -54,19 +67,56 @@ public class MrcpChannel implements MrcpMessageHandler {
 
     private static Log _log = LogFactory.getLog(MrcpChannel.class);
 
-    private MrcpResponse _response = new MrcpResponse();
-    private Object _responseLock = new Object();
-    private List<MrcpEventListener> eventListeners = Collections.synchronizedList(new ArrayList<MrcpEventListener>());
-	private List<MrcpResponseListener> responseListeners = Collections.synchronizedList(new ArrayList<MrcpResponseListener>());
+    private List<MrcpEventListener> eventListeners = new CopyOnWriteArrayList<MrcpEventListener>();
+	private List<MrcpResponseListener> responseListeners = new CopyOnWriteArrayList<MrcpResponseListener>();
+
+    /**
+     * Requests sent through {@link #sendRequestAsync(MrcpRequest)} that have not yet received a final response, keyed by request-id.
+     */
+    private ConcurrentMap<Long, CompletableFuture<MrcpResponse>> _pendingRequests =
+        new ConcurrentHashMap<Long, CompletableFuture<MrcpResponse>>();
 
     private ChannelIdentifier _channelID;
+    private MrcpHeader _channelIDHeader;
     private MrcpSocket _socket;
+    private Executor _dispatchExecutor;
+    private HashedWheelTimer _timer;
+    private volatile long _defaultTimeoutNanos;
+
+    /**
+     * Guards request-id assignment together with the registration of the request as pending.  Requests are encoded
+     * and written outside of it, see {@link #writeInOrder(EncodedRequest)}.
+     */
+    private Object _sendLock = new Object();
     private long _requestID;
+    private boolean _closed;
 
-    MrcpChannel(String channelID, MrcpSocket socket) throws IllegalValueException {
-        _channelID = (ChannelIdentifier) MrcpHeaderName.CHANNEL_IDENTIFIER.createHeaderValue(channelID);
+    /**
+     * Guards the hand-over of encoded requests to the connection, so that request-ids appear on the connection in
+     * strictly increasing order even though requests are encoded concurrently.
+     */
+    private Object _writeOrderLock = new Object();
+    private long _nextWriteID;
+    private Map<Long, EncodedRequest> _encodedRequests = new HashMap<Long, EncodedRequest>();
+
+    private Object _windowLock = new Object();
+    private int _maxPendingRequests;
+    private int _pendingRequestCount;
+    private MrcpFlowControl _flowControl;
+    private Queue<WaitingRequest> _waitingRequests = new ArrayDeque<WaitingRequest>();
+
+    MrcpChannel(ChannelIdentifier channelID, MrcpSocket socket, int maxPendingRequests, MrcpFlowControl flowControl,
+            Executor dispatchExecutor, HashedWheelTimer timer, long defaultTimeoutNanos) {
+        _channelID = channelID;
+        _channelIDHeader = MrcpHeaderName.CHANNEL_IDENTIFIER.constructHeader(channelID).cacheEncoding();
         _socket = socket;
+        _dispatchExecutor = dispatchExecutor;
+        _timer = timer;
+        _defaultTimeoutNanos = defaultTimeoutNanos;
         _requestID = 101L; //System.currentTimeMillis();
+        _nextWriteID = _requestID;
+        _maxPendingRequests = maxPendingRequests;
+        _flowControl = flowControl;
         socket.addMessageHandler(_channelID, this);
     }
 
@@ -82,11 +132,98 @@ public class MrcpChannel implements MrcpMessageHandler {
         return null;
     }*/
 
+    /**
+     * Sets the maximum number of requests sent through {@link #sendRequestAsync(MrcpRequest)} that may await their
+     * final response at the same time.  Requests sent while the window is full are handled according to the flow
+     * control setting of this channel.
+     * @param maxPendingRequests the size of the window, must be at least one.
+     * @throws IllegalArgumentException if the window size is less than one.
+     */
+    public void setMaxPendingRequests(int maxPendingRequests) {
+        if (maxPendingRequests < 1) {
+            throw new IllegalArgumentException("Maximum pending requests must be positive: " + maxPendingRequests);
+        }
+        synchronized (_windowLock) {
+            _maxPendingRequests = maxPendingRequests;
+        }
+        sendWaitingRequests();
+    }
+
+    /**
+     * @return the maximum number of requests that may await their final response at the same time.
+     */
+    public int getMaxPendingRequests() {
+        synchronized (_windowLock) {
+            return _maxPendingRequests;
+        }
+    }
+
+    /**
+     * Sets how requests sent while the window of outstanding requests is full are handled.
+     * @param flowControl the flow control setting.
+     */
+    public void setFlowControl(MrcpFlowControl flowControl) {
+        if (flowControl == null) {
+            throw new NullPointerException("Flow control argument was null!");
+        }
+        synchronized (_windowLock) {
+            _flowControl = flowControl;
+        }
+    }
+
+    /**
+     * @return the setting for handling requests sent while the window of outstanding requests is full.
+     */
+    public MrcpFlowControl getFlowControl() {
+        synchronized (_windowLock) {
+            return _flowControl;
+        }
+    }
+
+    /**
+     * Sets the deadline applied to requests sent through {@link #sendRequestAsync(MrcpRequest)}.  A request that has
+     * not received its final response when the deadline expires is completed exceptionally with a
+     * {@link java.util.concurrent.TimeoutException}.  The deadline includes any time spent waiting for a free slot
+     * in the window of outstanding requests.
+     * @param timeout the deadline, zero or less to let requests wait for their response indefinitely.
+     * @param unit    the time unit of the timeout argument.
+     */
+    public void setDefaultTimeout(long timeout, TimeUnit unit) {
+        _defaultTimeoutNanos = (timeout > 0) ? unit.toNanos(timeout) : 0;
+    }
+
+    /**
+     * @param  unit the time unit of the returned value.
+     * @return the deadline applied to requests sent through {@link #sendRequestAsync(MrcpRequest)}, or zero if
+     *         requests wait for their response indefinitely.
+     */
+    public long getDefaultTimeout(TimeUnit unit) {
+        return unit.convert(_defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of requests currently awaiting their final response.
+     */
+    public int getPendingRequestCount() {
+        synchronized (_windowLock) {
+            return _pendingRequestCount;
+        }
+    }
+
+    /**
+     * @return the number of requests currently waiting for a free slot in the window of outstanding requests.
+     */
+    public int getWaitingRequestCount() {
+        synchronized (_windowLock) {
+            return _waitingRequests.size();
+        }
+    }
+
     /**
      * Creates a request object associated with this channel.  The request object can then be passed
      * to {@link org.mrcp4j.client.MrcpChannel#sendRequest(org.mrcp4j.message.request.MrcpRequest)}
      * (after setting content or other parameters) in order to actually invoke the request on the MRCP
-     * resource accessed by this channel.
+     * resource accessed by this channel.  The request-id is assigned when the request is sent.
      *
      * @param  methodName   name of the method the desired request object should represent.
      * @return              request object representing the specified method call.
@@ -100,60 +237,412 @@ public class MrcpChannel implements MrcpMessageHandler {
 
         // message-length not yet known
 
-        // request-id
-        // TODO: set this when message sent instead (to guarantee sequence)
-        synchronized (this) {
-            request.setRequestID(_requestID++);
-        }
+        // request-id is assigned when the request is sent (to guarantee sequence)
 
-        MrcpHeader header = MrcpHeaderName.CHANNEL_IDENTIFIER.constructHeader(_channelID);
-        request.addHeader(header);
+        // headers are immutable, so every request shares the pre-encoded channel identifier
+        request.addHeader(_channelIDHeader);
 
         return request;
     }
 
     /**
-     * Invokes a request on the MRCP resource associated with this channel.
+     * Invokes a request on the MRCP resource associated with this channel and waits for its response.
      * @param  request                 specification of the request to be invoked.
      * @return                         the response provided by the MRCP resource to the specified request.
      * @throws IOException             if an I/O error occurs.
      * @throws MrcpInvocationException           if the MRCP resource returned a response error code
      * @throws InterruptedException    if another thread interrupted the current thread while the current thread
      *                                 was waiting for a response from the MRCP resource.
+     * @throws InterruptedIOException  if no response was received within the default timeout of this channel.
+     * @deprecated blocks the calling thread for a full round trip, use {@link #sendRequestAsync(MrcpRequest)} instead.
      */
 	@Deprecated
-    public synchronized MrcpResponse sendRequest(final MrcpRequest request)
+    public MrcpResponse sendRequest(final MrcpRequest request)
       throws IOException, MrcpInvocationException, InterruptedException {
 
-		final MrcpResponse[] result = {null};  // *vomit*
-		final CountDownLatch ready = new CountDownLatch(1);
-
-		addResponseListener(new MrcpResponseListener() {
-			public void responseReceived(MrcpResponse response) {
-				if (response.getRequestID() == request.getRequestID()) {
-//					_log.debug("response for request " + response.getRequestID() + " " + request.getMethodName() + ": " + response.getStatusCode() + " " + response.getRequestState());
-					if (response.getRequestState() != MrcpRequestState.PENDING) {
-						result[0] = response;
-						ready.countDown();
-						removeResponseListener(this);
-					}
-				}
-			}
-		});
-		sendRequestOneShot(request);
+        CompletableFuture<MrcpResponse> future = sendRequestAsync(request);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof MrcpInvocationException) {
+                throw (MrcpInvocationException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof TimeoutException) {
+                InterruptedIOException timeout = new InterruptedIOException(cause.getMessage());
+                timeout.initCause(cause);
+                throw timeout;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Invokes a request on the MRCP resource associated with this channel without waiting for its response.
+     *
+     * <p>The returned future is completed when the MRCP resource returns a response to the request whose request-state
+     * is not {@code PENDING}.  If the response contains an error code the future is completed exceptionally with an
+     * {@link org.mrcp4j.client.MrcpInvocationException}, if the request cannot be sent it is completed exceptionally
+     * with the {@link java.io.IOException} encountered, or the {@link java.lang.RuntimeException} thrown while
+     * encoding the request.  Once this channel has been closed, the future is failed with an
+     * {@link java.io.IOException} at once.</p>
+     *
+     * <p>Requests are pipelined: up to {@link #getMaxPendingRequests()} requests may await their final response at
+     * the same time.  When the window is full the request either waits until a slot frees up or the future is
+     * completed exceptionally with a {@link java.util.concurrent.RejectedExecutionException}, depending on the flow
+     * control setting of this channel.  This method never blocks, so it may safely be called from response and event
+     * listeners.  The request-id is assigned when the request is sent, request-ids are strictly increasing in the
+     * order requests are written to the connection.</p>
+     *
+     * <p>The default timeout of this channel applies, see {@link #setDefaultTimeout(long, TimeUnit)}.</p>
+     *
+     * @param  request specification of the request to be invoked.
+     * @return         a future providing the response of the MRCP resource to the specified request.
+     */
+    public CompletableFuture<MrcpResponse> sendRequestAsync(MrcpRequest request) {
+        return sendRequestAsync(request, _defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Invokes a request on the MRCP resource associated with this channel without waiting for its response, with
+     * a deadline for its final response.  If the deadline expires first, the request is no longer tracked by this
+     * channel and the returned future is completed exceptionally with a {@link java.util.concurrent.TimeoutException}.
+     * A response arriving after the deadline is only delivered to registered response listeners.
+     *
+     * @param  request specification of the request to be invoked.
+     * @param  timeout the deadline, zero or less to wait for the response indefinitely.
+     * @param  unit    the time unit of the timeout argument.
+     * @return         a future providing the response of the MRCP resource to the specified request.
+     * @see #sendRequestAsync(MrcpRequest)
+     */
+    public CompletableFuture<MrcpResponse> sendRequestAsync(MrcpRequest request, long timeout, TimeUnit unit) {
+        CompletableFuture<MrcpResponse> future = new CompletableFuture<MrcpResponse>();
+        long timeoutNanos = (timeout > 0) ? unit.toNanos(timeout) : 0;
+        long startTime = System.nanoTime();
+
+        if (acquireWindowSlot(request, future, timeoutNanos, startTime)) {
+            if (writeRequest(request, future, timeoutNanos, startTime)) {
+                releaseWindowSlot();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Assigns the request-id of a request holding a slot in the window, registers it as pending and sends it.  If
+     * the request cannot be sent its future is completed exceptionally.
+     * @return true if the request could not be sent and the caller has to release its slot, false if the request
+     *         was sent or its slot was released by whoever stopped tracking it.
+     */
+    private boolean writeRequest(MrcpRequest request, CompletableFuture<MrcpResponse> future, long timeoutNanos,
+            long startTime) {
+        Long requestID;
+        synchronized (_sendLock) {
+            if (_closed) {
+                future.completeExceptionally(new IOException("Channel closed: " + _channelID));
+                return true;
+            }
+            requestID = Long.valueOf(assignRequestID(request));
+
+            // register before sending, the response may arrive before the send returns
+            _pendingRequests.put(requestID, future);
+        }
+        trackRequest(requestID, future, timeoutNanos, startTime);
+
+        Throwable failure = encodeAndWrite(requestID.longValue(), request, future);
+        if (failure == null) {
+            return false;
+        }
+        boolean release = _pendingRequests.remove(requestID, future);
+        future.completeExceptionally(failure);
+        return release;
+    }
+
+    /**
+     * Stops tracking a request that could not be sent and fails its future.
+     */
+    private void abortRequest(Long requestID, CompletableFuture<MrcpResponse> future, Throwable cause) {
+        if (_pendingRequests.remove(requestID, future)) {
+            releaseWindowSlot();
+        }
+        future.completeExceptionally(cause);
+    }
+
+    /**
+     * Encodes a request that has been assigned its request-id and hands it over to the connection, outside of the
+     * send lock.
+     * @param future the future of the request, or null for a request sent without tracking its response.
+     * @return the {@link java.io.IOException} or {@link java.lang.RuntimeException} encountered, or null if the
+     *         request has been handed over to the connection.
+     */
+    private Throwable encodeAndWrite(long requestID, MrcpRequest request, CompletableFuture<MrcpResponse> future) {
+        EncodedRequest encoded = new EncodedRequest(requestID, future);
+        Throwable failure = null;
+        try {
+            encoded._message = _socket.encodeRequest(request);
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            // e.g. a header value that cannot be encoded, the request is not sent
+            failure = e;
+        } finally {
+            // also for a request that failed to encode, so that the requests following it are not held up
+            IOException writeFailure = writeInOrder(encoded);
+            if (failure == null) {
+                failure = writeFailure;
+            }
+        }
+        if (failure == null) {
+            try {
+                _socket.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Hands an encoded request over to the connection once every request with a lower request-id has been handed
+     * over or has failed to encode, together with the requests that were waiting for this one.
+     * @return the failure to hand over the specified request, or null.
+     */
+    private IOException writeInOrder(EncodedRequest encoded) {
+        IOException failure = null;
+        List<EncodedRequest> failed = null;
+        synchronized (_writeOrderLock) {
+            _encodedRequests.put(Long.valueOf(encoded._requestID), encoded);
+            EncodedRequest next;
+            while ((next = _encodedRequests.remove(Long.valueOf(_nextWriteID))) != null) {
+                _nextWriteID++;
+                if (next._message == null) {
+                    continue;
+                }
+                try {
+                    _socket.enqueue(next._message);
+                } catch (IOException e) {
+                    _socket.discard(next._message);
+                    if (next == encoded) {
+                        failure = e;
+                    } else {
+                        if (failed == null) {
+                            failed = new ArrayList<EncodedRequest>();
+                        }
+                        next._failure = e;
+                        failed.add(next);
+                    }
+                }
+            }
+        }
 
-		ready.await();
-		MrcpResponse response = result[0];
+        // fail the requests of other threads outside of the lock, their futures may have dependent actions
+        if (failed != null) {
+            for (EncodedRequest request : failed) {
+                if (request._future != null) {
+                    abortRequest(Long.valueOf(request._requestID), request._future, request._failure);
+                } else {
+                    _log.debug("Request " + request._requestID + " dropped: " + request._failure.getMessage());
+                }
+            }
+        }
+        return failure;
+    }
 
-		if (response.getStatusCode() > 299) {
-			throw new MrcpInvocationException(response);
-		}
-		return response;
+    /**
+     * @throws IOException if this channel has been closed (called while holding the send lock).
+     */
+    private void checkOpen() throws IOException {
+        if (_closed) {
+            throw new IOException("Channel closed: " + _channelID);
+        }
     }
 
+    /**
+     * Sends a request without tracking its response, responses are only delivered to registered response listeners.
+     * @param  request specification of the request to be invoked.
+     * @throws IOException             if an I/O error occurs.
+     * @throws MrcpInvocationException never thrown, declared for compatibility.
+     */
     public void sendRequestOneShot(MrcpRequest request)
       throws IOException, MrcpInvocationException {
-        _socket.sendRequest(request);
+        long requestID;
+        synchronized (_sendLock) {
+            checkOpen();
+            requestID = assignRequestID(request);
+        }
+        Throwable failure = encodeAndWrite(requestID, request, null);
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private long assignRequestID(MrcpRequest request) {
+        long requestID = _requestID++;
+        request.setRequestID(requestID);
+        return requestID;
+    }
+
+    /**
+     * Tracks the deadline of a pending request, if it has one, on the shared timer of the provider.  As soon as the
+     * future completes, whichever way that happens, the request is no longer tracked: its window slot is released
+     * and its timeout is cancelled.  This includes futures cancelled or completed by the application itself.
+     * @param timeoutNanos the deadline of the request measured from {@code startTime}, zero or less for none.
+     */
+    private void trackRequest(final Long requestID, final CompletableFuture<MrcpResponse> future, long timeoutNanos,
+            long startTime) {
+        final HashedWheelTimer.Timeout timeout;
+        if (timeoutNanos > 0) {
+            timeout = _timer.newTimeout(new Runnable() {
+                public void run() {
+                    expireRequest(requestID, future);
+                }
+            }, timeoutNanos - (System.nanoTime() - startTime), TimeUnit.NANOSECONDS);
+        } else {
+            timeout = null;
+        }
+
+        future.whenComplete(new BiConsumer<MrcpResponse, Throwable>() {
+            public void accept(MrcpResponse response, Throwable t) {
+                // a no-op if the request was unregistered by whoever completed the future
+                if (_pendingRequests.remove(requestID, future)) {
+                    releaseWindowSlot();
+                }
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops tracking a request whose deadline expired (called on the timer thread).  The future is completed on the
+     * dispatch executor of this channel so that dependent actions never run on the timer thread.
+     */
+    private void expireRequest(Long requestID, final CompletableFuture<MrcpResponse> future) {
+        if (!_pendingRequests.remove(requestID, future)) {
+            // final response arrived in the meantime
+            return;
+        }
+        releaseWindowSlot();
+        final TimeoutException cause = new TimeoutException("No response to request " + requestID +
+                " received on channel " + _channelID + " before the deadline");
+        try {
+            _dispatchExecutor.execute(new Runnable() {
+                public void run() {
+                    future.completeExceptionally(cause);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Takes a slot in the window for a request about to be sent.  If the window is full the request is queued until
+     * a slot frees up, or its future is failed, depending on the flow control setting of this channel.
+     * @return true if the request holds a slot and is to be sent by the caller, false if it was queued or rejected.
+     */
+    private boolean acquireWindowSlot(MrcpRequest request, CompletableFuture<MrcpResponse> future, long timeoutNanos,
+            long startTime) {
+        WaitingRequest waiting;
+        synchronized (_windowLock) {
+            // requests already waiting go first
+            if (_pendingRequestCount < _maxPendingRequests && _waitingRequests.isEmpty()) {
+                _pendingRequestCount++;
+                return true;
+            }
+            if (_flowControl == MrcpFlowControl.REJECT) {
+                future.completeExceptionally(new RejectedExecutionException("Too many pending requests on channel " +
+                        _channelID + ": " + _pendingRequestCount));
+                return false;
+            }
+            waiting = new WaitingRequest(request, future, timeoutNanos, startTime);
+            _waitingRequests.add(waiting);
+        }
+        if (timeoutNanos > 0) {
+            final WaitingRequest expiring = waiting;
+            waiting._timeout = _timer.newTimeout(new Runnable() {
+                public void run() {
+                    expireWaitingRequest(expiring);
+                }
+            }, timeoutNanos - (System.nanoTime() - startTime), TimeUnit.NANOSECONDS);
+        }
+        return false;
+    }
+
+    /**
+     * Stops a request waiting for a free slot whose deadline expired (called on the timer thread).
+     */
+    private void expireWaitingRequest(WaitingRequest waiting) {
+        synchronized (_windowLock) {
+            if (!_waitingRequests.remove(waiting)) {
+                // got a slot in the meantime
+                return;
+            }
+        }
+        final CompletableFuture<MrcpResponse> future = waiting._future;
+        final TimeoutException cause = new TimeoutException("No free slot for request on channel " + _channelID +
+                " before the deadline");
+        try {
+            _dispatchExecutor.execute(new Runnable() {
+                public void run() {
+                    future.completeExceptionally(cause);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private void releaseWindowSlot() {
+        synchronized (_windowLock) {
+            _pendingRequestCount--;
+        }
+        sendWaitingRequests();
+    }
+
+    /**
+     * Sends waiting requests, in the order they were queued, while the window has free slots.
+     */
+    private void sendWaitingRequests() {
+        while (true) {
+            WaitingRequest next;
+            synchronized (_windowLock) {
+                if (_pendingRequestCount >= _maxPendingRequests) {
+                    return;
+                }
+                do {
+                    next = _waitingRequests.poll();
+                } while (next != null && next._future.isDone()); // cancelled by the application
+                if (next == null) {
+                    return;
+                }
+                _pendingRequestCount++;
+            }
+            if (next._timeout != null) {
+                next._timeout.cancel();
+            }
+            if (writeRequest(next._request, next._future, next._timeoutNanos, next._startTime)) {
+                synchronized (_windowLock) {
+                    _pendingRequestCount--;
+                }
+            }
+        }
     }
 
     /**
@@ -180,27 +669,46 @@ public class MrcpChannel implements MrcpMessageHandler {
 		responseListeners.remove(listener);
 	}
 
-    /* (non-Javadoc)
+    /**
+     * Hands a message received on this channel over to the dispatch executor of this channel, so that listeners
+     * never run on the I/O thread that read the message (unless configured otherwise by the provider).  Messages
+     * of a channel are delivered one at a time in the order they were received.
      * @see org.mrcp4j.client.MrcpMessageHandler#handleMessage(org.mrcp4j.message.MrcpMessage)
+     * @see org.mrcp4j.client.MrcpProvider#setDispatchMode(org.mrcp4j.client.MrcpDispatchMode)
      */
-    public void handleMessage(MrcpMessage message) {
+    public void handleMessage(final MrcpMessage message) {
+        try {
+            _dispatchExecutor.execute(new Runnable() {
+                public void run() {
+                    deliver(message);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // provider has been closed
+            _log.debug("Message dropped, dispatcher shut down: " + message.getRequestID());
+        }
+    }
+
+    private void deliver(MrcpMessage message) {
         if (message instanceof MrcpResponse) {
 			MrcpResponse response = (MrcpResponse) message;
 
-			List<MrcpResponseListener> ls = new ArrayList<MrcpResponseListener>(responseListeners);
-			for (MrcpResponseListener listener : ls) {
+			boolean handled = completeRequest(response);
+			for (MrcpResponseListener listener : responseListeners) {
 				listener.responseReceived(response);
+				handled = true;
 			}
-			if (ls.isEmpty()) {
+			if (!handled) {
 				_log.warn("No response listeners registered, and yet a response was received:\n" + response.toString());
 			}
         } else if (message instanceof MrcpEvent) {
 			MrcpEvent event = (MrcpEvent) message;
-			List<MrcpEventListener> ls = new ArrayList<MrcpEventListener>(eventListeners);
-            for (MrcpEventListener listener : ls) {
+			boolean handled = false;
+            for (MrcpEventListener listener : eventListeners) {
                 listener.eventReceived(event);
+                handled = true;
             }
-			if (ls.isEmpty()) {
+			if (!handled) {
 				_log.warn("No event listeners registered, and yet an event was received");
 			}
         } else {
@@ -208,8 +716,121 @@ public class MrcpChannel implements MrcpMessageHandler {
         }
     }
 
+    /**
+     * Fails every request awaiting a response on this channel, the responses were lost along with the connection.
+     * The channel itself remains usable once the connection has been re-established.
+     * @see org.mrcp4j.client.MrcpMessageHandler#connectionLost(java.io.IOException)
+     */
+    public void connectionLost(IOException cause) {
+        final IOException failure = new IOException("Connection lost on channel " + _channelID, cause);
+        for (Long requestID : _pendingRequests.keySet()) {
+            final CompletableFuture<MrcpResponse> future = _pendingRequests.remove(requestID);
+            if (future == null) {
+                continue;
+            }
+            releaseWindowSlot();
+            try {
+                _dispatchExecutor.execute(new Runnable() {
+                    public void run() {
+                        future.completeExceptionally(failure);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Completes the pending request, if any, that the specified response is the final response to.
+     * @return true if a pending request was completed.
+     */
+    private boolean completeRequest(MrcpResponse response) {
+        if (response.getRequestState() == MrcpRequestState.PENDING) {
+            return _pendingRequests.containsKey(Long.valueOf(response.getRequestID()));
+        }
+        CompletableFuture<MrcpResponse> future = _pendingRequests.remove(Long.valueOf(response.getRequestID()));
+        if (future == null) {
+            return false;
+        }
+        releaseWindowSlot();
+        if (response.getStatusCode() > 299) {
+            future.completeExceptionally(new MrcpInvocationException(response));
+        } else {
+            future.complete(response);
+        }
+        return true;
+    }
+
+    /**
+     * Closes this channel.  The connection carrying the channel may be shared with other channels and is left open,
+     * requests still awaiting their response are completed exceptionally.  Requests sent after the channel has been
+     * closed fail with an {@link java.io.IOException}.
+     */
     public void close() {
-        _socket.close();
+        synchronized (_sendLock) {
+            // every request sent before this point is registered as pending and failed below
+            _closed = true;
+        }
+        _socket.removeMessageHandler(_channelID);
+        IOException cause = new IOException("Channel closed: " + _channelID);
+        List<WaitingRequest> waiting;
+        synchronized (_windowLock) {
+            waiting = new ArrayList<WaitingRequest>(_waitingRequests);
+            _waitingRequests.clear();
+        }
+        for (WaitingRequest request : waiting) {
+            if (request._timeout != null) {
+                request._timeout.cancel();
+            }
+            request._future.completeExceptionally(cause);
+        }
+        for (Long requestID : _pendingRequests.keySet()) {
+            CompletableFuture<MrcpResponse> future = _pendingRequests.remove(requestID);
+            if (future != null) {
+                releaseWindowSlot();
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * A request that has been assigned its request-id and encoded, waiting for the requests with lower request-ids
+     * to be handed over to the connection.
+     */
+    private static class EncodedRequest {
+
+        private long _requestID;
+        private CompletableFuture<MrcpResponse> _future;
+        private MrcpSocket.OutboundMessage _message;
+        private IOException _failure;
+
+        EncodedRequest(long requestID, CompletableFuture<MrcpResponse> future) {
+            _requestID = requestID;
+            _future = future;
+        }
+
+    }
+
+    /**
+     * A request waiting for a free slot in the window of outstanding requests.
+     */
+    private static class WaitingRequest {
+
+        private MrcpRequest _request;
+        private CompletableFuture<MrcpResponse> _future;
+        private long _timeoutNanos;
+        private long _startTime;
+        private volatile HashedWheelTimer.Timeout _timeout;
+
+        WaitingRequest(MrcpRequest request, CompletableFuture<MrcpResponse> future, long timeoutNanos,
+                long startTime) {
+            _request = request;
+            _future = future;
+            _timeoutNanos = timeoutNanos;
+            _startTime = startTime;
+        }
+
     }
 
 }
\ No newline at end of file
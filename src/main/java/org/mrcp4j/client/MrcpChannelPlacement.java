@@ -0,0 +1,45 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+/**
+ * Defines the strategies available for placing a new {@link org.mrcp4j.client.MrcpChannel} on one of the
+ * connections that an {@link org.mrcp4j.client.MrcpProvider} maintains to an MRCP server.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.client.MrcpProvider#setChannelPlacement(org.mrcp4j.client.MrcpChannelPlacement)
+ */
+public enum MrcpChannelPlacement {
+
+    /**
+     * Places the channel on the connection currently carrying the fewest channels.
+     */
+    LEAST_LOADED,
+
+    /**
+     * Places the channel on a connection determined by a hash of its channel identifier, so that
+     * the same channel identifier is always placed on the same connection.
+     */
+    HASHED
+
+}
@@ -0,0 +1,219 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import org.mrcp4j.message.header.ChannelIdentifier;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the channels placed on a connection to their message handlers (for internal library use only).
+ *
+ * <p>The registry is optimized for the receive path: lookups are lock-free and can be made directly with the
+ * bytes of a Channel-Identifier header value in the receive buffer, without creating a {@code String} or a
+ * {@link org.mrcp4j.message.header.ChannelIdentifier} per message.  Registrations are rare, they copy the
+ * underlying open addressing table and publish the copy.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+class MrcpChannelRegistry {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private volatile Entry[] _table = new Entry[8];
+    private int _size; // guarded by this
+
+    /**
+     * Registers the handler for messages received on the specified channel, replacing any previous handler.
+     * @param channelID the channel.
+     * @param handler   the handler for messages received on the channel.
+     */
+    synchronized void register(ChannelIdentifier channelID, MrcpMessageHandler handler) {
+        Entry entry = new Entry(channelID, handler);
+        if (lookup(entry._key, 0, entry._key.length) == null) {
+            _size++;
+        }
+        Entry[] table = copy(_table, _size, entry._key);
+        insert(table, entry);
+        _table = table;
+    }
+
+    /**
+     * Removes the handler registered for the specified channel, if any.
+     * @param channelID the channel.
+     */
+    synchronized void unregister(ChannelIdentifier channelID) {
+        byte[] key = toKey(channelID);
+        Entry existing = lookup(key, 0, key.length);
+        if (existing != null) {
+            _size--;
+            _table = copy(_table, _size, key);
+        }
+    }
+
+    /**
+     * Looks up the channel whose Channel-Identifier value equals the specified bytes.
+     * @param bytes  buffer holding the value.
+     * @param offset start of the value in the buffer.
+     * @param length length of the value.
+     * @return the registry entry of the channel, or null if no handler is registered for the channel.
+     */
+    Entry lookup(byte[] bytes, int offset, int length) {
+        Entry[] table = _table;
+        int mask = table.length - 1;
+        for (int i = hash(bytes, offset, length) & mask; ; i = (i + 1) & mask) {
+            Entry entry = table[i];
+            if (entry == null) {
+                return null;
+            }
+            if (entry.matches(bytes, offset, length)) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Looks up the channel with the specified Channel-Identifier by comparing its channel-id and resource type,
+     * regardless of how the value was spelled, e.g. in the case of the resource type or the whitespace around the
+     * '@'.  Scans all entries, intended as a fallback for values not found by their bytes.
+     * @param channelID the channel.
+     * @return the registry entry of the channel, or null if no handler is registered for the channel.
+     */
+    Entry lookup(ChannelIdentifier channelID) {
+        for (Entry entry : _table) {
+            if (entry != null && entry._channelID.getResourceType() == channelID.getResourceType() &&
+                    entry._channelID.getChannelID().equals(channelID.getChannelID())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    synchronized int size() {
+        return _size;
+    }
+
+    /**
+     * @return a snapshot of all registered handlers.
+     */
+    List<MrcpMessageHandler> getHandlers() {
+        Entry[] table = _table;
+        List<MrcpMessageHandler> handlers = new ArrayList<MrcpMessageHandler>();
+        for (Entry entry : table) {
+            if (entry != null) {
+                handlers.add(entry._handler);
+            }
+        }
+        return handlers;
+    }
+
+    /**
+     * Copies all entries except the one with the specified key into a new table sized for the expected number
+     * of entries, keeping the load factor at or below one half.
+     */
+    private static Entry[] copy(Entry[] table, int expectedSize, byte[] excludedKey) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        Entry[] copy = new Entry[capacity];
+        for (Entry entry : table) {
+            if (entry != null && !entry.matches(excludedKey, 0, excludedKey.length)) {
+                insert(copy, entry);
+            }
+        }
+        return copy;
+    }
+
+    private static void insert(Entry[] table, Entry entry) {
+        int mask = table.length - 1;
+        int i = entry._hash & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = entry;
+    }
+
+    private static byte[] toKey(ChannelIdentifier channelID) {
+        return channelID.toString().getBytes(UTF8);
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A registered channel together with its handler and the pre-built Channel-Identifier header that is
+     * attached to every message decoded for the channel.
+     */
+    static class Entry {
+
+        private byte[] _key;
+        private int _hash;
+        private ChannelIdentifier _channelID;
+        private MrcpHeader _header;
+        private MrcpMessageHandler _handler;
+
+        Entry(ChannelIdentifier channelID, MrcpMessageHandler handler) {
+            _key = toKey(channelID);
+            _hash = hash(_key, 0, _key.length);
+            _channelID = channelID;
+            _header = MrcpHeaderName.CHANNEL_IDENTIFIER.constructHeader(channelID);
+            _handler = handler;
+        }
+
+        ChannelIdentifier getChannelID() {
+            return _channelID;
+        }
+
+        MrcpHeader getHeader() {
+            return _header;
+        }
+
+        MrcpMessageHandler getHandler() {
+            return _handler;
+        }
+
+        boolean matches(byte[] bytes, int offset, int length) {
+            if (length != _key.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (_key[i] != bytes[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Snapshot of the load carried by one connection between an {@link org.mrcp4j.client.MrcpProvider}
+ * and an MRCP server.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.client.MrcpProvider#getConnectionStatistics()
+ */
+public class MrcpConnectionStatistics {
+
+    private InetSocketAddress _remoteAddress;
+    private boolean _connected;
+    private int _channelCount;
+    private long _messagesSent;
+    private long _messagesReceived;
+    private long _bytesSent;
+    private long _bytesReceived;
+    private long _flushCount;
+    private long _messagesFlushed;
+    private int _reconnectCount;
+
+    MrcpConnectionStatistics(InetSocketAddress remoteAddress, boolean connected, int channelCount,
+            long messagesSent, long messagesReceived, long bytesSent, long bytesReceived,
+            long flushCount, long messagesFlushed, int reconnectCount) {
+        _remoteAddress = remoteAddress;
+        _connected = connected;
+        _channelCount = channelCount;
+        _messagesSent = messagesSent;
+        _messagesReceived = messagesReceived;
+        _bytesSent = bytesSent;
+        _bytesReceived = bytesReceived;
+        _flushCount = flushCount;
+        _messagesFlushed = messagesFlushed;
+        _reconnectCount = reconnectCount;
+    }
+
+    /**
+     * @return the address of the MRCP server at the remote end of the connection.
+     */
+    public InetSocketAddress getRemoteAddress() {
+        return _remoteAddress;
+    }
+
+    /**
+     * @return true if the connection was established when the snapshot was taken, false if it was closed or
+     *         being re-established.
+     */
+    public boolean isConnected() {
+        return _connected;
+    }
+
+    /**
+     * @return the number of channels placed on the connection.
+     */
+    public int getChannelCount() {
+        return _channelCount;
+    }
+
+    /**
+     * @return the number of requests written to the connection.
+     */
+    public long getMessagesSent() {
+        return _messagesSent;
+    }
+
+    /**
+     * @return the number of responses and events decoded from the connection.
+     */
+    public long getMessagesReceived() {
+        return _messagesReceived;
+    }
+
+    /**
+     * @return the number of bytes written to the connection.
+     */
+    public long getBytesSent() {
+        return _bytesSent;
+    }
+
+    /**
+     * @return the number of bytes read from the connection.
+     */
+    public long getBytesReceived() {
+        return _bytesReceived;
+    }
+
+    /**
+     * @return the number of writes to the socket, each of which may carry several coalesced requests.
+     */
+    public long getFlushCount() {
+        return _flushCount;
+    }
+
+    /**
+     * @return the average number of requests completed per write to the socket, or 0 if nothing was written yet.
+     */
+    public double getMessagesPerFlush() {
+        return (_flushCount == 0) ? 0 : (double) _messagesFlushed / _flushCount;
+    }
+
+    /**
+     * @return the number of times the connection was re-established after a failure.
+     */
+    public int getReconnectCount() {
+        return _reconnectCount;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(_remoteAddress);
+        sb.append(_connected ? " connected" : " disconnected");
+        sb.append(" reconnects=").append(_reconnectCount);
+        sb.append(" channels=").append(_channelCount);
+        sb.append(" sent=").append(_messagesSent).append('/').append(_bytesSent).append('B');
+        sb.append(" received=").append(_messagesReceived).append('/').append(_bytesReceived).append('B');
+        sb.append(" flushes=").append(_flushCount);
+        sb.append(" messagesPerFlush=").append(String.format("%.2f", getMessagesPerFlush()));
+        return sb.toString();
+    }
+
+}
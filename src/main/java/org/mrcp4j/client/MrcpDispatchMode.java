@@ -0,0 +1,60 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+/**
+ * Determines the threads on which responses and events received by an {@link org.mrcp4j.client.MrcpChannel} are
+ * delivered to pending request futures and registered listeners.
+ *
+ * <p>In every mode the messages of one channel are delivered one at a time and in the order they were received.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.client.MrcpProvider#setDispatchMode(org.mrcp4j.client.MrcpDispatchMode)
+ */
+public enum MrcpDispatchMode {
+
+    /**
+     * Messages are delivered directly on the I/O thread that read them.  Lowest latency, but a slow listener
+     * delays every other connection serviced by the same I/O thread.
+     */
+    IO_THREAD,
+
+    /**
+     * Messages are delivered by a fixed number of dispatch threads, each channel is bound to one of them by the
+     * hash of its channel identifier.  A slow listener only delays the channels sharing its stripe.
+     */
+    STRIPED,
+
+    /**
+     * Each channel has its own serial queue, drained by a shared pool of dispatch threads that grows on demand.
+     * A slow listener only delays its own channel.
+     */
+    SERIAL,
+
+    /**
+     * Like {@link #SERIAL}, but the serial queues are drained by virtual threads.  Requires Java 21 or later,
+     * falls back to {@link #SERIAL} on older runtimes.
+     */
+    VIRTUAL_THREAD
+
+}
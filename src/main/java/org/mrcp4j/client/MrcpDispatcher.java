@@ -0,0 +1,164 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mrcp4j.message.header.ChannelIdentifier;
+import org.mrcp4j.util.NamedThreadFactory;
+import org.mrcp4j.util.SerialExecutor;
+import org.mrcp4j.util.VirtualThreads;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides the executors on which the channels of an {@link org.mrcp4j.client.MrcpProvider} deliver received
+ * messages (for internal library use only).
+ *
+ * <p>The executor handed out for a channel always runs its tasks one at a time and in submission order, so
+ * responses and events of a channel are delivered in the order they were read from the connection, while
+ * different channels may be serviced in parallel.  In every mode a runtime exception thrown by a listener is logged
+ * and does not prevent subsequent messages from being delivered.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+class MrcpDispatcher {
+
+    private static Log _log = LogFactory.getLog(MrcpDispatcher.class);
+
+    // exceptions must not escape into the I/O thread, the messages decoded after this one would be lost
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        public void execute(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                _log.warn(e, e);
+            }
+        }
+    };
+
+    private MrcpDispatchMode _mode;
+    private ExecutorService[] _stripes;
+    private Executor[] _guardedStripes;
+    private ExecutorService _executor;
+
+    /**
+     * @param mode        the dispatch mode.
+     * @param threadCount the number of stripes, only used in {@link MrcpDispatchMode#STRIPED} mode.
+     */
+    MrcpDispatcher(MrcpDispatchMode mode, int threadCount) {
+        if (mode == MrcpDispatchMode.VIRTUAL_THREAD) {
+            _executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            if (_executor == null) {
+                _log.warn("Virtual threads not supported by this JVM, falling back to " + MrcpDispatchMode.SERIAL);
+                mode = MrcpDispatchMode.SERIAL;
+            }
+        }
+        _mode = mode;
+
+        switch (mode) {
+        case STRIPED:
+            NamedThreadFactory threadFactory = new NamedThreadFactory("MRCP client dispatch", true);
+            _stripes = new ExecutorService[threadCount];
+            _guardedStripes = new Executor[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                _stripes[i] = Executors.newSingleThreadExecutor(threadFactory);
+                _guardedStripes[i] = new GuardedExecutor(_stripes[i]);
+            }
+            break;
+        case SERIAL:
+            _executor = Executors.newCachedThreadPool(new NamedThreadFactory("MRCP client dispatch", true));
+            break;
+        default:
+            break;
+        }
+    }
+
+    MrcpDispatchMode getMode() {
+        return _mode;
+    }
+
+    /**
+     * Retrieves the executor on which messages received for the specified channel are to be delivered.
+     * @param channelID the identifier of the channel.
+     * @return an executor running its tasks one at a time in submission order.
+     */
+    Executor getExecutor(ChannelIdentifier channelID) {
+        switch (_mode) {
+        case IO_THREAD:
+            return DIRECT_EXECUTOR;
+        case STRIPED:
+            int index = (channelID.hashCode() & Integer.MAX_VALUE) % _stripes.length;
+            return _guardedStripes[index];
+        default:
+            // logs exceptions thrown by its tasks itself
+            return new SerialExecutor(_executor);
+        }
+    }
+
+    /**
+     * Stops the dispatch threads.  Messages already queued for delivery are still delivered.
+     */
+    void shutdown() {
+        if (_stripes != null) {
+            for (ExecutorService stripe : _stripes) {
+                stripe.shutdown();
+            }
+        }
+        if (_executor != null) {
+            _executor.shutdown();
+        }
+    }
+
+    /**
+     * Logs runtime exceptions thrown by the tasks of a single threaded executor, which would otherwise silently
+     * replace its thread.
+     */
+    private static class GuardedExecutor implements Executor {
+
+        private Executor _executor;
+
+        GuardedExecutor(Executor executor) {
+            _executor = executor;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+         */
+        public void execute(final Runnable task) {
+            _executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        _log.warn(e, e);
+                    }
+                }
+            });
+        }
+
+    }
+
+}
@@ -22,84 +22,29 @@
  */
 package org.mrcp4j.client;
 
-import org.mrcp4j.MrcpEventName;
-import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpStartLineParser;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
 /**
  * Decodes event messages received in MRCPv2 format into {@link org.mrcp4j.message.MrcpEvent} instances.
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.message.MrcpStartLineParser
  */
 public class MrcpEventDecoder {
 
-    private static final int EVENT_LINE_MRCP_VERSION_PART   = 0;
-    private static final int EVENT_LINE_MESSAGE_LENGTH_PART = 1;
-    private static final int EVENT_LINE_EVENT_NAME_PART     = 2;
-    private static final int EVENT_LINE_REQUEST_ID_PART     = 3;
-    private static final int EVENT_LINE_REQUEST_STATE_PART  = 4;
-    private static final int EVENT_LINE_PART_COUNT          = 5;
-
     public MrcpEvent createEvent(String eventLine) throws IOException, ParseException {
 
         if (eventLine == null || (eventLine = eventLine.trim()).length() < 1) {
             throw new ParseException("No event-line provided!", -1);
         }
 
-        String[] eventLineParts = eventLine.split(" ");
-        if (eventLineParts.length != EVENT_LINE_PART_COUNT) {
-            throw new ParseException("Incorrect event-line format!", -1);
-        }
-
-        MrcpEvent event = new MrcpEvent();
-
-        // mrcp-version
-        event.setVersion(eventLineParts[EVENT_LINE_MRCP_VERSION_PART]); //TODO: check if this matches request version, maybe at a higher level...
-
-        // message-length
-        try {
-            event.setMessageLength(
-                Integer.parseInt(eventLineParts[EVENT_LINE_MESSAGE_LENGTH_PART])
-            );
-        } catch (NumberFormatException e){
-            String message = "Incorrect message-length format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
-
-        // event-name
-        try {
-            event.setEventName(
-                MrcpEventName.fromString(eventLineParts[EVENT_LINE_EVENT_NAME_PART])
-            );
-        } catch (IllegalArgumentException e){
-            String message = "Incorrect event-name format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
-
-        // request-id
-        try {
-            event.setRequestID(
-                Long.parseLong(eventLineParts[EVENT_LINE_REQUEST_ID_PART])
-            );
-        } catch (NumberFormatException e){
-            String message = "Incorrect request-id format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
-
-        // request-state
-        try {
-            event.setRequestState(
-                MrcpRequestState.fromString(eventLineParts[EVENT_LINE_REQUEST_STATE_PART])
-            );
-        } catch (IllegalArgumentException e){
-            String message = "Incorrect request-state format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
-
-        return event;
+        byte[] bytes = eventLine.getBytes(StandardCharsets.US_ASCII);
+        return MrcpStartLineParser.parseEventLine(bytes, 0, bytes.length);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+/**
+ * Defines how an {@link org.mrcp4j.client.MrcpChannel} reacts when a request is sent while its window of
+ * outstanding requests is full.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.client.MrcpChannel#setFlowControl(org.mrcp4j.client.MrcpFlowControl)
+ */
+public enum MrcpFlowControl {
+
+    /**
+     * The request waits until an outstanding request has received its final response, without blocking the sending
+     * thread.  Waiting requests are sent in the order they were submitted.
+     */
+    BLOCK,
+
+    /**
+     * The request is not sent and its future is completed exceptionally with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    REJECT
+
+}
@@ -0,0 +1,189 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multiplexes the connections of an {@link org.mrcp4j.client.MrcpProvider} over a small, fixed number of
+ * selector threads (for internal library use only).
+ *
+ * <p>Each {@link org.mrcp4j.client.MrcpSocket} is bound to exactly one I/O thread for its whole lifetime, so
+ * all reads, deferred writes and reconnects for a connection happen on the same thread.  Connections are assigned to
+ * I/O threads in round-robin order.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+class MrcpIoService {
+
+    private static Log _log = LogFactory.getLog(MrcpIoService.class);
+
+    private IoThread[] _threads;
+    private AtomicInteger _nextThread = new AtomicInteger();
+
+    MrcpIoService(int threadCount) throws IOException {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("I/O thread count must be positive: " + threadCount);
+        }
+        _threads = new IoThread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            _threads[i] = new IoThread(i);
+        }
+        for (IoThread thread : _threads) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Retrieves the I/O thread that the next connection should be bound to.
+     * @return the I/O thread selected for the next connection.
+     */
+    IoThread nextThread() {
+        int index = (_nextThread.getAndIncrement() & Integer.MAX_VALUE) % _threads.length;
+        return _threads[index];
+    }
+
+    int getThreadCount() {
+        return _threads.length;
+    }
+
+    /**
+     * Stops all I/O threads.  Connections still registered with this service are not closed by this method.
+     */
+    void shutdown() {
+        for (IoThread thread : _threads) {
+            thread.shutdown();
+        }
+    }
+
+    /**
+     * Selector thread servicing the connections bound to it.
+     */
+    class IoThread extends Thread {
+
+        private Selector _selector;
+        private Queue<Runnable> _tasks = new ConcurrentLinkedQueue<Runnable>();
+        private volatile boolean _shouldRun = true;
+
+        IoThread(int index) throws IOException {
+            _selector = Selector.open();
+            setName("MRCP client I/O " + index);
+            setDaemon(true);
+        }
+
+        /**
+         * Runs a task on this I/O thread.  All changes to the selection keys of this thread's selector
+         * are made through this method.
+         * @param task the task to be run.
+         */
+        void execute(Runnable task) {
+            _tasks.add(task);
+            if (Thread.currentThread() != this) {
+                _selector.wakeup();
+            }
+        }
+
+        Selector getSelector() {
+            return _selector;
+        }
+
+        boolean isIoThread() {
+            return Thread.currentThread() == this;
+        }
+
+        void shutdown() {
+            _shouldRun = false;
+            _selector.wakeup();
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        @Override
+        public void run() {
+            while (_shouldRun) {
+                try {
+                    if (_tasks.isEmpty()) {
+                        _selector.select();
+                    } else {
+                        // tasks queued by this thread itself did not wake up the selector
+                        _selector.selectNow();
+                    }
+                    runTasks();
+                    processSelectedKeys();
+                } catch (IOException e) {
+                    _log.warn(e, e);
+                } catch (RuntimeException e) {
+                    // never let a single misbehaving connection take the I/O thread down
+                    _log.warn(e, e);
+                }
+            }
+            try {
+                _selector.close();
+            } catch (IOException e) {
+                _log.debug(e, e);
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = _tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private void processSelectedKeys() {
+            Iterator<SelectionKey> it = _selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                MrcpSocket socket = (MrcpSocket) key.attachment();
+                try {
+                    if (key.isValid() && key.isConnectable()) {
+                        socket.handleConnectable();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        socket.handleReadable();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        socket.handleWritable();
+                    }
+                } catch (CancelledKeyException e) {
+                    // socket was closed concurrently, ignore
+                }
+            }
+        }
+
+    }
+
+}
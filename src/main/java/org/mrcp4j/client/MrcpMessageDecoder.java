@@ -24,41 +24,246 @@ package org.mrcp4j.client;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.mrcp4j.message.MrcpContent;
 import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpMessageFraming;
+import org.mrcp4j.message.MrcpStartLineParser;
 import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.text.ParseException;
 
 /**
  * Decodes messages received in MRCPv2 format into {@link org.mrcp4j.message.MrcpMessage} instances.
  *
+ * <p>Messages are decoded directly from the bytes received on the connection.  Each message is framed using the
+ * message-length field of its start-line, so that a message is only decoded once all of its bytes have been received.
+ * The message body is kept in its encoded form and only decoded to text when the application asks for it.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpMessageDecoder {
 
     private static Log _log = LogFactory.getLog(MrcpMessageDecoder.class);
 
-    private MrcpResponseDecoder _responseDecoder = new MrcpResponseDecoder();
-    private MrcpEventDecoder _eventDecoder = new MrcpEventDecoder();
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private MrcpChannelRegistry _registry;
+    private MrcpChannelRegistry.Entry _channel;
+
+    private int _maxMessageLength = MrcpProvider.DEFAULT_MAX_MESSAGE_LENGTH;
+    private int _pendingMessageLength = -1;
+
+    public MrcpMessageDecoder() {
+        this(null);
+    }
+
+    /**
+     * @param registry channels whose Channel-Identifier headers are resolved directly from the received bytes,
+     *                 or null to parse every Channel-Identifier header.
+     */
+    MrcpMessageDecoder(MrcpChannelRegistry registry) {
+        _registry = registry;
+    }
+
+    /**
+     * Sets the maximum length in bytes of a message accepted by {@link #decode(java.nio.ByteBuffer)}.
+     * @param maxMessageLength the maximum message length in bytes, must be positive.
+     * @throws IllegalArgumentException if the message length is not positive.
+     */
+    public void setMaxMessageLength(int maxMessageLength) {
+        if (maxMessageLength < 1) {
+            throw new IllegalArgumentException("Maximum message length must be positive: " + maxMessageLength);
+        }
+        _maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * @return the maximum length in bytes of a message accepted by {@link #decode(java.nio.ByteBuffer)}.
+     */
+    public int getMaxMessageLength() {
+        return _maxMessageLength;
+    }
+
+    /**
+     * Discards the state kept about a partially received message, so that the next call to
+     * {@link #decode(java.nio.ByteBuffer)} starts with a new message.  Called when the stream the message was
+     * being received on has been lost.
+     */
+    public void reset() {
+        _pendingMessageLength = -1;
+        _channel = null;
+    }
+
+    /**
+     * Decodes the next message from a buffer of received bytes.
+     *
+     * <p>If the buffer does not yet contain the complete message, {@code null} is returned and the buffer
+     * position is left at the start of the message, so that decoding can be retried once more bytes have been
+     * appended.  The length of the incomplete message, once known, is available from
+     * {@link #getPendingMessageLength()}.</p>
+     *
+     * @param in buffer of received bytes, positioned at the start of the next message.
+     * @return the decoded message or null if the buffer does not yet contain a complete message.
+     * @throws IOException    if the start of the next message cannot be framed or announces a message longer than
+     *                        the maximum message length, in which case the stream cannot be decoded any further.
+     * @throws ParseException if the message is incorrectly formatted.  The bytes of the message have been consumed
+     *                        from the buffer, so decoding may continue with the next message.
+     */
+    public MrcpMessage decode(ByteBuffer in) throws IOException, ParseException {
+
+        // skip blank lines between messages
+        while (in.hasRemaining() && MrcpMessageFraming.isWhitespace(in.get(in.position()))) {
+            in.get();
+        }
+
+        int start = in.position();
+        int messageLength;
+        try {
+            messageLength = MrcpMessageFraming.readMessageLength(in);
+        } catch (ParseException e) {
+            // without a message-length the end of the message, and thus the start of the next one, is unknown
+            throw new IOException(e.getMessage(), e);
+        }
+        if (messageLength > _maxMessageLength) {
+            throw new IOException("Message-length " + messageLength + " exceeds the maximum message length of " +
+                    _maxMessageLength + " bytes");
+        }
+        _pendingMessageLength = messageLength;
+        if (messageLength < 0 || in.remaining() < messageLength) {
+            return null;
+        }
+        _pendingMessageLength = -1;
 
+        // consume the message from the buffer before parsing so a malformed message is skipped as a whole
+        byte[] bytes;
+        int offset;
+        if (in.hasArray()) {
+            bytes = in.array();
+            offset = in.arrayOffset() + start;
+            in.position(start + messageLength);
+        } else {
+            bytes = new byte[messageLength];
+            offset = 0;
+            in.get(bytes);
+        }
 
-    private static final int RESPONSE_LINE_REQUEST_ID_PART  = 2;
-    private static final int START_LINE_PART_COUNT          = 5;
+        return decode(bytes, offset, messageLength);
+    }
 
-	private static Charset utf8 = Charset.forName("UTF-8");
+    /**
+     * Retrieves the total length of the message that the last call to {@link #decode(java.nio.ByteBuffer)}
+     * could not complete.
+     * @return the length in bytes of the incomplete message, or -1 if it is not yet known.
+     */
+    public int getPendingMessageLength() {
+        return _pendingMessageLength;
+    }
 
-	private static int utf8Length(char c) {
-		// *vomit* *vomit* *vomit* !!!
-		char[] cc = {c};
-		return new String(cc).getBytes(utf8).length;
-	}
+    /**
+     * Retrieves the channel of the message last returned by {@link #decode(java.nio.ByteBuffer)}, as resolved
+     * from the channel registry of this decoder while decoding the message.
+     * @return the registry entry of the channel, or null if the channel is not registered.
+     */
+    MrcpChannelRegistry.Entry getChannel() {
+        return _channel;
+    }
+
+    private MrcpMessage decode(byte[] bytes, int offset, int length) throws ParseException {
+        int end = offset + length;
+        _channel = null;
 
+        // start-line
+        int lineEnd = MrcpMessageFraming.indexOfLineEnd(bytes, offset, end);
+        MrcpMessage message = MrcpStartLineParser.parseServerMessageLine(bytes, offset, lineEnd - offset);
+        int pos = MrcpMessageFraming.skipLineEnd(bytes, lineEnd, end);
+
+        // populate message headers
+        while (pos < end) {
+            lineEnd = MrcpMessageFraming.indexOfLineEnd(bytes, pos, end);
+            int lineStart = pos;
+            pos = MrcpMessageFraming.skipLineEnd(bytes, lineEnd, end);
+            if (MrcpMessageFraming.isBlank(bytes, lineStart, lineEnd)) {
+                break;
+            }
+            // TODO: handle multi-line headers
+            int index = MrcpMessageFraming.indexOf(bytes, lineStart, lineEnd, (byte) ':');
+            if (index < 0 || MrcpMessageFraming.isBlank(bytes, lineStart, index)) {
+                throw new ParseException("Incorrect message-header format!", -1);
+            }
+            int nameStart = MrcpMessageFraming.skipWhitespace(bytes, lineStart, index);
+            int nameEnd = MrcpMessageFraming.trimWhitespace(bytes, nameStart, index);
+            MrcpHeaderName headerName = MrcpHeaderName.fromBytes(bytes, nameStart, nameEnd - nameStart);
+            if (headerName == MrcpHeaderName.CHANNEL_IDENTIFIER && _registry != null &&
+                    addRegisteredChannel(message, bytes, index, lineEnd)) {
+                continue;
+            }
+            String value = new String(bytes, index + 1, lineEnd - index - 1, UTF8).trim();
+            MrcpHeader header = (headerName != null) ? headerName.createHeader(value) :
+                MrcpHeaderName.createUnknownHeader(new String(bytes, nameStart, nameEnd - nameStart, ASCII), value);
+            message.addHeader(header);
+        }
+
+        // read message content if present
+        MrcpHeader contentLengthHeader = message.getHeader(MrcpHeaderName.CONTENT_LENGTH);
+        int contentLength = 0;
+        try {
+            contentLength = (contentLengthHeader == null) ? 0 : contentLengthHeader.getIntValue();
+        } catch (IllegalValueException e) {
+            throw new ParseException(e.getMessage(), -1);
+        }
+        if (contentLength > 0) {
+            if (contentLength > end - pos) {
+                throw new ParseException("Content-Length " + contentLength + " exceeds message-length, only " +
+                        (end - pos) + " bytes of content available", -1);
+            }
+            // the received bytes are reused for the next read, keep a copy but leave decoding to the application
+            byte[] content = new byte[contentLength];
+            System.arraycopy(bytes, pos, content, 0, contentLength);
+            message.setMessageBody(MrcpContent.wrap(content, MrcpContent.charsetOf(message.getContentType())));
+        }
+
+        return message;
+    }
+
+    /**
+     * Resolves a Channel-Identifier header of a registered channel from the header line bytes and adds the
+     * pre-built header of the channel to the message.
+     * @return true if the header line was handled, false if it needs to be parsed.
+     */
+    private boolean addRegisteredChannel(MrcpMessage message, byte[] bytes, int colon, int lineEnd) {
+        int valueStart = MrcpMessageFraming.skipWhitespace(bytes, colon + 1, lineEnd);
+        int valueEnd = MrcpMessageFraming.trimWhitespace(bytes, valueStart, lineEnd);
+        MrcpChannelRegistry.Entry channel = _registry.lookup(bytes, valueStart, valueEnd - valueStart);
+        if (channel == null) {
+            return false;
+        }
+        _channel = channel;
+        message.addHeader(channel.getHeader());
+        return true;
+    }
+
+    private static MrcpMessage createMessage(String line) throws ParseException {
+        byte[] bytes = line.getBytes(ASCII);
+        return MrcpStartLineParser.parseServerMessageLine(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decodes the next message from a character stream.
+     * @param in the stream to read the message from.
+     * @return the decoded message.
+     * @throws IOException    if an I/O error occurs.
+     * @throws ParseException if the message is incorrectly formatted.
+     * @deprecated the message body is framed by counting characters, use {@link #decode(java.nio.ByteBuffer)} instead.
+     */
     // TODO: change ParseException to MrcpProtocolException
+    @Deprecated
     public MrcpMessage decode(BufferedReader in) throws IOException, ParseException {
 
         // read until the first non-empty line to get the start-line
@@ -67,28 +272,8 @@ public class MrcpMessageDecoder {
             _log.debug((line == null) ? "MrcpMessageDecoder: null line" : "MrcpMessageDecoder: empty line");
         }
 
-        // verify the start-line contains the correct number of parts
-        String[] startLineParts = line.split(" ");
-        if (startLineParts.length != START_LINE_PART_COUNT) {
-            throw new ParseException("Incorrect start-line format, got " + startLineParts.length + " parts in '" + line + "'" , -1);
-        }
-
-        // determine if the message is a response or an event message
-        boolean isResponse = false;
-        try {
-            Long.parseLong(startLineParts[RESPONSE_LINE_REQUEST_ID_PART]);
-            isResponse = true;
-        } catch (NumberFormatException e){
-            // ignore, message should be event
-        }
-
         // create the message from the start-line
-        MrcpMessage message = null;
-        if (isResponse) {
-            message = _responseDecoder.createResponse(line);
-        } else {
-            message = _eventDecoder.createEvent(line);
-        }
+        MrcpMessage message = createMessage(line);
 
         // populate message headers
         while ((line = in.readLine()) != null && !(line = line.trim()).equals("")) {
@@ -107,7 +292,7 @@ public class MrcpMessageDecoder {
         MrcpHeader contentLengthHeader = message.getHeader(MrcpHeaderName.CONTENT_LENGTH);
         int contentLength = 0;
         try {
-            contentLength = (contentLengthHeader == null) ? 0 : ((Integer) contentLengthHeader.getValueObject()).intValue();
+            contentLength = (contentLengthHeader == null) ? 0 : contentLengthHeader.getIntValue();
         } catch (IllegalValueException e) {
             throw new ParseException(e.getMessage(), -1);
         }
@@ -127,6 +312,13 @@ public class MrcpMessageDecoder {
 				sb.append(c);
 
 				remainingBytes -= utf8Length(c);
+				if (Character.isHighSurrogate(c)) {
+					// the low surrogate completes the 4 byte sequence
+					int low = in.read();
+					if (low >= 0) {
+						sb.append((char) low);
+					}
+				}
 			}
 
 			if (remainingBytes < 0) {
@@ -139,5 +331,18 @@ public class MrcpMessageDecoder {
         return message;
     }
 
+    /**
+     * Number of bytes needed to encode a character in UTF-8, a high surrogate accounts for its whole pair.
+     */
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800) {
+            return 2;
+        } else if (Character.isHighSurrogate(c)) {
+            return 4;
+        }
+        return 3;
+    }
 
 }
\ No newline at end of file
@@ -24,6 +24,8 @@ package org.mrcp4j.client;
 
 import org.mrcp4j.message.MrcpMessage;
 
+import java.io.IOException;
+
 /**
  * The listener interface for processing MRCPv2 messages (for internal library use only).
  *
@@ -41,4 +43,11 @@ public interface MrcpMessageHandler {
      */
     public void handleMessage(MrcpMessage message);
 
+    /**
+     * Called when the connection carrying the messages has failed.  The connection is re-established in the
+     * background, responses to requests sent before the failure will not arrive.
+     * @param cause the error that caused the connection to fail
+     */
+    public void connectionLost(IOException cause);
+
 }
@@ -22,12 +22,22 @@
  */
 package org.mrcp4j.client;
 
+import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.util.HashedWheelTimer;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
 
 /**
  * Provides functionality for simplified management of {@link org.mrcp4j.client.MrcpChannel} instances by an MRCPv2 client.
@@ -44,21 +54,290 @@ public class MrcpProvider {
     public static final String PROTOCOL_TCP_MRCPv2 = "TCP/MRCPv2";
 
     /**
-     * Transport protocol string for MRCPv2 over TLS over TCP (not yet supported in current version of MRCP4J).
+     * Transport protocol string for MRCPv2 over TLS over TCP.
+     * @see #setSSLContext(javax.net.ssl.SSLContext)
      */
     public static final String PROTOCOL_TLS_MRCPv2 = "TCP/TLS/MRCPv2";
 
     /**
-     * Compile time flag for setting whether to share {@link org.mrcp4j.client.MrcpSocket} instances.
+     * Default number of I/O threads used to service the connections of a provider.
+     */
+    public static final int DEFAULT_IO_THREAD_COUNT = 2;
+
+    /**
+     * Default number of connections opened to each MRCP server endpoint, all channels to an endpoint share one connection.
+     */
+    public static final int DEFAULT_CONNECTIONS_PER_ENDPOINT = 1;
+
+    /**
+     * Default maximum number of requests that may await their final response on a channel at the same time.
+     */
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 32;
+
+    /**
+     * Default number of dispatch threads used in {@link org.mrcp4j.client.MrcpDispatchMode#STRIPED} mode.
      */
-    private static final boolean SHARE_SOCKETS = true;
+    public static final int DEFAULT_DISPATCH_THREAD_COUNT = 4;
 
-    private Map<String, MrcpSocket> _sockets = SHARE_SOCKETS ? new HashMap<String, MrcpSocket>() : null;
+    /**
+     * Default maximum length in bytes of a message accepted from an MRCP server.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
+
+    private Map<String, MrcpSocketPool> _pools = new HashMap<String, MrcpSocketPool>();
+
+    private int _ioThreadCount = DEFAULT_IO_THREAD_COUNT;
+    private int _connectionsPerEndpoint = DEFAULT_CONNECTIONS_PER_ENDPOINT;
+    private int _maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+    private MrcpChannelPlacement _channelPlacement = MrcpChannelPlacement.LEAST_LOADED;
+    private int _maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
+    private MrcpFlowControl _flowControl = MrcpFlowControl.BLOCK;
+    private MrcpIoService _ioService;
+    private MrcpDispatchMode _dispatchMode = MrcpDispatchMode.STRIPED;
+    private int _dispatchThreadCount = DEFAULT_DISPATCH_THREAD_COUNT;
+    private MrcpDispatcher _dispatcher;
+    private long _defaultTimeoutNanos;
+    private HashedWheelTimer _timer;
+    private SSLContext _sslContext;
+    private SSLParameters _sslParameters;
 
     MrcpProvider() {
         // restrict constructor to package visibility
     }
 
+    /**
+     * Sets the number of I/O threads used to multiplex all connections created by this provider.  Must be called
+     * before the first channel is created.
+     * @param ioThreadCount the number of selector threads, must be at least one.
+     * @throws IllegalArgumentException if the thread count is less than one.
+     * @throws IllegalStateException    if the I/O threads of this provider have already been started.
+     */
+    public synchronized void setIoThreadCount(int ioThreadCount) {
+        if (ioThreadCount < 1) {
+            throw new IllegalArgumentException("I/O thread count must be positive: " + ioThreadCount);
+        }
+        if (_ioService != null) {
+            throw new IllegalStateException("I/O threads already started");
+        }
+        _ioThreadCount = ioThreadCount;
+    }
+
+    /**
+     * Retrieves the number of I/O threads used to multiplex all connections created by this provider.
+     * @return the number of selector threads.
+     */
+    public synchronized int getIoThreadCount() {
+        return _ioThreadCount;
+    }
+
+    /**
+     * Sets the threads on which channels created by this provider deliver received responses and events to
+     * pending request futures and listeners.  Must be called before the first channel is created.
+     * @param dispatchMode the dispatch mode.
+     * @throws IllegalStateException if the dispatcher of this provider has already been started.
+     */
+    public synchronized void setDispatchMode(MrcpDispatchMode dispatchMode) {
+        if (dispatchMode == null) {
+            throw new NullPointerException("Dispatch mode argument was null!");
+        }
+        if (_dispatcher != null) {
+            throw new IllegalStateException("Dispatcher already started");
+        }
+        _dispatchMode = dispatchMode;
+    }
+
+    /**
+     * @return the threads on which channels deliver received responses and events.
+     */
+    public synchronized MrcpDispatchMode getDispatchMode() {
+        return _dispatchMode;
+    }
+
+    /**
+     * Sets the number of dispatch threads used in {@link org.mrcp4j.client.MrcpDispatchMode#STRIPED} mode.  Must be
+     * called before the first channel is created.
+     * @param dispatchThreadCount the number of dispatch threads, must be at least one.
+     * @throws IllegalArgumentException if the thread count is less than one.
+     * @throws IllegalStateException    if the dispatcher of this provider has already been started.
+     */
+    public synchronized void setDispatchThreadCount(int dispatchThreadCount) {
+        if (dispatchThreadCount < 1) {
+            throw new IllegalArgumentException("Dispatch thread count must be positive: " + dispatchThreadCount);
+        }
+        if (_dispatcher != null) {
+            throw new IllegalStateException("Dispatcher already started");
+        }
+        _dispatchThreadCount = dispatchThreadCount;
+    }
+
+    /**
+     * @return the number of dispatch threads used in {@link org.mrcp4j.client.MrcpDispatchMode#STRIPED} mode.
+     */
+    public synchronized int getDispatchThreadCount() {
+        return _dispatchThreadCount;
+    }
+
+    /**
+     * Sets the number of connections opened to each MRCP server endpoint.  Channels to an endpoint are spread over
+     * its connections according to the channel placement strategy, so that a slow listener or a large message on one
+     * connection does not delay the channels placed on the others.  Only affects endpoints not yet connected to.
+     * @param connectionsPerEndpoint the number of connections per endpoint, must be at least one.
+     * @throws IllegalArgumentException if the connection count is less than one.
+     */
+    public synchronized void setConnectionsPerEndpoint(int connectionsPerEndpoint) {
+        if (connectionsPerEndpoint < 1) {
+            throw new IllegalArgumentException("Connections per endpoint must be positive: " + connectionsPerEndpoint);
+        }
+        _connectionsPerEndpoint = connectionsPerEndpoint;
+    }
+
+    /**
+     * @return the number of connections opened to each MRCP server endpoint.
+     */
+    public synchronized int getConnectionsPerEndpoint() {
+        return _connectionsPerEndpoint;
+    }
+
+    /**
+     * Sets the maximum length in bytes of a message accepted from an MRCP server.  The read buffer of a connection
+     * grows to hold the largest message received, a server announcing a longer message-length is treated as a
+     * protocol violation and the connection is re-established.  Only affects endpoints not yet connected to.
+     * @param maxMessageLength the maximum message length in bytes, must be positive.
+     * @throws IllegalArgumentException if the message length is not positive.
+     */
+    public synchronized void setMaxMessageLength(int maxMessageLength) {
+        if (maxMessageLength < 1) {
+            throw new IllegalArgumentException("Maximum message length must be positive: " + maxMessageLength);
+        }
+        _maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * @return the maximum length in bytes of a message accepted from an MRCP server.
+     */
+    public synchronized int getMaxMessageLength() {
+        return _maxMessageLength;
+    }
+
+    /**
+     * Sets the strategy used to place new channels on the connections to their endpoint.  Only affects endpoints
+     * not yet connected to.
+     * @param channelPlacement the channel placement strategy.
+     */
+    public synchronized void setChannelPlacement(MrcpChannelPlacement channelPlacement) {
+        if (channelPlacement == null) {
+            throw new NullPointerException("Channel placement argument was null!");
+        }
+        _channelPlacement = channelPlacement;
+    }
+
+    /**
+     * @return the strategy used to place new channels on the connections to their endpoint.
+     */
+    public synchronized MrcpChannelPlacement getChannelPlacement() {
+        return _channelPlacement;
+    }
+
+    /**
+     * Sets the size of the window of outstanding requests for channels created by this provider from now on.
+     * @param maxPendingRequests the size of the window, must be at least one.
+     * @throws IllegalArgumentException if the window size is less than one.
+     * @see org.mrcp4j.client.MrcpChannel#setMaxPendingRequests(int)
+     */
+    public synchronized void setMaxPendingRequests(int maxPendingRequests) {
+        if (maxPendingRequests < 1) {
+            throw new IllegalArgumentException("Maximum pending requests must be positive: " + maxPendingRequests);
+        }
+        _maxPendingRequests = maxPendingRequests;
+    }
+
+    /**
+     * @return the size of the window of outstanding requests for new channels.
+     */
+    public synchronized int getMaxPendingRequests() {
+        return _maxPendingRequests;
+    }
+
+    /**
+     * Sets the flow control setting for channels created by this provider from now on.
+     * @param flowControl the flow control setting.
+     * @see org.mrcp4j.client.MrcpChannel#setFlowControl(org.mrcp4j.client.MrcpFlowControl)
+     */
+    public synchronized void setFlowControl(MrcpFlowControl flowControl) {
+        if (flowControl == null) {
+            throw new NullPointerException("Flow control argument was null!");
+        }
+        _flowControl = flowControl;
+    }
+
+    /**
+     * @return the flow control setting for new channels.
+     */
+    public synchronized MrcpFlowControl getFlowControl() {
+        return _flowControl;
+    }
+
+    /**
+     * Sets the deadline for the final response to requests, applied by channels created by this provider from
+     * now on.  All deadlines of a provider are tracked by one shared timer thread.  By default requests wait for
+     * their response indefinitely.
+     * @param timeout the deadline, zero or less to let requests wait for their response indefinitely.
+     * @param unit    the time unit of the timeout argument.
+     * @see org.mrcp4j.client.MrcpChannel#setDefaultTimeout(long, java.util.concurrent.TimeUnit)
+     */
+    public synchronized void setDefaultTimeout(long timeout, TimeUnit unit) {
+        _defaultTimeoutNanos = (timeout > 0) ? unit.toNanos(timeout) : 0;
+    }
+
+    /**
+     * @param  unit the time unit of the returned value.
+     * @return the deadline for the final response to requests on new channels, or zero if none.
+     */
+    public synchronized long getDefaultTimeout(TimeUnit unit) {
+        return unit.convert(_defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the context used to secure connections opened for the {@link #PROTOCOL_TLS_MRCPv2} transport from now on.
+     * The server certificate is verified against the trust material of the context and the host name of the server.
+     *
+     * <p>TLS sessions are cached by the client session context of the {@code SSLContext}, keyed by server host and
+     * port.  Reconnects and additional connections to the same server resume the cached session instead of
+     * performing a full handshake, as long as the session has not expired from the cache.</p>
+     *
+     * @param sslContext the TLS context, or null to use the default context of the JVM.
+     */
+    public synchronized void setSSLContext(SSLContext sslContext) {
+        _sslContext = sslContext;
+    }
+
+    /**
+     * @return the context used to secure TLS connections, or null if the default context of the JVM is used.
+     */
+    public synchronized SSLContext getSSLContext() {
+        return _sslContext;
+    }
+
+    /**
+     * Sets the parameters, such as protocols, cipher suites and endpoint identification, applied to connections
+     * opened for the {@link #PROTOCOL_TLS_MRCPv2} transport from now on.  By default the server certificate is
+     * verified against the host name of the server with the "HTTPS" endpoint identification algorithm, which fails
+     * when connecting by IP address to a server whose certificate has no matching IP address entry.  Parameters with
+     * a null endpoint identification algorithm skip the host name check and only verify the certificate chain.
+     *
+     * @param sslParameters the TLS parameters, or null for the defaults of the context with host name verification.
+     */
+    public synchronized void setSSLParameters(SSLParameters sslParameters) {
+        _sslParameters = sslParameters;
+    }
+
+    /**
+     * @return the TLS parameters, or null if the defaults of the context with host name verification are used.
+     */
+    public synchronized SSLParameters getSSLParameters() {
+        return _sslParameters;
+    }
+
     /**
      * Constructs a new MRCP channel and initiates an active connection with the specified MRCP resource. 
      * @param channelID the channel ID for the channel being created.  This ID should be discovered
@@ -66,8 +345,9 @@ public class MrcpProvider {
      *                  between the client and server.
      * @param host      the location of the MRCP resource being accessed by the channel.
      * @param port      the port at which the MRCP resource is listening for MRCP messages.
-     * @param protocol  the transport protocol being used to carry the MRCP messages (currently the only
-     *                  supported value is {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_TCP_MRCPv2}).
+     * @param protocol  the transport protocol being used to carry the MRCP messages, either
+     *                  {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_TCP_MRCPv2} or
+     *                  {@link org.mrcp4j.client.MrcpProvider#PROTOCOL_TLS_MRCPv2}.
      * 
      * @return                           an active MRCP channel connected to the host and port specified
      * @throws IOException               if an I/O error occurs.
@@ -77,35 +357,139 @@ public class MrcpProvider {
     public MrcpChannel createChannel(String channelID, InetAddress host, int port, String protocol)
       throws IOException, IllegalArgumentException, IllegalValueException {
 
-        // currently only TCP/MRCPv2 is supported
-        // TODO: add support for TCP/TLS/MRCPv2
-        if (!PROTOCOL_TCP_MRCPv2.equalsIgnoreCase(protocol)) {
-            throw new IllegalArgumentException("Unsupported protocol: " + protocol);
+        String transport = getTransport(protocol);
+        ChannelIdentifier channelIdentifier = (ChannelIdentifier) MrcpHeaderName.CHANNEL_IDENTIFIER.createHeaderValue(channelID);
+        MrcpSocketPool pool = getPool(host, port, transport);
+        MrcpChannel channel;
+        // the reservation counts the channel towards the load of its connection until the channel has registered
+        // itself with it, the connection is opened without holding the lock of the pool
+        int index = pool.reserve(channelIdentifier);
+        try {
+            MrcpSocket socket = pool.connect(index);
+            synchronized (this) {
+                channel = new MrcpChannel(channelIdentifier, socket, _maxPendingRequests, _flowControl,
+                        getDispatcher().getExecutor(channelIdentifier), getTimer(), _defaultTimeoutNanos);
+            }
+        } finally {
+            pool.release(index);
         }
-
-        MrcpSocket socket = getSocket(host, port, "tcp");
-        MrcpChannel channel = new MrcpChannel(channelID, socket);
         return channel;
-        // TODO: provide method to close channel
     }
 
-    private MrcpSocket getSocket(InetAddress host, int port, String transport)
-      throws IOException {
-        if (!SHARE_SOCKETS) {
-            return new MrcpSocket(host, port);
+    /**
+     * Opens all connections to an MRCP server endpoint ahead of creating channels to it, so that the first calls
+     * do not pay for connection establishment.
+     * @param host      the location of the MRCP server.
+     * @param port      the port at which the MRCP server is listening for MRCP messages.
+     * @param protocol  the transport protocol being used to carry the MRCP messages.
+     * @throws IOException               if an I/O error occurs.
+     * @throws IllegalArgumentException  if an unsupported protocol value is passed.
+     */
+    public void prewarm(InetAddress host, int port, String protocol) throws IOException, IllegalArgumentException {
+        getPool(host, port, getTransport(protocol)).connectAll();
+    }
+
+    /**
+     * Retrieves a snapshot of the load carried by each connection currently maintained by this provider.
+     * @return one statistics entry per connection.
+     */
+    public List<MrcpConnectionStatistics> getConnectionStatistics() {
+        List<MrcpConnectionStatistics> statistics = new ArrayList<MrcpConnectionStatistics>();
+        synchronized (_pools) {
+            for (MrcpSocketPool pool : _pools.values()) {
+                pool.addStatistics(statistics);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Closes all connections created by this provider and stops its I/O, dispatch and timer threads.  Channels created by this provider
+     * can no longer be used after this method has been called.
+     */
+    public void close() {
+        synchronized (_pools) {
+            for (MrcpSocketPool pool : _pools.values()) {
+                pool.close();
+            }
+            _pools.clear();
+        }
+        synchronized (this) {
+            if (_ioService != null) {
+                _ioService.shutdown();
+                _ioService = null;
+            }
+            if (_dispatcher != null) {
+                _dispatcher.shutdown();
+                _dispatcher = null;
+            }
+            if (_timer != null) {
+                _timer.stop();
+                _timer = null;
+            }
         }
+    }
+
+    private synchronized MrcpIoService getIoService() throws IOException {
+        if (_ioService == null) {
+            _ioService = new MrcpIoService(_ioThreadCount);
+        }
+        return _ioService;
+    }
+
+    private synchronized MrcpDispatcher getDispatcher() {
+        if (_dispatcher == null) {
+            _dispatcher = new MrcpDispatcher(_dispatchMode, _dispatchThreadCount);
+        }
+        return _dispatcher;
+    }
+
+    private synchronized HashedWheelTimer getTimer() {
+        if (_timer == null) {
+            _timer = new HashedWheelTimer("MRCP client timer", 10, TimeUnit.MILLISECONDS, 512);
+        }
+        return _timer;
+    }
 
+    private MrcpSocketPool getPool(InetAddress host, int port, String transport)
+      throws IOException {
         String key = getSocketKey(host, port, transport);
 
-        synchronized (_sockets) {
-            MrcpSocket socket = _sockets.get(key);
-            if (socket == null) {
-                //TODO: move socket initialization outside synchronization block
-                socket = new MrcpSocket(host, port);
-                _sockets.put(key, socket);
+        // connections are opened by the pool itself, outside of this synchronization block
+        synchronized (_pools) {
+            MrcpSocketPool pool = _pools.get(key);
+            if (pool == null) {
+                synchronized (this) {
+                    SSLContext sslContext = "tls".equals(transport) ? getEffectiveSSLContext() : null;
+                    SSLParameters sslParameters = "tls".equals(transport) ? _sslParameters : null;
+                    pool = new MrcpSocketPool(host, port, _connectionsPerEndpoint, _channelPlacement, getIoService(),
+                            getTimer(), sslContext, sslParameters, _maxMessageLength);
+                }
+                _pools.put(key, pool);
+            }
+            return pool;
+        }
+    }
+
+    private synchronized SSLContext getEffectiveSSLContext() throws IOException {
+        if (_sslContext == null) {
+            try {
+                return SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("No default TLS context available", e);
             }
-            return socket;
         }
+        return _sslContext;
+    }
+
+    private static String getTransport(String protocol) {
+        if (PROTOCOL_TCP_MRCPv2.equalsIgnoreCase(protocol)) {
+            return "tcp";
+        }
+        if (PROTOCOL_TLS_MRCPv2.equalsIgnoreCase(protocol)) {
+            return "tls";
+        }
+        throw new IllegalArgumentException("Unsupported protocol: " + protocol);
     }
 
     private static String getSocketKey(InetAddress host, int port, String transport) {
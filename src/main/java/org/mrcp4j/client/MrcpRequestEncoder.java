@@ -22,66 +22,80 @@
  */
 package org.mrcp4j.client;
 
-import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.util.ByteBufferPool;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-
-import static org.mrcp4j.message.MrcpMessage.CRLF;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 /**
  * Encodes {@link org.mrcp4j.message.request.MrcpRequest} instances into MRCPv2 specification format.
  *
+ * <p>The exact length of the encoded request is computed up front from the lengths of the start-line, the headers
+ * and the message body, so the request is written in a single pass into a buffer of exactly that size.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpRequestEncoder {
 
-    public void encode(MrcpRequest request, PrintWriter out) throws IOException {
-
-        StringBuilder messageBuffer = new StringBuilder();
+    private static final Charset UTF8 = Charset.forName("UTF-8");
 
-        // append request line
-        int offset = appendResponseLine(messageBuffer, request);
+    private ByteBufferPool _bufferPool;
 
-        // append headers
-        for (MrcpHeader header : request.getHeaders()) {
-            messageBuffer.append(header.toString()).append(CRLF);
-        }
-
-        // append CRLF line
-        messageBuffer.append(CRLF);
+    public MrcpRequestEncoder() {
+        this(null);
+    }
 
-        // append message content if present
-        if (request.hasContent()) {
-            messageBuffer.append(request.getContent());
-        }
+    /**
+     * Constructs an encoder that encodes requests into buffers taken from a pool.
+     * @param bufferPool the pool from which output buffers are acquired, or null to allocate a new buffer for each
+     *                   request.  Buffers acquired from the pool are to be released by the caller once written.
+     */
+    MrcpRequestEncoder(ByteBufferPool bufferPool) {
+        _bufferPool = bufferPool;
+    }
 
-        // determine and set message length
-        int bufferLength = messageBuffer.length();
-        int bufferLengthLength = Integer.toString(bufferLength).length();
-        int messageLength = bufferLength + bufferLengthLength;
-        String messageLengthString = Integer.toString(messageLength);
-        if (messageLengthString.length() > bufferLengthLength) {
-            messageLengthString = Integer.toString(++messageLength);
+    public void encode(MrcpRequest request, PrintWriter out) throws IOException {
+        // write message to out
+        ByteBuffer buffer = encode(request);
+        out.print(UTF8.decode(buffer).toString());
+        if (_bufferPool != null) {
+            _bufferPool.release(buffer);
         }
-        messageBuffer.insert(offset, messageLengthString);
-        request.setMessageLength(messageLength);
-        bufferLength = messageBuffer.length();
+    }
 
-        // write message to out
-        out.print(messageBuffer.toString());
+    /**
+     * Encodes a request into a buffer ready to be written to a {@link java.nio.channels.WritableByteChannel}.
+     * The message body is copied in its encoded form, it is not decoded to text.
+     * @param request the request to be encoded.
+     * @return a buffer containing the encoded request, positioned at the start of the message.
+     */
+    public ByteBuffer encode(MrcpRequest request) {
+        return encode(request, true);
+    }
 
+    /**
+     * Encodes the start-line and headers of a request whose body is to be streamed to the connection separately.
+     * The message-length in the start-line includes the length of the body.
+     * @param request the request to be encoded.
+     * @return a buffer containing the encoded request up to and including the empty line ending the headers.
+     */
+    ByteBuffer encodeHeaders(MrcpRequest request) {
+        return encode(request, false);
     }
 
-    private static int appendResponseLine(StringBuilder encodeBuf, MrcpRequest request) {
-        String version = request.getVersion();
-        encodeBuf.append(version).append(' ');
-        // message length will be inserted at this position after headers and content are encoded
-        encodeBuf.append(' ').append(request.getMethodName().toString());
-        encodeBuf.append(' ').append(request.getRequestID());
-        encodeBuf.append(CRLF);
-        return version.length() + 1;
+    private ByteBuffer encode(MrcpRequest request, boolean includeBody) {
+        int messageLength = request.updateMessageLength();
+        int length = messageLength;
+        if (!includeBody && request.hasContent()) {
+            length -= request.getMessageBody().getLength();
+        }
+        ByteBuffer buffer = (_bufferPool == null) ? ByteBuffer.allocate(length) : _bufferPool.acquire(length);
+        request.encodeTo(buffer, includeBody);
+        buffer.flip();
+        return buffer;
     }
 
 }
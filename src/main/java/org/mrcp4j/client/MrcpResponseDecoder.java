@@ -22,79 +22,29 @@
  */
 package org.mrcp4j.client;
 
-import org.mrcp4j.MrcpRequestState;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpStartLineParser;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
 /**
  * Decodes response messages received in MRCPv2 format into {@link org.mrcp4j.message.MrcpResponse} instances.
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.message.MrcpStartLineParser
  */
 public class MrcpResponseDecoder {
 
-    private static final int RESPONSE_LINE_MRCP_VERSION_PART   = 0;
-    private static final int RESPONSE_LINE_MESSAGE_LENGTH_PART = 1;
-    private static final int RESPONSE_LINE_REQUEST_ID_PART     = 2;
-    private static final int RESPONSE_LINE_STATUS_CODE_PART    = 3;
-    private static final int RESPONSE_LINE_REQUEST_STATE_PART  = 4;
-    private static final int RESPONSE_LINE_PART_COUNT          = 5;
-
     public MrcpResponse createResponse(String responseLine) throws IOException, ParseException {
 
         if (responseLine == null || (responseLine = responseLine.trim()).length() < 1) {
             throw new ParseException("No response-line provided!", -1);
         }
 
-        String[] responseLineParts = responseLine.split(" ");
-        if (responseLineParts.length != RESPONSE_LINE_PART_COUNT) {
-            throw new ParseException("Incorrect response-line format!", -1);
-        }
-
-        MrcpResponse response = new MrcpResponse();
-
-        // mrcp-version
-        response.setVersion(responseLineParts[RESPONSE_LINE_MRCP_VERSION_PART]); //TODO: check if this matches request version, maybe at a higher level...
-
-        // message-length
-        try {
-            response.setMessageLength(
-                Integer.parseInt(responseLineParts[RESPONSE_LINE_MESSAGE_LENGTH_PART])
-            );
-        } catch (NumberFormatException e){
-            throw new ParseException("Incorrect message-length format!", -1);
-        }
-
-        // request-id
-        try {
-            response.setRequestID(
-                Long.parseLong(responseLineParts[RESPONSE_LINE_REQUEST_ID_PART])
-            );
-        } catch (NumberFormatException e){
-            throw new ParseException("Incorrect request-id format!", -1);
-        }
-
-        // status-code
-        try {
-            response.setStatusCode(
-                Short.parseShort(responseLineParts[RESPONSE_LINE_STATUS_CODE_PART])
-            );
-        } catch (NumberFormatException e){
-            throw new ParseException("Incorrect status-code format!", -1);
-        }
-
-        // request-state
-        try {
-            response.setRequestState(
-                MrcpRequestState.fromString(responseLineParts[RESPONSE_LINE_REQUEST_STATE_PART])
-            );
-        } catch (IllegalArgumentException e){
-            throw (ParseException) new ParseException("Incorrect request-state format!", -1).initCause(e);
-        }
-
-        return response;
+        byte[] bytes = responseLine.getBytes(StandardCharsets.US_ASCII);
+        return MrcpStartLineParser.parseResponseLine(bytes, 0, bytes.length);
     }
 
 }
\ No newline at end of file
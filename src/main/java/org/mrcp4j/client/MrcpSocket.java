@@ -24,19 +24,44 @@ package org.mrcp4j.client;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.mrcp4j.message.MrcpContent;
 import org.mrcp4j.message.MrcpMessage;
 import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.util.ByteBufferPool;
+import org.mrcp4j.util.HashedWheelTimer;
 
-import java.io.*;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetAddress;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.ParseException;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLException;
 
 /**
  * Provides an endpoint for communication between the MRCPv2 client and the MRCPv2 server (for internal library use only).
@@ -46,32 +71,215 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * for constructing an {@link org.mrcp4j.client.MrcpChannel} that can be used to send control messages to the media
  * resource on the MRCP server.</p>
  *
+ * <p>The underlying connection is a non-blocking {@link java.nio.channels.SocketChannel} serviced by one of the
+ * I/O threads of the owning provider's {@link org.mrcp4j.client.MrcpIoService}.</p>
+ *
+ * <p>Writes adapt to the load on the connection: a request sent on an idle connection is written immediately
+ * from the calling thread, while requests sent by other channels during a flush in progress are queued and
+ * written together by that flush in a single gathering write.  Once the socket buffer is full, the remaining
+ * requests are flushed by the I/O thread when the connection becomes writable again.</p>
+ *
+ * <p>Request bodies that are streamed from a file (see {@link org.mrcp4j.message.MrcpContent#isStreamed()})
+ * are not copied into the encoded request.  The file is opened by the thread sending the request, the start-line
+ * and headers are written first and the body is then transferred from the file to the connection in as many steps
+ * as the socket buffer requires, before any later request is written.  The file is closed once the body has been
+ * written or the connection has failed.  Bodies held in direct buffers, such as memory-mapped content, are not
+ * copied either, they are gathered into the same write as the headers, as are the bodies of requests too large
+ * for a pooled output buffer.</p>
+ *
+ * <p>If the connection fails, requests awaiting a response on any channel of the connection are failed at once
+ * and the connection is re-established in the background, with exponential backoff and random jitter between
+ * attempts.  Registered message handlers stay attached across reconnects.  Requests sent while the connection
+ * is down fail immediately with an {@link java.io.IOException}.</p>
+ *
+ * <p>For the TCP/TLS/MRCPv2 transport the connection is secured by an {@link org.mrcp4j.client.MrcpTlsSession}.
+ * The TLS handshake is driven by the I/O thread, both initially and after a reconnect, and resumes the previous
+ * session with the server whenever the server allows it.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpSocket {
 
     private static Log _log = LogFactory.getLog(MrcpSocket.class);
 
-    private MrcpRequestEncoder _requestEncoder = new MrcpRequestEncoder();
-    Map<ChannelIdentifier , MrcpMessageHandler> _handlers = Collections.synchronizedMap(new HashMap<ChannelIdentifier , MrcpMessageHandler>());
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_GATHERED_WRITES = 64;
+    private static final long INITIAL_RECONNECT_DELAY = 100;
+    private static final long MAX_RECONNECT_DELAY = 30000;
+    private static final long HANDSHAKE_TIMEOUT = 10000;
+
+    /**
+     * Direct buffers into which requests are encoded, shared by all connections.  Writing a heap buffer to a socket
+     * copies it into a temporary direct buffer first, which encoding into a direct buffer avoids.
+     */
+    private static final ByteBufferPool OUTPUT_BUFFERS = new ByteBufferPool(64 * 1024, 32, true);
+
+    private MrcpRequestEncoder _requestEncoder = new MrcpRequestEncoder(OUTPUT_BUFFERS);
+    private MrcpChannelRegistry _registry = new MrcpChannelRegistry();
+    private MrcpMessageDecoder _messageDecoder = new MrcpMessageDecoder(_registry);
 
-    private Socket _socket;
-    BufferedReader _in;
-    private PrintWriter _out;
+    private InetSocketAddress _remoteAddress;
+    private volatile SocketChannel _channel;
+    private MrcpIoService.IoThread _ioThread;
+    private HashedWheelTimer _timer;
+    private SelectionKey _key;
 
-    MrcpSocket(InetAddress host, int port) throws IOException {
-        _socket = new Socket(host, port);
-        _in = new BufferedReader(new InputStreamReader(_socket.getInputStream(), "UTF-8"));
-        _out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(_socket.getOutputStream())));
-//		_out = new PrintWriter(_socket.getOutputStream(), true);
-        new ReadThread().start();
+    private SSLContext _sslContext;
+    private SSLParameters _sslParameters;
+    private volatile MrcpTlsSession _tls;
+    private boolean _handshaking; // only accessed by the I/O thread
+    private CompletableFuture<Void> _initialHandshake;
+
+    private ByteBuffer _readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private Queue<OutboundMessage> _writeQueue = new ConcurrentLinkedQueue<OutboundMessage>();
+
+    // the following fields are guarded by _flushLock
+    private final ReentrantLock _flushLock = new ReentrantLock();
+    private ByteBuffer[] _gathered = new ByteBuffer[MAX_GATHERED_WRITES];
+    private boolean[] _messageEnds = new boolean[MAX_GATHERED_WRITES];
+    private boolean[] _pooled = new boolean[MAX_GATHERED_WRITES];
+    private int _gatheredStart;
+    private int _gatheredEnd;
+    private OutboundMessage _streaming;
+    private boolean _awaitingWritable;
+
+    private final AtomicBoolean _shouldRun = new AtomicBoolean(true);
+    private final AtomicBoolean _connected = new AtomicBoolean(true);
+    private int _reconnectAttempts; // only accessed by the I/O thread
+    private AtomicInteger _reconnectCount = new AtomicInteger();
+
+    private AtomicLong _messagesSent = new AtomicLong();
+    private AtomicLong _messagesReceived = new AtomicLong();
+    private AtomicLong _bytesSent = new AtomicLong();
+    private AtomicLong _bytesReceived = new AtomicLong();
+    private AtomicLong _flushCount = new AtomicLong();
+    private AtomicLong _messagesFlushed = new AtomicLong();
+
+    /**
+     * Opens a connection to an MRCP server.
+     * @param sslContext       the context used to secure the connection with TLS, or null for a plain TCP connection.
+     * @param sslParameters    the TLS parameters, or null for the defaults of the context with host name verification.
+     * @param maxMessageLength the maximum length in bytes of a message accepted from the server.
+     */
+    MrcpSocket(InetAddress host, int port, MrcpIoService ioService, HashedWheelTimer timer, SSLContext sslContext,
+            SSLParameters sslParameters, int maxMessageLength) throws IOException {
+        _remoteAddress = new InetSocketAddress(host, port);
+        _sslContext = sslContext;
+        _sslParameters = sslParameters;
+        _messageDecoder.setMaxMessageLength(maxMessageLength);
+        _channel = SocketChannel.open(_remoteAddress);
+        configure(_channel);
+        _timer = timer;
+        _ioThread = ioService.nextThread();
+        if (sslContext != null) {
+            _connected.set(false);
+            _initialHandshake = new CompletableFuture<Void>();
+        }
+        _ioThread.execute(new Runnable() {
+            public void run() {
+                register();
+            }
+        });
+        if (sslContext != null) {
+            awaitInitialHandshake();
+        }
+    }
+
+    private void awaitInitialHandshake() throws IOException {
+        try {
+            _initialHandshake.get(HANDSHAKE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } catch (TimeoutException e) {
+            close();
+            throw new SSLException("TLS handshake with MRCP server " + _remoteAddress + " timed out");
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during TLS handshake with MRCP server " + _remoteAddress);
+        }
     }
 
     public void sendRequest(MrcpRequest request) throws IOException {
+        OutboundMessage message = encodeRequest(request);
         try {
-            _requestEncoder.encode(request, _out);
-            _out.flush();
-        } catch (IOException e){
+            enqueue(message);
+        } catch (IOException e) {
+            discard(message);
+            throw e;
+        }
+        flush();
+    }
+
+    /**
+     * Encodes a request for writing with {@link #enqueue(OutboundMessage)}, which may be done concurrently by
+     * several threads.
+     * @throws IOException if the streamed body of the request cannot be opened.
+     */
+    OutboundMessage encodeRequest(MrcpRequest request) throws IOException {
+        MrcpContent body = request.getMessageBody();
+        if (body == null) {
+            return new OutboundMessage(_requestEncoder.encode(request), null, null, null);
+        }
+        if (body.isStreamed()) {
+            // opened here, so that a missing file fails the request rather than the connection
+            ByteBuffer headers = _requestEncoder.encodeHeaders(request);
+            try {
+                return new OutboundMessage(headers, null, body, body.openChannel());
+            } catch (IOException e) {
+                OUTPUT_BUFFERS.release(headers);
+                _log.debug(e, e);
+                throw e;
+            }
+        }
+        // heap bodies are copied along with the headers into a pooled direct buffer, unless the request is
+        // too large to be pooled, in which case the socket copies the body into its own temporary direct
+        // buffer rather than a new one being allocated for each request
+        ByteBuffer bytes = body.getBytes();
+        if (bytes.isDirect() || request.updateMessageLength() > OUTPUT_BUFFERS.getMaxBufferSize()) {
+            return new OutboundMessage(_requestEncoder.encodeHeaders(request), bytes, null, null);
+        }
+        return new OutboundMessage(_requestEncoder.encode(request), null, null, null);
+    }
+
+    /**
+     * Queues an encoded message for writing by the next {@link #flush()}.  Messages are written to the connection
+     * in the order they are queued.
+     * @throws IOException if the connection is closed or being re-established, the message is not queued.
+     */
+    void enqueue(OutboundMessage message) throws IOException {
+        if (!_shouldRun.get()) {
+            throw new ClosedChannelException();
+        }
+        if (!_connected.get()) {
+            throw new IOException("Connection to MRCP server " + _remoteAddress + " is being re-established");
+        }
+        _writeQueue.add(message);
+        _messagesSent.incrementAndGet();
+    }
+
+    /**
+     * Releases the resources of an encoded message that is not going to be queued.
+     */
+    void discard(OutboundMessage message) {
+        OUTPUT_BUFFERS.release(message._headers);
+        message.closeSource();
+    }
+
+    /**
+     * Writes the queued messages from the calling thread, unless another thread is currently flushing or the
+     * connection is waiting to become writable, in which case that thread writes them.
+     * @throws IOException if the connection failed while writing.
+     */
+    void flush() throws IOException {
+        try {
+            flush(false);
+        } catch (IOException e) {
             // TODO: may need to reset socket here...
             _log.debug(e, e);
             throw e;
@@ -79,64 +287,653 @@ public class MrcpSocket {
     }
 
     public void addMessageHandler(ChannelIdentifier channelID, MrcpMessageHandler handler) {
-        _handlers.put(channelID, handler);
+        _registry.register(channelID, handler);
     }
 
     public void removeMessageHandler(ChannelIdentifier channelID) {
-        _handlers.remove(channelID);
+        _registry.unregister(channelID);
     }
 
-    private final AtomicBoolean _shouldRun = new AtomicBoolean(true);
+    /**
+     * @return the number of channels currently placed on this connection.
+     */
+    int getChannelCount() {
+        return _registry.size();
+    }
+
+    boolean isClosed() {
+        return !_shouldRun.get();
+    }
+
+    /**
+     * @return true if the connection is currently established, false while it is being re-established.
+     */
+    boolean isConnected() {
+        return _connected.get() && !isClosed();
+    }
+
+    /**
+     * @return a snapshot of the load carried by this connection.
+     */
+    MrcpConnectionStatistics getStatistics() {
+        return new MrcpConnectionStatistics(_remoteAddress, isConnected(), getChannelCount(),
+                _messagesSent.get(), _messagesReceived.get(), _bytesSent.get(), _bytesReceived.get(),
+                _flushCount.get(), _messagesFlushed.get(), _reconnectCount.get());
+    }
 
     public void close() {
+        if (_shouldRun.compareAndSet(true, false)) {
+            MrcpTlsSession tls = _tls;
+            if (tls != null) {
+                tls.close(_channel);
+            }
+            try {
+                _channel.close();
+            } catch (IOException e) {
+                _log.warn(e, e);
+            }
+            _flushLock.lock();
+            try {
+                discardQueuedWrites();
+            } finally {
+                _flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes queued messages until the queue is empty or the socket buffer is full.
+     * @param writable true if called by the I/O thread because the connection has become writable.
+     */
+    private void flush(boolean writable) throws IOException {
+        do {
+            if (writable) {
+                _flushLock.lock();
+            } else if (!_flushLock.tryLock()) {
+                // the thread holding the lock checks the queue again after releasing it
+                return;
+            }
+            try {
+                if (_awaitingWritable && !writable) {
+                    // socket buffer is full, the I/O thread will flush the queue
+                    return;
+                }
+                _awaitingWritable = false;
+                if (!writeGathered()) {
+                    _awaitingWritable = true;
+                    setWriteInterest(true);
+                    return;
+                }
+                if (writable) {
+                    updateInterestOps(false);
+                }
+            } catch (IOException e) {
+                connectionFailed(e);
+                throw e;
+            } finally {
+                _flushLock.unlock();
+            }
+            writable = false;
+        } while (!_writeQueue.isEmpty());
+    }
+
+    /**
+     * Moves queued messages into the gathering array and writes them to the connection in as few system calls
+     * as possible (called while holding the flush lock).  Gathering stops at a message with a streamed body,
+     * which is written once the messages before it and its headers have been written.
+     * @return true if all queued messages have been written, false if the socket buffer is full.
+     */
+    private boolean writeGathered() throws IOException {
+        MrcpTlsSession tls = _tls;
+        if (tls != null && !tls.flush(_channel)) {
+            return false;
+        }
+        while (true) {
+            if (_gatheredStart > 0) {
+                int count = _gatheredEnd - _gatheredStart;
+                System.arraycopy(_gathered, _gatheredStart, _gathered, 0, count);
+                System.arraycopy(_messageEnds, _gatheredStart, _messageEnds, 0, count);
+                System.arraycopy(_pooled, _gatheredStart, _pooled, 0, count);
+                Arrays.fill(_gathered, count, _gatheredEnd, null);
+                _gatheredStart = 0;
+                _gatheredEnd = count;
+            }
+            OutboundMessage message;
+            // leave room for both buffers of a message with a gathered body
+            while (_streaming == null && _gatheredEnd < _gathered.length - 1 && (message = _writeQueue.poll()) != null) {
+                _gathered[_gatheredEnd] = message._headers;
+                _pooled[_gatheredEnd] = true;
+                _messageEnds[_gatheredEnd++] = (message._gatheredBody == null && message._body == null);
+                if (message._gatheredBody != null) {
+                    // the body belongs to the content of the request and is not returned to the pool
+                    _gathered[_gatheredEnd] = message._gatheredBody;
+                    _pooled[_gatheredEnd] = false;
+                    _messageEnds[_gatheredEnd++] = true;
+                }
+                if (message._body != null) {
+                    _streaming = message;
+                }
+            }
+            if (_gatheredEnd == 0 && _streaming == null) {
+                return true;
+            }
+
+            if (_gatheredEnd > 0) {
+                long count = (tls == null) ? _channel.write(_gathered, 0, _gatheredEnd)
+                        : tls.write(_channel, _gathered, 0, _gatheredEnd);
+                if (count > 0) {
+                    _bytesSent.addAndGet(count);
+                    _flushCount.incrementAndGet();
+                }
+                int completed = 0;
+                while (_gatheredStart < _gatheredEnd && !_gathered[_gatheredStart].hasRemaining()) {
+                    if (_messageEnds[_gatheredStart]) {
+                        // the headers of a streamed message do not end it, the message is complete after its body
+                        completed++;
+                    }
+                    if (_pooled[_gatheredStart]) {
+                        OUTPUT_BUFFERS.release(_gathered[_gatheredStart]);
+                    }
+                    _gathered[_gatheredStart++] = null;
+                }
+                _messagesFlushed.addAndGet(completed);
+                boolean drained = (_gatheredStart == _gatheredEnd);
+                if (!drained || (tls != null && tls.hasPendingOutput())) {
+                    return false;
+                }
+                _gatheredStart = 0;
+                _gatheredEnd = 0;
+            }
+
+            if (_streaming != null) {
+                if (!writeBody(_streaming, tls)) {
+                    return false;
+                }
+                _streaming = null;
+                _messagesFlushed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Transfers a streamed message body from its file to the connection (called while holding the flush lock).
+     * The file is closed once the whole body has been written.
+     * @return true if the whole body has been written, false if the socket buffer is full.
+     */
+    private boolean writeBody(OutboundMessage message, MrcpTlsSession tls) throws IOException {
+        WritableByteChannel target = (tls == null) ? _channel : new TlsWritableChannel(tls);
+        long length = message._body.getLength();
+        while (message._bodyWritten < length) {
+            long count = message._source.transferTo(message._bodyWritten, length - message._bodyWritten, target);
+            if (count <= 0) {
+                if (message._source.size() < length) {
+                    // nothing is transferred past the end of the file, the body would never be completed
+                    throw new EOFException("Content file was truncated to " + message._source.size() + " of " +
+                            length + " bytes");
+                }
+                return false;
+            }
+            message._bodyWritten += count;
+            _bytesSent.addAndGet(count);
+            _flushCount.incrementAndGet();
+            if (tls != null && tls.hasPendingOutput()) {
+                return false;
+            }
+        }
+        message.closeSource();
+        return true;
+    }
+
+    private void setWriteInterest(final boolean on) {
+        if (_ioThread.isIoThread()) {
+            updateInterestOps(on);
+        } else {
+            _ioThread.execute(new Runnable() {
+                public void run() {
+                    updateInterestOps(on);
+                }
+            });
+        }
+    }
+
+    private void updateInterestOps(boolean writeInterest) {
+        if (_key != null && _key.isValid()) {
+            int ops = writeInterest ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            _key.interestOps(ops);
+        }
+    }
+
+    private static void configure(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        // small requests are coalesced by this class, waiting for the delayed ACK would only add latency
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Registers the connection with the selector of its I/O thread (called on the I/O thread).
+     */
+    private void register() {
+        try {
+            // write interest of a connection that filled its socket buffer before registration is
+            // set by a task queued behind this one
+            _key = _channel.register(_ioThread.getSelector(), SelectionKey.OP_READ, this);
+        } catch (ClosedChannelException e) {
+            _log.debug(e, e);
+            return;
+        }
+        if (_sslContext != null) {
+            startHandshake();
+        }
+    }
+
+    /**
+     * Starts the TLS handshake on a newly established connection (called on the I/O thread).
+     */
+    private void startHandshake() {
+        final MrcpTlsSession tls;
+        try {
+            tls = new MrcpTlsSession(_sslContext, _sslParameters, _remoteAddress);
+        } catch (IOException e) {
+            handshakeFailed(e);
+            return;
+        }
+        _tls = tls;
+        _handshaking = true;
+        _timer.newTimeout(new Runnable() {
+            public void run() {
+                _ioThread.execute(new Runnable() {
+                    public void run() {
+                        if (_handshaking && _tls == tls) {
+                            handshakeFailed(new SSLException("TLS handshake with MRCP server " + _remoteAddress +
+                                    " timed out"));
+                        }
+                    }
+                });
+            }
+        }, HANDSHAKE_TIMEOUT, TimeUnit.MILLISECONDS);
+        continueHandshake();
+    }
+
+    /**
+     * Advances the TLS handshake as far as possible without blocking (called on the I/O thread).
+     */
+    private void continueHandshake() {
+        MrcpTlsSession tls = _tls;
+        try {
+            if (!tls.handshake(_channel)) {
+                updateInterestOps(tls.hasPendingOutput());
+                return;
+            }
+        } catch (IOException e) {
+            handshakeFailed(e);
+            return;
+        }
+        _handshaking = false;
+        updateInterestOps(false);
+        if (_log.isDebugEnabled()) {
+            _log.debug("TLS handshake with MRCP server " + _remoteAddress + " completed, session " +
+                    (tls.isSessionResumed() ? "resumed" : "created"));
+        }
+        if (!_initialHandshake.isDone()) {
+            _connected.set(true);
+            _initialHandshake.complete(null);
+        } else {
+            connectionRestored();
+        }
+    }
+
+    private void handshakeFailed(IOException e) {
+        _handshaking = false;
+        if (!_initialHandshake.isDone()) {
+            // reported to the constructor, which closes this socket
+            _initialHandshake.completeExceptionally(e);
+        } else {
+            reconnectFailed(_channel, e);
+        }
+    }
+
+    /**
+     * Starts a non-blocking connect for a replacement of the failed connection (called on the I/O thread).
+     */
+    private void reconnect() {
+        if (!_shouldRun.get()) {
+            return;
+        }
+        _readBuffer.clear();
+        _tls = null;
+        SocketChannel channel = null;
         try {
-            _shouldRun.set(false);
-            _socket.close();
+            channel = SocketChannel.open();
+            configure(channel);
+            _channel = channel;
+            if (channel.connect(_remoteAddress)) {
+                reconnected();
+            } else {
+                _key = channel.register(_ioThread.getSelector(), SelectionKey.OP_CONNECT, this);
+            }
         } catch (IOException e) {
-            _log.warn(e, e);
-            e.printStackTrace();
+            reconnectFailed(channel, e);
         }
     }
 
-    private class ReadThread extends Thread {
+    /**
+     * Completes a pending reconnect (called on the I/O thread).
+     */
+    void handleConnectable() {
+        SocketChannel channel = _channel;
+        try {
+            if (channel.finishConnect()) {
+                reconnected();
+            }
+        } catch (IOException e) {
+            reconnectFailed(channel, e);
+        }
+    }
 
-		public ReadThread() {
-			setName("MRCP socket reader");
-		}
+    private void reconnected() throws ClosedChannelException {
+        _key = _channel.register(_ioThread.getSelector(), SelectionKey.OP_READ, this);
+        if (_sslContext != null) {
+            startHandshake();
+        } else {
+            connectionRestored();
+        }
+    }
 
-        private MrcpMessageDecoder _messageDecoder = new MrcpMessageDecoder();
+    private void connectionRestored() {
+        _reconnectAttempts = 0;
+        _reconnectCount.incrementAndGet();
+        _connected.set(true);
+        if (!_shouldRun.get()) {
+            // closed while reconnecting
+            close(_channel);
+            return;
+        }
+        if (_log.isInfoEnabled()) {
+            _log.info("Reconnected to MRCP server " + _remoteAddress);
+        }
+    }
 
-        /* (non-Javadoc)
-         * @see java.lang.Runnable#run()
-         */
-        @Override
-        public void run() {
-            while (_shouldRun.get()) {
-                // TODO: switch to nio so that the following statement doesn't block forever when the socket is closed
+    private void reconnectFailed(SocketChannel channel, IOException e) {
+        if (_log.isDebugEnabled()) {
+            _log.debug("Reconnect to MRCP server " + _remoteAddress + " failed: " + e);
+        }
+        if (channel != null) {
+            close(channel);
+        }
+        scheduleReconnect();
+    }
+
+    /**
+     * Schedules the next reconnect attempt after a randomized, exponentially growing delay, so that many clients
+     * losing their connection to the same server at once do not reconnect in lockstep.
+     */
+    private void scheduleReconnect() {
+        if (!_shouldRun.get()) {
+            return;
+        }
+        long ceiling = INITIAL_RECONNECT_DELAY << Math.min(_reconnectAttempts, 16);
+        ceiling = Math.min(ceiling, MAX_RECONNECT_DELAY);
+        _reconnectAttempts++;
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        try {
+            _timer.newTimeout(new Runnable() {
+                public void run() {
+                    _ioThread.execute(new Runnable() {
+                        public void run() {
+                            reconnect();
+                        }
+                    });
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // provider has been closed
+            _log.debug(e, e);
+        }
+    }
+
+    private static void close(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            _log.debug(e, e);
+        }
+    }
+
+    /**
+     * Flushes queued bytes (called on the I/O thread).
+     */
+    void handleWritable() {
+        if (_handshaking) {
+            continueHandshake();
+            return;
+        }
+        try {
+            flush(true);
+        } catch (IOException e) {
+            // already handled by flush()
+        }
+    }
+
+    /**
+     * Reads available bytes and dispatches all complete messages (called on the I/O thread).
+     */
+    void handleReadable() {
+        if (_handshaking) {
+            continueHandshake();
+            if (_handshaking) {
+                return;
+            }
+        }
+        MrcpTlsSession tls = _tls;
+        try {
+            do {
+                int count = (tls == null) ? _channel.read(_readBuffer) : tls.read(_channel, _readBuffer);
+                if (count < 0) {
+                    throw new IOException("Connection closed by MRCP server");
+                }
+                _bytesReceived.addAndGet(count);
+                _readBuffer.flip();
                 try {
-                    MrcpMessage message = _messageDecoder.decode(_in);
-                    ChannelIdentifier channelID = message.getChannelIdentifier();
-                    MrcpMessageHandler handler = _handlers.get(channelID);
-                    if (handler != null) {
-                        handler.handleMessage(message);
-                    } else if (_log.isDebugEnabled()) {
-                        _log.debug("No handler found for channel: " + channelID);
-                    }
-                } catch (IOException e) {
-                    if (_shouldRun.compareAndSet(true, false)) {
-                        // this is an unexpected one
-                        _log.warn(e, e);
-                    }
-                } catch (ParseException e) {
-                    // TODO Auto-generated catch block
-                    _log.warn(e, e);
+                    decodeMessages();
+                } finally {
+                    compactReadBuffer();
+                }
+                // decrypted bytes that did not fit into the read buffer do not make the connection readable again
+            } while (tls != null && tls.hasBufferedInput());
+
+            if (tls != null && tls.hasPendingOutput()) {
+                // the server requested a handshake message, e.g. a key update
+                flush(true);
+            }
+        } catch (IOException e) {
+            connectionFailed(e);
+        }
+    }
+
+    private void decodeMessages() throws IOException {
+        while (_readBuffer.hasRemaining()) {
+            MrcpMessage message = null;
+            try {
+                message = _messageDecoder.decode(_readBuffer);
+            } catch (ParseException e) {
+                // the malformed message has been skipped, continue with the next one
+                _log.warn(e, e);
+                continue;
+            }
+            if (message == null) {
+                break;
+            }
+            _messagesReceived.incrementAndGet();
+            dispatch(message);
+        }
+    }
+
+    /**
+     * Tears down the failed connection, fails all requests awaiting a response on it and starts reconnecting.
+     */
+    private void connectionFailed(IOException e) {
+        if (!_shouldRun.get() || !_connected.compareAndSet(true, false)) {
+            // closed on purpose, or failure already being handled
+            return;
+        }
+        _log.warn("Connection to MRCP server " + _remoteAddress + " lost, reconnecting: " + e, e);
+
+        close(_channel);
+        _flushLock.lock();
+        try {
+            discardQueuedWrites();
+            _awaitingWritable = false;
+        } finally {
+            _flushLock.unlock();
+        }
+
+        for (MrcpMessageHandler handler : _registry.getHandlers()) {
+            handler.connectionLost(e);
+        }
+
+        _ioThread.execute(new Runnable() {
+            public void run() {
+                // the first bytes on the new connection must not be taken as the rest of a message
+                // that was partially received on the failed one
+                _messageDecoder.reset();
+                _readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+                scheduleReconnect();
+            }
+        });
+    }
+
+    /**
+     * Drops all messages that have not been written yet, returns their buffers to the pool and closes the files
+     * of their streamed bodies (called while holding the flush lock).
+     */
+    private void discardQueuedWrites() {
+        OutboundMessage message;
+        while ((message = _writeQueue.poll()) != null) {
+            OUTPUT_BUFFERS.release(message._headers);
+            message.closeSource();
+        }
+        for (int i = _gatheredStart; i < _gatheredEnd; i++) {
+            if (_pooled[i]) {
+                OUTPUT_BUFFERS.release(_gathered[i]);
+            }
+        }
+        Arrays.fill(_gathered, null);
+        _gatheredStart = 0;
+        _gatheredEnd = 0;
+        if (_streaming != null) {
+            _streaming.closeSource();
+            _streaming = null;
+        }
+    }
+
+    private void dispatch(MrcpMessage message) {
+        // the channel is usually resolved from the received bytes by the decoder
+        MrcpChannelRegistry.Entry channel = _messageDecoder.getChannel();
+        if (channel == null) {
+            // the Channel-Identifier was not received exactly as registered, e.g. with a different case or
+            // whitespace, resolve it from the parsed header
+            MrcpHeader header = message.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER);
+            if (header != null) {
+                try {
+                    channel = _registry.lookup((ChannelIdentifier) header.getValueObject());
                 } catch (IllegalValueException e) {
-                    // TODO Auto-generated catch block
-                    _log.warn(e, e);
+                    _log.debug(e, e);
+                }
+            }
+            if (channel == null) {
+                _log.warn("No handler found for channel: " + ((header == null) ? null : header.getValueString()) +
+                        ", message dropped:\n" + message);
+                return;
+            }
+        }
+        channel.getHandler().handleMessage(message);
+    }
+
+    /**
+     * Prepares the read buffer for the next read, growing it if it cannot hold the pending message, and shrinking
+     * it back to its initial size once a message that required it to grow has been consumed.
+     */
+    private void compactReadBuffer() {
+        int required = Math.max(_messageDecoder.getPendingMessageLength(), _readBuffer.remaining() + 1);
+        if (required > _readBuffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(required, _readBuffer.capacity() * 2));
+            larger.put(_readBuffer);
+            _readBuffer = larger;
+        } else if (_readBuffer.capacity() > READ_BUFFER_SIZE && required <= READ_BUFFER_SIZE) {
+            ByteBuffer smaller = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            smaller.put(_readBuffer);
+            _readBuffer = smaller;
+        } else {
+            _readBuffer.compact();
+        }
+    }
+
+    /**
+     * A request queued for writing: its encoded start-line and headers, and unless the body has been encoded
+     * along with them, either the body to be gathered into the same write or the body to be streamed after them
+     * together with the file it is streamed from.
+     */
+    static class OutboundMessage {
+
+        private ByteBuffer _headers;
+        private ByteBuffer _gatheredBody;
+        private MrcpContent _body;
+        private FileChannel _source;
+        private long _bodyWritten;
+
+        OutboundMessage(ByteBuffer headers, ByteBuffer gatheredBody, MrcpContent body, FileChannel source) {
+            _headers = headers;
+            _gatheredBody = gatheredBody;
+            _body = body;
+            _source = source;
+        }
+
+        void closeSource() {
+            if (_source != null) {
+                try {
+                    _source.close();
+                } catch (IOException e) {
+                    _log.debug(e, e);
                 }
             }
         }
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Presents the TLS session of the connection as a channel that streamed message bodies can be transferred to.
+     */
+    private class TlsWritableChannel implements WritableByteChannel {
+
+        private MrcpTlsSession _session;
+        private ByteBuffer[] _srcs = new ByteBuffer[1];
+
+        TlsWritableChannel(MrcpTlsSession session) {
+            _session = session;
+        }
+
+        /* (non-Javadoc)
+         * @see java.nio.channels.WritableByteChannel#write(java.nio.ByteBuffer)
+         */
+        public int write(ByteBuffer src) throws IOException {
+            _srcs[0] = src;
+            return (int) _session.write(_channel, _srcs, 0, 1);
+        }
+
+        /* (non-Javadoc)
+         * @see java.nio.channels.Channel#isOpen()
+         */
+        public boolean isOpen() {
+            return _channel.isOpen();
+        }
+
+        /* (non-Javadoc)
+         * @see java.nio.channels.Channel#close()
+         */
+        public void close() {
+            // the connection is closed by the socket
+        }
+
+    }
+
+}
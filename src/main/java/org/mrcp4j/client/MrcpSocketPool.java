@@ -0,0 +1,235 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import org.mrcp4j.message.header.ChannelIdentifier;
+import org.mrcp4j.util.HashedWheelTimer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * Maintains a fixed number of connections to a single MRCP server endpoint and places channels on them
+ * (for internal library use only).
+ *
+ * <p>Connections are opened on demand, or all at once by {@link #connectAll()}.  A connection found closed
+ * when a channel is placed on its slot is replaced by a new one, failed connections re-establish themselves.</p>
+ *
+ * <p>Connections are opened outside of the lock of the pool, so that a slow connect or TLS handshake does not
+ * hold up placements on other connections.  Concurrent placements on a connection being opened wait for that
+ * connect instead of opening another one.</p>
+ *
+ * <p>The load of a connection is the number of channels registered with it plus the number of channels reserved
+ * on it by {@link #reserve(org.mrcp4j.message.header.ChannelIdentifier)} and not yet released, so that
+ * concurrent placements do not all select the same least loaded connection.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+class MrcpSocketPool {
+
+    private InetAddress _host;
+    private int _port;
+    private MrcpChannelPlacement _placement;
+    private MrcpIoService _ioService;
+    private HashedWheelTimer _timer;
+    private SSLContext _sslContext;
+    private SSLParameters _sslParameters;
+    private int _maxMessageLength;
+
+    // the following fields are guarded by the lock of the pool
+    private MrcpSocket[] _sockets;
+    private CompletableFuture<MrcpSocket>[] _connections;
+    private int[] _reserved;
+    private boolean _closed;
+
+    /**
+     * @param sslContext       the context used to secure the connections with TLS, or null for plain TCP connections.
+     * @param sslParameters    the TLS parameters, or null for the defaults of the context with host name verification.
+     * @param maxMessageLength the maximum length in bytes of a message accepted on the connections.
+     */
+    @SuppressWarnings("unchecked")
+    MrcpSocketPool(InetAddress host, int port, int size, MrcpChannelPlacement placement, MrcpIoService ioService,
+            HashedWheelTimer timer, SSLContext sslContext, SSLParameters sslParameters, int maxMessageLength) {
+        _host = host;
+        _port = port;
+        _placement = placement;
+        _ioService = ioService;
+        _timer = timer;
+        _sslContext = sslContext;
+        _sslParameters = sslParameters;
+        _maxMessageLength = maxMessageLength;
+        _sockets = new MrcpSocket[size];
+        _connections = new CompletableFuture[size];
+        _reserved = new int[size];
+    }
+
+    /**
+     * Opens every connection of the pool that is not already open.
+     * @throws IOException if a connection cannot be opened.
+     */
+    void connectAll() throws IOException {
+        for (int i = 0; i < _sockets.length; i++) {
+            connect(i);
+        }
+    }
+
+    /**
+     * Selects the connection the specified channel should be placed on and counts the channel towards its load
+     * until {@link #release(int)} is called.
+     * @param channelID the identifier of the channel being placed.
+     * @return the index of the selected connection, to be passed to {@link #connect(int)} and {@link #release(int)}.
+     */
+    synchronized int reserve(ChannelIdentifier channelID) {
+        int index;
+        switch (_placement) {
+        case HASHED:
+            index = (channelID.hashCode() & Integer.MAX_VALUE) % _sockets.length;
+            break;
+
+        case LEAST_LOADED:
+            index = 0;
+            int minLoad = Integer.MAX_VALUE;
+            for (int i = 0; i < _sockets.length; i++) {
+                MrcpSocket socket = _sockets[i];
+                int load = _reserved[i] + ((socket == null || socket.isClosed()) ? 0 : socket.getChannelCount());
+                if (load < minLoad) {
+                    minLoad = load;
+                    index = i;
+                }
+            }
+            break;
+
+        default:
+            throw new AssertionError(_placement);
+        }
+        _reserved[index]++;
+        return index;
+    }
+
+    /**
+     * Ends a reservation made by {@link #reserve(org.mrcp4j.message.header.ChannelIdentifier)}, once the channel
+     * has been registered with its connection or its placement has failed.
+     * @param index the index of the reserved connection.
+     */
+    synchronized void release(int index) {
+        _reserved[index]--;
+    }
+
+    /**
+     * Returns the connection at the specified index, opening it if it is not open.  Only one thread opens a
+     * connection, concurrent callers wait for it.
+     * @param index the index of the connection.
+     * @return an open connection to the endpoint of this pool.
+     * @throws IOException if the connection needs to be opened and cannot be.
+     */
+    MrcpSocket connect(int index) throws IOException {
+        CompletableFuture<MrcpSocket> connection;
+        boolean opening = false;
+        synchronized (this) {
+            if (_closed) {
+                throw new IOException("Connections to MRCP server " + _host + ':' + _port + " are closed");
+            }
+            MrcpSocket socket = _sockets[index];
+            if (socket != null && !socket.isClosed()) {
+                return socket;
+            }
+            connection = _connections[index];
+            if (connection == null) {
+                connection = new CompletableFuture<MrcpSocket>();
+                _connections[index] = connection;
+                opening = true;
+            }
+        }
+        if (opening) {
+            return open(index, connection);
+        }
+        try {
+            return connection.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while connecting to MRCP server " + _host + ':' + _port);
+        }
+    }
+
+    private MrcpSocket open(int index, CompletableFuture<MrcpSocket> connection) throws IOException {
+        MrcpSocket socket;
+        try {
+            socket = new MrcpSocket(_host, _port, _ioService, _timer, _sslContext, _sslParameters,
+                    _maxMessageLength);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                _connections[index] = null;
+            }
+            connection.completeExceptionally(e);
+            throw e;
+        }
+        boolean closed;
+        synchronized (this) {
+            _connections[index] = null;
+            closed = _closed;
+            if (!closed) {
+                _sockets[index] = socket;
+            }
+        }
+        if (closed) {
+            socket.close();
+            IOException e = new IOException("Connections to MRCP server " + _host + ':' + _port + " are closed");
+            connection.completeExceptionally(e);
+            throw e;
+        }
+        connection.complete(socket);
+        return socket;
+    }
+
+    synchronized void addStatistics(List<MrcpConnectionStatistics> statistics) {
+        for (MrcpSocket socket : _sockets) {
+            if (socket != null) {
+                statistics.add(socket.getStatistics());
+            }
+        }
+    }
+
+    synchronized void close() {
+        _closed = true;
+        for (int i = 0; i < _sockets.length; i++) {
+            if (_sockets[i] != null) {
+                _sockets[i].close();
+                _sockets[i] = null;
+            }
+        }
+    }
+
+}
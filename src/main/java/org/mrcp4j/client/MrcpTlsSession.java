@@ -0,0 +1,342 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Runs TLS over a non-blocking {@link java.nio.channels.SocketChannel} on behalf of an
+ * {@link org.mrcp4j.client.MrcpSocket} (for internal library use only).
+ *
+ * <p>The {@link javax.net.ssl.SSLEngine} is created for the host and port of the MRCP server, so that the client
+ * session cache of the {@link javax.net.ssl.SSLContext} can resume a previous session (or present a session
+ * ticket) to the same server instead of performing a full handshake.  Unless other parameters are supplied, the
+ * server certificate is verified against the host name of the server.  Delegated handshake tasks are run inline.</p>
+ *
+ * <p>Reading and writing may happen on different threads.  All methods producing network output are synchronized
+ * on this instance, since handshake messages may also have to be sent from the reading thread.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+class MrcpTlsSession {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private SSLEngine _engine;
+    private long _handshakeStartTime;
+
+    private ByteBuffer _netIn;   // encrypted bytes received, in write mode
+    private ByteBuffer _appIn;   // decrypted bytes not yet delivered, in write mode
+    private ByteBuffer _netOut;  // encrypted bytes not yet sent, in read mode
+    private boolean _netInPending; // _netIn may hold complete records that did not fit into _appIn
+
+    /**
+     * @param parameters the TLS parameters applied to the engine, or null for the defaults of the context with
+     *                   the "HTTPS" endpoint identification algorithm.
+     */
+    MrcpTlsSession(SSLContext context, SSLParameters parameters, InetSocketAddress remoteAddress) throws SSLException {
+        _engine = context.createSSLEngine(remoteAddress.getHostString(), remoteAddress.getPort());
+        _engine.setUseClientMode(true);
+        if (parameters == null) {
+            parameters = _engine.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        }
+        _engine.setSSLParameters(parameters);
+
+        SSLSession session = _engine.getSession();
+        _netIn = ByteBuffer.allocate(session.getPacketBufferSize());
+        _appIn = ByteBuffer.allocate(session.getApplicationBufferSize());
+        _netOut = ByteBuffer.allocate(session.getPacketBufferSize());
+        _netOut.flip();
+
+        _handshakeStartTime = System.currentTimeMillis();
+        _engine.beginHandshake();
+    }
+
+    /**
+     * Advances the initial handshake as far as possible without blocking.
+     * @param channel the connection to the MRCP server.
+     * @return true once the handshake has completed, false if it is waiting for the connection to become
+     *         readable, or writable if {@link #hasPendingOutput()}.
+     * @throws IOException if the handshake fails.
+     */
+    boolean handshake(SocketChannel channel) throws IOException {
+        while (true) {
+            if (!flush(channel)) {
+                return false;
+            }
+            switch (_engine.getHandshakeStatus()) {
+            case NOT_HANDSHAKING:
+            case FINISHED:
+                return true;
+            case NEED_TASK:
+                runDelegatedTasks();
+                break;
+            case NEED_WRAP:
+                wrap(EMPTY);
+                break;
+            default:
+                // NEED_UNWRAP, or NEED_UNWRAP_AGAIN on newer runtimes
+                if (!unwrap(channel)) {
+                    return false;
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return true if the handshake resumed a previously established session instead of creating a new one.
+     */
+    boolean isSessionResumed() {
+        return _engine.getSession().getCreationTime() < _handshakeStartTime;
+    }
+
+    /**
+     * Reads and decrypts application data.
+     * @param channel the connection to the MRCP server.
+     * @param dst     the buffer receiving the decrypted bytes.
+     * @return the number of bytes delivered, or -1 if the server closed the connection.
+     * @throws IOException if an I/O error occurs.
+     */
+    int read(SocketChannel channel, ByteBuffer dst) throws IOException {
+        int count = channel.read(_netIn);
+        _netInPending = false;
+        while (_netIn.position() > 0) {
+            if (!_appIn.hasRemaining()) {
+                _netInPending = true;
+                break;
+            }
+            _netIn.flip();
+            SSLEngineResult result;
+            try {
+                result = _engine.unwrap(_netIn, _appIn);
+            } finally {
+                _netIn.compact();
+            }
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                count = -1;
+                break;
+            }
+            if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                runDelegatedTasks();
+            }
+            if (_engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                // post-handshake messages, e.g. a key update
+                wrap(EMPTY);
+            }
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                if (_appIn.position() > 0) {
+                    // deliver the bytes already decrypted first
+                    _netInPending = true;
+                    break;
+                }
+                // the record does not fit into the empty buffer, the session allows larger records
+                _appIn = enlarge(_appIn, _engine.getSession().getApplicationBufferSize());
+                continue;
+            }
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                if (!_netIn.hasRemaining()) {
+                    // the record does not fit into the full buffer, the rest is read when the connection is
+                    // readable again
+                    _netIn = enlarge(_netIn, _engine.getSession().getPacketBufferSize());
+                }
+                break;
+            }
+            if (result.getStatus() != SSLEngineResult.Status.OK || result.bytesConsumed() == 0) {
+                break;
+            }
+        }
+        int delivered = transfer(dst);
+        if (delivered == 0 && count < 0) {
+            return -1;
+        }
+        return delivered;
+    }
+
+    /**
+     * @return true if received bytes are still waiting to be delivered by {@link #read(SocketChannel, ByteBuffer)}.
+     */
+    boolean hasBufferedInput() {
+        return _appIn.position() > 0 || _netInPending;
+    }
+
+    /**
+     * Encrypts application data from several buffers into as few TLS records as possible and sends them.
+     * @return the number of application bytes consumed from the buffers, all of which have been handed to
+     *         the connection unless {@link #hasPendingOutput()}.
+     * @throws IOException if an I/O error occurs.
+     */
+    synchronized long write(SocketChannel channel, ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long consumed = 0;
+        while (flush(channel)) {
+            _netOut.compact();
+            SSLEngineResult result;
+            try {
+                result = _engine.wrap(srcs, offset, length, _netOut);
+            } finally {
+                _netOut.flip();
+            }
+            checkWrapResult(result);
+            consumed += result.bytesConsumed();
+            if (result.bytesConsumed() == 0) {
+                break;
+            }
+        }
+        return consumed;
+    }
+
+    /**
+     * @return true if encrypted bytes are waiting for the connection to become writable.
+     */
+    synchronized boolean hasPendingOutput() {
+        return _netOut.hasRemaining();
+    }
+
+    /**
+     * Sends pending encrypted bytes.
+     * @return true if all pending bytes have been handed to the connection.
+     * @throws IOException if an I/O error occurs.
+     */
+    synchronized boolean flush(SocketChannel channel) throws IOException {
+        while (_netOut.hasRemaining()) {
+            if (channel.write(_netOut) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends a close_notify alert as far as the connection accepts it without blocking.
+     */
+    synchronized void close(SocketChannel channel) {
+        _engine.closeOutbound();
+        try {
+            wrap(EMPTY);
+            flush(channel);
+        } catch (IOException e) {
+            // connection is being closed anyway
+        }
+    }
+
+    private synchronized void wrap(ByteBuffer src) throws IOException {
+        _netOut.compact();
+        SSLEngineResult result;
+        try {
+            result = _engine.wrap(src, _netOut);
+        } finally {
+            _netOut.flip();
+        }
+        checkWrapResult(result);
+    }
+
+    private static void checkWrapResult(SSLEngineResult result) throws IOException {
+        switch (result.getStatus()) {
+        case CLOSED:
+            throw new ClosedChannelException();
+        case BUFFER_OVERFLOW:
+            // cannot happen while the pending output is flushed before each wrap
+            throw new SSLException("TLS output buffer overflow");
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Unwraps one handshake message, reading from the connection if necessary.
+     * @return false if more bytes need to be received first.
+     */
+    private boolean unwrap(SocketChannel channel) throws IOException {
+        while (true) {
+            _netIn.flip();
+            SSLEngineResult result;
+            try {
+                result = _engine.unwrap(_netIn, _appIn);
+            } finally {
+                _netIn.compact();
+            }
+            switch (result.getStatus()) {
+            case OK:
+                return true;
+            case CLOSED:
+                throw new EOFException("TLS connection closed by MRCP server during handshake");
+            case BUFFER_OVERFLOW:
+                throw new SSLException("TLS input buffer overflow during handshake");
+            default:
+                // BUFFER_UNDERFLOW
+                if (!_netIn.hasRemaining()) {
+                    _netIn = enlarge(_netIn, _engine.getSession().getPacketBufferSize());
+                }
+                int count = channel.read(_netIn);
+                if (count < 0) {
+                    throw new EOFException("Connection closed by MRCP server during TLS handshake");
+                }
+                if (count == 0) {
+                    return false;
+                }
+                break;
+            }
+        }
+    }
+
+    private void runDelegatedTasks() {
+        Runnable task;
+        while ((task = _engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    private int transfer(ByteBuffer dst) {
+        _appIn.flip();
+        int count = Math.min(_appIn.remaining(), dst.remaining());
+        if (count > 0) {
+            int limit = _appIn.limit();
+            _appIn.limit(_appIn.position() + count);
+            dst.put(_appIn);
+            _appIn.limit(limit);
+        }
+        _appIn.compact();
+        return count;
+    }
+
+    private static ByteBuffer enlarge(ByteBuffer buffer, int minCapacity) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(minCapacity, buffer.capacity() * 2));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+}
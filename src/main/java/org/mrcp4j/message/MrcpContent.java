@@ -0,0 +1,607 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Body of an MRCP message, kept in the encoded form in which it is carried on the wire.
+ *
+ * <p>Message bodies such as grammars, SSML documents or NLSML results are frequently forwarded or logged without
+ * ever being inspected.  Content received from the network therefore keeps the raw bytes of the body together
+ * with the charset they are encoded in, and is only decoded to text the first time {@link #getText()} is called.
+ * Likewise content created from text is only encoded once, when it is first written to the network.</p>
+ *
+ * <p>Large bodies can be created from a file, a URL or a byte channel.  The content of a file is not read into
+ * memory: its length is known up front, so the message headers are written before the body, which is then
+ * transferred from the file to the connection with
+ * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} (see
+ * {@link #isStreamed()}), so that on plain TCP connections the operating system copies the file to the socket
+ * directly.  The content of other URLs is read into memory when the content is created, and the content of byte
+ * channels the first time it is used, by the thread sending the message, so that a slow source never holds up the
+ * connection the message is written to.</p>
+ *
+ * <p>Bodies that are sent over and over again, such as the grammars defined on every call, can be memory-mapped once
+ * with {@link #map(java.io.File, java.nio.charset.Charset)} and shared by all messages carrying them, for instance
+ * through an {@link org.mrcp4j.message.MrcpContentLibrary}.  Mapped content is written to the connection from the
+ * mapping, without being copied onto the heap.</p>
+ *
+ * <p>Instances may be shared between threads.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.message.MrcpMessage#setContent(String, String, MrcpContent)
+ */
+public abstract class MrcpContent {
+
+    /**
+     * Charset used for message bodies whose charset is not otherwise specified.
+     */
+    public static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Determines the charset of a message body from the charset parameter of its Content-Type header,
+     * for instance {@code application/ssml+xml; charset=ISO-8859-1}.
+     * @param contentType the value of the Content-Type header, may be null.
+     * @return the charset named by the charset parameter, or {@link #DEFAULT_CHARSET} if the content type has no
+     *         charset parameter or names a charset that is not supported.
+     */
+    public static Charset charsetOf(String contentType) {
+        if (contentType == null) {
+            return DEFAULT_CHARSET;
+        }
+        int index = contentType.indexOf(';');
+        while (index >= 0) {
+            int next = contentType.indexOf(';', index + 1);
+            String parameter = contentType.substring(index + 1, (next < 0) ? contentType.length() : next);
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).trim().equalsIgnoreCase("charset")) {
+                String name = parameter.substring(equals + 1).trim();
+                if (name.length() > 1 && name.charAt(0) == '"' && name.charAt(name.length() - 1) == '"') {
+                    name = name.substring(1, name.length() - 1);
+                }
+                try {
+                    if (Charset.isSupported(name)) {
+                        return Charset.forName(name);
+                    }
+                } catch (IllegalCharsetNameException e) {
+                    // fall back to the default charset
+                }
+                break;
+            }
+            index = next;
+        }
+        return DEFAULT_CHARSET;
+    }
+
+    /**
+     * Creates content from bytes that are already encoded.  The array is not copied and must not be modified
+     * after it has been passed to this method.
+     * @param bytes the encoded content.
+     * @param charset the charset the content is encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     */
+    public static MrcpContent wrap(byte[] bytes, Charset charset) {
+        return wrap(bytes, 0, bytes.length, charset);
+    }
+
+    /**
+     * Creates content from a range of bytes that are already encoded.  The array is not copied and the range
+     * must not be modified after it has been passed to this method.
+     * @param bytes array holding the encoded content.
+     * @param offset the index of the first byte of the content.
+     * @param length the number of bytes of content.
+     * @param charset the charset the content is encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     */
+    public static MrcpContent wrap(byte[] bytes, int offset, int length, Charset charset) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("Invalid content range: offset=" + offset + " length=" + length);
+        }
+        return new ByteArrayContent(bytes, offset, length, null, charset);
+    }
+
+    /**
+     * Creates content from the remaining bytes of a buffer that are already encoded.  The bytes are not copied
+     * and must not be modified after the buffer has been passed to this method, but the position and limit of the
+     * buffer may be changed freely.
+     * @param bytes buffer holding the encoded content between its position and its limit.
+     * @param charset the charset the content is encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     */
+    public static MrcpContent wrap(ByteBuffer bytes, Charset charset) {
+        return new ByteBufferContent(bytes.slice().asReadOnlyBuffer(), charset);
+    }
+
+    /**
+     * Creates content by memory-mapping a file.  The file is mapped once, read-only, and the mapping is shared by
+     * all messages the content is sent with.  The file must not change while the content is in use.  The mapping
+     * is released once the content is no longer referenced.
+     * @param file the file holding the encoded content.
+     * @param charset the charset the content is encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     * @throws IOException if the file cannot be mapped or is too large to be sent in an MRCP message.
+     */
+    public static MrcpContent map(File file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            int length = checkLength(channel.size(), file);
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new ByteBufferContent(mapping, charset);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Creates content from text.  The text is encoded on first use.
+     * @param text the content.
+     * @param charset the charset the content is to be encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     */
+    public static MrcpContent fromText(String text, Charset charset) {
+        if (text == null) {
+            throw new NullPointerException("text");
+        }
+        return new ByteArrayContent(null, 0, -1, text, charset);
+    }
+
+    /**
+     * Creates content that is read from a file while the message is written.  The file must not change
+     * while the content is in use.
+     * @param file the file holding the encoded content.
+     * @param charset the charset the content is encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     * @throws IOException if the file cannot be read or is too large to be sent in an MRCP message.
+     */
+    public static MrcpContent fromFile(File file, Charset charset) throws IOException {
+        if (!file.isFile() || !file.canRead()) {
+            throw new FileNotFoundException("Cannot read content file: " + file);
+        }
+        return new FileContent(file, checkLength(file.length(), file), charset);
+    }
+
+    /**
+     * Creates content from a URL.  Content of <code>file:</code> URLs is read from the file while the message is
+     * written, see {@link #fromFile(java.io.File, java.nio.charset.Charset)}.  Other resources are opened once and
+     * read into memory by this method, so that the Content-Length sent always matches the body, even if the resource
+     * changes afterwards.
+     * @param url the location of the encoded content.
+     * @param charset the charset the content is encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     * @throws IOException if the URL cannot be read, its content is shorter than the length reported for it or too
+     *                     large to be sent in an MRCP message.
+     */
+    public static MrcpContent fromURL(URL url, Charset charset) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return fromFile(new File(url.toURI()), charset);
+            } catch (URISyntaxException e) {
+                // not a valid file URI, fall back to the generic URL handler
+            } catch (IllegalArgumentException e) {
+                // not a local file, fall back to the generic URL handler
+            }
+        }
+        URLConnection connection = url.openConnection();
+        long length = connection.getContentLengthLong();
+        InputStream in = connection.getInputStream();
+        try {
+            return wrap(readFully(Channels.newChannel(in), (length < 0) ? -1 : checkLength(length, url)), charset);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Creates content that is read from a byte channel the first time it is used, either by the thread sending
+     * the message or by calling {@link #getBytes()} or {@link #getText()}.  The content is kept in memory once it
+     * has been read, and the channel is closed.
+     * @param channel the channel supplying the encoded content.
+     * @param length the number of bytes of content to be read from the channel.
+     * @param charset the charset the content is encoded in, or null for {@link #DEFAULT_CHARSET}.
+     * @return the content.
+     */
+    public static MrcpContent fromChannel(ReadableByteChannel channel, int length, Charset charset) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Content length must not be negative: " + length);
+        }
+        return new StreamContent(channel, length, charset);
+    }
+
+    /**
+     * @return the charset the content is encoded in.
+     */
+    public abstract Charset getCharset();
+
+    /**
+     * @return the length of the encoded content in bytes, as reported in the Content-Length header.
+     */
+    public abstract int getLength();
+
+    /**
+     * Indicates whether the content is held in memory or read from a file while the message is written.
+     * Encoders copy in-memory content into the encoded message, while streamed content is transferred to the
+     * connection separately from the channel returned by {@link #openChannel()}.
+     * @return true if the content is read from a file while being written.
+     */
+    public boolean isStreamed() {
+        return false;
+    }
+
+    /**
+     * Opens the file streamed content is read from, for writing the content once.  The caller transfers the content
+     * with {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} and
+     * closes the channel once the content has been written or the write has failed.
+     * @return a read-only channel of the file holding the content.
+     * @throws IOException if the file cannot be opened or is shorter than the content.
+     * @throws UnsupportedOperationException if the content is not streamed.
+     */
+    public FileChannel openChannel() throws IOException {
+        throw new UnsupportedOperationException("Content is held in memory");
+    }
+
+    /**
+     * Retrieves the encoded content.  Streamed content is read into memory by this method.
+     * @return a read-only buffer positioned at the start of the content and limited to its end.  Each call returns
+     *         a new buffer, so its position may be changed freely.
+     */
+    public abstract ByteBuffer getBytes();
+
+    /**
+     * Retrieves the content decoded to text.  The text of in-memory content is decoded once and cached on
+     * first use.
+     * @return the content as text.
+     */
+    public abstract String getText();
+
+    private static int checkLength(long length, Object source) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Content too large for an MRCP message: " + source + " (" + length + " bytes)");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Reads a channel to its end or until the specified number of bytes has been read.
+     * @param length the number of bytes to be read, or -1 to read to the end of the channel.
+     */
+    private static byte[] readFully(ReadableByteChannel channel, int length) throws IOException {
+        if (length >= 0) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Content ended after " + buffer.position() + " of " + length + " bytes");
+                }
+            }
+            return buffer.array();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        while (channel.read(buffer) >= 0) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return out.toByteArray();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return getText();
+    }
+
+    /**
+     * Content held in a byte array, either received from the network or encoded from text on first use.
+     */
+    private static class ByteArrayContent extends MrcpContent {
+
+        private Charset _charset;
+        private volatile byte[] _bytes;
+        private volatile int _offset;
+        private volatile int _length;
+        private volatile String _text;
+
+        ByteArrayContent(byte[] bytes, int offset, int length, String text, Charset charset) {
+            _charset = (charset == null) ? DEFAULT_CHARSET : charset;
+            _offset = offset;
+            _length = length;
+            _text = text;
+            _bytes = bytes;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getCharset()
+         */
+        @Override
+        public Charset getCharset() {
+            return _charset;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getLength()
+         */
+        @Override
+        public int getLength() {
+            encode();
+            return _length;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getBytes()
+         */
+        @Override
+        public ByteBuffer getBytes() {
+            encode();
+            return ByteBuffer.wrap(_bytes, _offset, _length).slice().asReadOnlyBuffer();
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getText()
+         */
+        @Override
+        public String getText() {
+            String text = _text;
+            if (text == null) {
+                // racing threads decode the same text, whichever result is published last wins
+                text = new String(_bytes, _offset, _length, _charset);
+                _text = text;
+            }
+            return text;
+        }
+
+        private void encode() {
+            if (_bytes == null) {
+                byte[] bytes = _text.getBytes(_charset);
+                _offset = 0;
+                _length = bytes.length;
+                // published last, readers that see the array also see its offset and length
+                _bytes = bytes;
+            }
+        }
+
+    }
+
+    /**
+     * Content held in a read-only buffer, typically a direct buffer or a memory-mapped file.
+     */
+    private static class ByteBufferContent extends MrcpContent {
+
+        private ByteBuffer _bytes;
+        private Charset _charset;
+        private volatile String _text;
+
+        ByteBufferContent(ByteBuffer bytes, Charset charset) {
+            _bytes = bytes;
+            _charset = (charset == null) ? DEFAULT_CHARSET : charset;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getCharset()
+         */
+        @Override
+        public Charset getCharset() {
+            return _charset;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getLength()
+         */
+        @Override
+        public int getLength() {
+            return _bytes.limit();
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getBytes()
+         */
+        @Override
+        public ByteBuffer getBytes() {
+            // the shared buffer is never read directly, so concurrent writers cannot disturb each other's position
+            return _bytes.asReadOnlyBuffer();
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getText()
+         */
+        @Override
+        public String getText() {
+            String text = _text;
+            if (text == null) {
+                text = _charset.decode(getBytes()).toString();
+                _text = text;
+            }
+            return text;
+        }
+
+    }
+
+    /**
+     * Content read from a file each time it is written.
+     */
+    private static class FileContent extends MrcpContent {
+
+        private File _file;
+        private int _length;
+        private Charset _charset;
+
+        FileContent(File file, int length, Charset charset) {
+            _file = file;
+            _length = length;
+            _charset = (charset == null) ? DEFAULT_CHARSET : charset;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getCharset()
+         */
+        @Override
+        public Charset getCharset() {
+            return _charset;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getLength()
+         */
+        @Override
+        public int getLength() {
+            return _length;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#isStreamed()
+         */
+        @Override
+        public boolean isStreamed() {
+            return true;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#openChannel()
+         */
+        @Override
+        public FileChannel openChannel() throws IOException {
+            FileChannel file = FileChannel.open(_file.toPath(), StandardOpenOption.READ);
+            long size = file.size();
+            if (size < _length) {
+                file.close();
+                throw new EOFException("Content file " + _file + " was truncated to " + size + " bytes");
+            }
+            return file;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getBytes()
+         */
+        @Override
+        public ByteBuffer getBytes() {
+            try {
+                FileChannel file = FileChannel.open(_file.toPath(), StandardOpenOption.READ);
+                try {
+                    return ByteBuffer.wrap(readFully(file, _length)).asReadOnlyBuffer();
+                } finally {
+                    file.close();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read content file " + _file, e);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getText()
+         */
+        @Override
+        public String getText() {
+            return _charset.decode(getBytes()).toString();
+        }
+
+    }
+
+    /**
+     * Content read into memory from a byte channel the first time it is used.
+     */
+    private static class StreamContent extends MrcpContent {
+
+        private int _length;
+        private Charset _charset;
+
+        // the following fields are guarded by this
+        private ReadableByteChannel _source;
+        private MrcpContent _loaded;
+
+        StreamContent(ReadableByteChannel source, int length, Charset charset) {
+            _source = source;
+            _length = length;
+            _charset = (charset == null) ? DEFAULT_CHARSET : charset;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getCharset()
+         */
+        @Override
+        public Charset getCharset() {
+            return _charset;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getLength()
+         */
+        @Override
+        public int getLength() {
+            return _length;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getBytes()
+         */
+        @Override
+        public ByteBuffer getBytes() {
+            return load().getBytes();
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.MrcpContent#getText()
+         */
+        @Override
+        public String getText() {
+            return load().getText();
+        }
+
+        private synchronized MrcpContent load() {
+            if (_loaded == null) {
+                ReadableByteChannel source = _source;
+                _source = null;
+                try {
+                    if (source == null) {
+                        throw new IOException("Content of a byte channel can only be read once");
+                    }
+                    try {
+                        _loaded = wrap(readFully(source, _length), _charset);
+                    } finally {
+                        source.close();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot read content from channel", e);
+                }
+            }
+            return _loaded;
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Library of message bodies that are sent repeatedly, such as the grammars defined with DEFINE-GRAMMAR or the SSML
+ * documents spoken with SPEAK on every call.
+ *
+ * <p>Each file registered with the library is memory-mapped once (see
+ * {@link org.mrcp4j.message.MrcpContent#map(java.io.File, java.nio.charset.Charset)}), and the resulting immutable
+ * content, with its Content-Length already known, is shared by every message it is set on.  Messages carrying
+ * library content are written to the connection directly from the mapping, so the files are neither read nor
+ * copied onto the heap when a message is sent:</p>
+ *
+ * <pre>
+ * MrcpContentLibrary library = new MrcpContentLibrary();
+ * library.register("digits", new File("grammars/digits.grxml"));
+ * ...
+ * MrcpRequest request = channel.createRequest(MrcpMethodName.DEFINE_GRAMMAR);
+ * request.setContent("application/srgs+xml", "digits@form-level.store", library.get("digits"));
+ * </pre>
+ *
+ * <p>A library may be used concurrently by any number of threads.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpContentLibrary {
+
+    private ConcurrentMap<String, MrcpContent> _contents = new ConcurrentHashMap<String, MrcpContent>();
+
+    /**
+     * Maps a file encoded in {@link org.mrcp4j.message.MrcpContent#DEFAULT_CHARSET} and registers it under a name.
+     * @param name the name the content is retrieved by.
+     * @param file the file holding the content.
+     * @return the mapped content.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public MrcpContent register(String name, File file) throws IOException {
+        return register(name, file, null);
+    }
+
+    /**
+     * Maps a file and registers it under a name, replacing any content previously registered under the same name.
+     * Messages already carrying the replaced content continue to use it.
+     * @param name the name the content is retrieved by.
+     * @param file the file holding the content.
+     * @param charset the charset the file is encoded in, or null for
+     *                {@link org.mrcp4j.message.MrcpContent#DEFAULT_CHARSET}.
+     * @return the mapped content.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public MrcpContent register(String name, File file, Charset charset) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+        MrcpContent content = MrcpContent.map(file, charset);
+        _contents.put(name, content);
+        return content;
+    }
+
+    /**
+     * Registers content that has already been created under a name.
+     * @param name the name the content is retrieved by.
+     * @param content the content.
+     */
+    public void register(String name, MrcpContent content) {
+        if (name == null || content == null) {
+            throw new NullPointerException((name == null) ? "name" : "content");
+        }
+        _contents.put(name, content);
+    }
+
+    /**
+     * @param name the name the content was registered under.
+     * @return the content registered under the name, or null if there is none.
+     */
+    public MrcpContent get(String name) {
+        return _contents.get(name);
+    }
+
+    /**
+     * Removes content from the library.  The mapping is released once no message refers to the content any more.
+     * @param name the name the content was registered under.
+     * @return the removed content, or null if there was none.
+     */
+    public MrcpContent remove(String name) {
+        return _contents.remove(name);
+    }
+
+    /**
+     * @return the names of all content in the library.
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(_contents.keySet());
+    }
+
+    /**
+     * @return the total length in bytes of all content in the library.
+     */
+    public long getTotalLength() {
+        long length = 0;
+        for (MrcpContent content : _contents.values()) {
+            length += content.getLength();
+        }
+        return length;
+    }
+
+}
@@ -23,6 +23,9 @@
 package org.mrcp4j.message;
 
 import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.util.Utf8Encoder;
+
+import java.nio.ByteBuffer;
 
 /**
  *
@@ -51,4 +54,27 @@ public class MrcpEvent extends MrcpServerMessage {
         return sb;
     }
 
+    @Override
+    protected final int getStartLineLength() {
+        return Utf8Encoder.length(String.valueOf(getVersion())) + 1
+            + 1 + Utf8Encoder.length(String.valueOf(getEventName()))
+            + 1 + Utf8Encoder.decimalLength(getRequestID())
+            + 1 + Utf8Encoder.length(String.valueOf(getRequestState()))
+            + CRLF.length();
+    }
+
+    @Override
+    protected final void encodeStartLine(ByteBuffer buffer) {
+        Utf8Encoder.encode(String.valueOf(getVersion()), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encodeDecimal(getMessageLength(), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encode(String.valueOf(getEventName()), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encodeDecimal(getRequestID(), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encode(String.valueOf(getRequestState()), buffer);
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
 }
\ No newline at end of file
@@ -26,16 +26,29 @@ import org.mrcp4j.message.header.ChannelIdentifier;
 import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.util.Utf8Encoder;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.RandomAccess;
 
 /**
+ * Base class of all MRCP messages.
+ *
+ * <p>Headers are kept in the order they were added.  Headers with a field-name known to MRCP4J are located through
+ * a small table indexed by {@link org.mrcp4j.message.header.MrcpHeaderName#ordinal()}, so no strings need to be
+ * hashed to find them.  Only headers with unknown field-names, such as vendor specific headers, are additionally
+ * kept in a map by name, which is not created for messages without such headers.</p>
+ *
+ * <p>Encoders first call {@link #updateMessageLength()}, which computes the exact length of the encoded message from
+ * the lengths of its start-line, headers and body, and then write the message in a single pass with
+ * {@link #encodeTo(java.nio.ByteBuffer, boolean)} into a buffer of exactly that size.</p>
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
@@ -48,9 +61,20 @@ public abstract class MrcpMessage {
     private int _messageLength = -1;
     private long _requestID = -1;
 
-    private Map<String, MrcpHeader> _headers = new LinkedHashMap<String, MrcpHeader>();
+    private static final int HEADER_NAME_COUNT = MrcpHeaderName.values().length;
+    private static final int INITIAL_HEADER_CAPACITY = 8;
+
+    // headers in insertion order
+    private MrcpHeader[] _headers = new MrcpHeader[INITIAL_HEADER_CAPACITY];
+    private int _headerCount;
+
+    // one-based position in _headers of the header with each known field-name, zero if absent
+    private short[] _headerIndex = new short[HEADER_NAME_COUNT];
+
+    // headers with unknown field-names by name, created on demand
+    private Map<String, MrcpHeader> _unknownHeaders;
 
-    private String _content;
+    private MrcpContent _content;
 
     public void setVersion(String version) {
         _version = version;
@@ -77,52 +101,122 @@ public abstract class MrcpMessage {
     }
 
     public void addHeader(MrcpHeader header) {
-        if (header != null) {
-            _headers.put(header.getNameString(), header);
+        if (header == null) {
+            return;
+        }
+        MrcpHeaderName name = header.getHeaderName();
+        int position = (name == null) ? indexOfUnknown(header.getNameString()) : _headerIndex[name.ordinal()] - 1;
+        if (position >= 0) {
+            // replace the existing header in place, keeping its position
+            _headers[position] = header;
+        } else {
+            if (_headerCount == _headers.length) {
+                _headers = Arrays.copyOf(_headers, _headerCount * 2);
+            }
+            position = _headerCount++;
+            _headers[position] = header;
+            if (name != null) {
+                _headerIndex[name.ordinal()] = (short) (position + 1);
+            }
+        }
+        if (name == null) {
+            if (_unknownHeaders == null) {
+                _unknownHeaders = new HashMap<String, MrcpHeader>();
+            }
+            _unknownHeaders.put(header.getNameString(), header);
         }
     }
 
     public MrcpHeader getHeader(MrcpHeaderName name) {
-        return _headers.get(name.toString());
+        int position = _headerIndex[name.ordinal()] - 1;
+        return (position < 0) ? null : _headers[position];
     }
 
     public MrcpHeader getHeader(String name) {
-        return _headers.get(name);
+        MrcpHeaderName headerName = MrcpHeaderName.lookup(name);
+        if (headerName != null) {
+            return getHeader(headerName);
+        }
+        return (_unknownHeaders == null) ? null : _unknownHeaders.get(name);
     }
 
     public MrcpHeader removeHeader(MrcpHeaderName name) {
-        return removeHeader(name.toString());
+        int position = _headerIndex[name.ordinal()] - 1;
+        return (position < 0) ? null : removeHeaderAt(position);
     }
 
     public MrcpHeader removeHeader(String name) {
-        return _headers.remove(name);
+        MrcpHeaderName headerName = MrcpHeaderName.lookup(name);
+        if (headerName != null) {
+            return removeHeader(headerName);
+        }
+        int position = indexOfUnknown(name);
+        return (position < 0) ? null : removeHeaderAt(position);
     }
 
+    /**
+     * @return the headers of the message in the order they were added.
+     */
     public Collection<MrcpHeader> getHeaders() {
-        return _headers.values();
+        return new HeaderList();
+    }
+
+    private int indexOfUnknown(String name) {
+        MrcpHeader header = (_unknownHeaders == null) ? null : _unknownHeaders.get(name);
+        if (header != null) {
+            for (int i = 0; i < _headerCount; i++) {
+                if (_headers[i] == header) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private MrcpHeader removeHeaderAt(int position) {
+        MrcpHeader header = _headers[position];
+        System.arraycopy(_headers, position + 1, _headers, position, _headerCount - position - 1);
+        _headers[--_headerCount] = null;
+
+        MrcpHeaderName name = header.getHeaderName();
+        if (name == null) {
+            _unknownHeaders.remove(header.getNameString());
+        } else {
+            _headerIndex[name.ordinal()] = 0;
+        }
+        // headers after the removed one have moved up by one position
+        for (int i = position; i < _headerCount; i++) {
+            MrcpHeaderName moved = _headers[i].getHeaderName();
+            if (moved != null) {
+                _headerIndex[moved.ordinal()] = (short) (i + 1);
+            }
+        }
+        return header;
     }
 
     /**
-     * Sets the content for the body of the message as well as any applicable headers.
+     * Sets the content for the body of the message as well as any applicable headers.  The content of a
+     * <code>file:</code> URL is not read into memory, it is streamed from the file when the message is sent.
+     * The content of other URLs is read into memory by this method.
+     *
+     * <p>The content is sent exactly as provided by the URL, in the charset of the content type.  Earlier versions
+     * read the content as text, converted its line endings to CRLF and trimmed surrounding whitespace, like
+     * {@link #setContent(String, String, String)} does.  To keep that behaviour, read the URL into a string and
+     * pass it to that method instead.</p>
+     *
      * @param contentType the MIME type of the content. (required)
      * @param contentId the ID of the content. (optional)
      * @param content the body of the message. (required)
      * @throws IOException if the URL cannot be opened
+     * @see org.mrcp4j.message.MrcpContent#fromURL(java.net.URL, java.nio.charset.Charset)
      */
     public void setContent(String contentType, String contentId, URL content) throws IOException {
-        BufferedReader in = new BufferedReader(new InputStreamReader(content.openStream()));
-        
-        StringBuilder sb = new StringBuilder();
-        String line = null;
-        while ((line = in.readLine()) != null) {
-            sb.append(line);
-            sb.append(CRLF);
-        }
-        setContent(contentType, contentId, sb.substring(0, sb.length()-2));
+        setContent(contentType, contentId, MrcpContent.fromURL(content, MrcpContent.charsetOf(contentType)));
     }
 
     /**
-     * Sets the content for the body of the message as well as any applicable headers.
+     * Sets the content for the body of the message as well as any applicable headers.  The content is encoded in
+     * the charset named by the charset parameter of the content type, or in UTF-8 if there is none.
      * @param contentType the MIME type of the content. (required)
      * @param contentId the ID of the content. (optional)
      * @param content the body of the message. (required, use <code>removeContent()</code> method to remove previously set content.)
@@ -133,6 +227,22 @@ public abstract class MrcpMessage {
                 "Cannot add zero length or null content, to remove content use removeContent() instead!");
         }
 
+        setContent(contentType, contentId, MrcpContent.fromText(content.concat(CRLF), MrcpContent.charsetOf(contentType)));
+    }
+
+    /**
+     * Sets the content for the body of the message as well as any applicable headers.  The content is written
+     * to the network exactly as provided, without being decoded or re-encoded.
+     * @param contentType the MIME type of the content. (required)
+     * @param contentId the ID of the content. (optional)
+     * @param content the body of the message. (required, use <code>removeContent()</code> method to remove previously set content.)
+     */
+    public void setContent(String contentType, String contentId, MrcpContent content) {
+        if (content == null || content.getLength() < 1) {
+            throw new IllegalArgumentException(
+                "Cannot add zero length or null content, to remove content use removeContent() instead!");
+        }
+
         if (contentType == null || (contentType = contentType.trim()).length() < 1) {
             throw new IllegalArgumentException(
                 "contentType is a required parameter, must not be null or zero length");
@@ -142,8 +252,7 @@ public abstract class MrcpMessage {
             contentId = null;
         }
 
-        content = content.concat(CRLF);
-        int contentLength = content.length();
+        int contentLength = content.getLength();
 
         // construct applicable headers
         MrcpHeader contentTypeHeader = MrcpHeaderName.CONTENT_TYPE.constructHeader(contentType);
@@ -183,9 +292,27 @@ public abstract class MrcpMessage {
      * @param content the body of the message.
      */
     public void setContent(String content) {
+        _content = (content == null) ? null : MrcpContent.fromText(content, MrcpContent.charsetOf(getContentType()));
+    }
+
+    /**
+     * Method for setting the encoded body of the message if the content type, id and length headers
+     * have already been set.  Provided primarly for use while decoding messages objects from a
+     * MRCP message stream.  MRCP4J clients generally should not use this method.
+     * @param content the body of the message.
+     */
+    public void setMessageBody(MrcpContent content) {
         _content = content;
     }
 
+    /**
+     * Retrieves the body of the message in its encoded form, for forwarding the body without decoding it.
+     * @return the body of the message or null if this message has no content.
+     */
+    public MrcpContent getMessageBody() {
+        return _content;
+    }
+
     /**
      * @return true if this message has content in the body of the message.
      */
@@ -194,11 +321,11 @@ public abstract class MrcpMessage {
     }
 
     /**
-     * TODOC
+     * Retrieves the body of the message as text.  The body is decoded on first use.
      * @return Returns the content.
      */
     public String getContent() {
-        return _content;
+        return (_content == null) ? null : _content.getText();
     }
 
     /**
@@ -228,7 +355,8 @@ public abstract class MrcpMessage {
         StringBuilder sb = appendStartLine(new StringBuilder());
 
         // append headers
-        for (MrcpHeader header : _headers.values()) {
+        for (int i = 0; i < _headerCount; i++) {
+            MrcpHeader header = _headers[i];
             header.appendTo(sb);
             sb.append(CRLF);
         }
@@ -246,4 +374,83 @@ public abstract class MrcpMessage {
 
     protected abstract StringBuilder appendStartLine(StringBuilder sb);
 
-}
\ No newline at end of file
+    /**
+     * Computes the message-length of this message as it is encoded by {@link #encodeTo(java.nio.ByteBuffer, boolean)}
+     * and sets it as the message-length of this message.
+     * @return the message-length, which includes the length of the message body.
+     */
+    public int updateMessageLength() {
+        int length = getStartLineLength() + CRLF.length();
+        for (int i = 0; i < _headerCount; i++) {
+            length += _headers[i].getEncodedLength();
+        }
+        if (_content != null) {
+            length += _content.getLength();
+        }
+
+        // the message-length counts its own digits, which adds one more digit if it crosses a power of ten
+        int digits = Utf8Encoder.decimalLength(length);
+        int messageLength = length + digits;
+        if (Utf8Encoder.decimalLength(messageLength) > digits) {
+            messageLength++;
+        }
+        _messageLength = messageLength;
+        return messageLength;
+    }
+
+    /**
+     * Writes this message in the form it is sent on the wire, with the message-length last set on this message.
+     * @param buffer      the buffer to write to, which must have enough bytes remaining for the encoded message.
+     * @param includeBody false to write the message only up to and including the empty line ending the headers,
+     *                    for a message body that is transferred separately.
+     */
+    public void encodeTo(ByteBuffer buffer, boolean includeBody) {
+        encodeStartLine(buffer);
+        for (int i = 0; i < _headerCount; i++) {
+            _headers[i].encodeTo(buffer);
+        }
+        buffer.put((byte) '\r').put((byte) '\n');
+        if (includeBody && _content != null) {
+            buffer.put(_content.getBytes());
+        }
+    }
+
+    /**
+     * @return the number of bytes of the encoded start-line, including its terminating CRLF but excluding the digits
+     *         of the message-length.
+     */
+    protected abstract int getStartLineLength();
+
+    /**
+     * Writes the start-line, terminated by CRLF, with the message-length currently set on this message.
+     * @param buffer the buffer to write to.
+     */
+    protected abstract void encodeStartLine(ByteBuffer buffer);
+
+    /**
+     * Read-only view of the headers of the message in insertion order.
+     */
+    private class HeaderList extends AbstractList<MrcpHeader> implements RandomAccess {
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractList#get(int)
+         */
+        @Override
+        public MrcpHeader get(int index) {
+            if (index < 0 || index >= _headerCount) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _headerCount);
+            }
+            return _headers[index];
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+            return _headerCount;
+        }
+
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+
+/**
+ * Frames MRCP messages in the bytes received on a connection and scans their lines, shared by the client and server
+ * decoders (for internal library use only).
+ *
+ * <p>Every MRCP message announces its total length in the message-length field, the second token of its start-line.
+ * A decoder reads that field with {@link #readMessageLength(java.nio.ByteBuffer)} as soon as the start of the
+ * message has been received and then waits until all of the announced bytes are available.  The remaining methods
+ * scan the lines of a completely received message without converting them to strings.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpMessageFraming {
+
+    /**
+     * Maximum number of digits accepted in the message-length field, which keeps the value within an int.
+     */
+    static final int MESSAGE_LENGTH_MAX_DIGITS = 9;
+
+    /**
+     * Maximum number of bytes preceding the message-length field of a start-line.
+     */
+    private static final int MRCP_VERSION_MAX_LENGTH = 32;
+
+    private MrcpMessageFraming() {
+        // static methods only
+    }
+
+    /**
+     * Reads the message-length field, the second token of the start-line, without consuming any bytes.
+     * @param in buffer of received bytes, positioned at the start of the message.
+     * @return the message-length or -1 if the buffer does not yet contain the complete field.
+     * @throws ParseException if the start of the message is not a start-line with a valid message-length, in which
+     *                        case the message cannot be framed.
+     */
+    public static int readMessageLength(ByteBuffer in) throws ParseException {
+        int start = in.position();
+        int limit = in.limit();
+        int i = start;
+        while (i < limit && in.get(i) != ' ') {
+            if (i - start >= MRCP_VERSION_MAX_LENGTH) {
+                throw new ParseException("Incorrect start-line format, no message-length found", 0);
+            }
+            i++;
+        }
+        int messageLength = 0;
+        int digits = 0;
+        int lengthStart = i + 1;
+        for (i++; i < limit && in.get(i) != ' '; i++) {
+            byte b = in.get(i);
+            if (b < '0' || b > '9' || ++digits > MESSAGE_LENGTH_MAX_DIGITS) {
+                throw new ParseException("Incorrect message-length format in start-line", lengthStart - start);
+            }
+            messageLength = messageLength * 10 + (b - '0');
+        }
+        if (i >= limit) {
+            return -1;
+        }
+        if (messageLength <= i - start) {
+            throw new ParseException("Invalid message-length: " + messageLength, lengthStart - start);
+        }
+        return messageLength;
+    }
+
+    /**
+     * @return the offset of the CRLF (or bare LF) ending the line that starts at {@code from}, or {@code to} if
+     *         the line is not terminated.
+     */
+    public static int indexOfLineEnd(byte[] bytes, int from, int to) {
+        int index = indexOf(bytes, from, to, (byte) '\n');
+        if (index < 0) {
+            return to;
+        }
+        return (index > from && bytes[index - 1] == '\r') ? index - 1 : index;
+    }
+
+    /**
+     * @return the offset of the line following the line end at {@code lineEnd}.
+     */
+    public static int skipLineEnd(byte[] bytes, int lineEnd, int to) {
+        if (lineEnd < to && bytes[lineEnd] == '\r') {
+            lineEnd++;
+        }
+        if (lineEnd < to && bytes[lineEnd] == '\n') {
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+
+    /**
+     * @return the offset of the first occurrence of {@code b} in the range, or -1 if there is none.
+     */
+    public static int indexOf(byte[] bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the range contains whitespace only.
+     */
+    public static boolean isBlank(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the offset of the first byte in the range that is not whitespace, or {@code to}.
+     */
+    public static int skipWhitespace(byte[] bytes, int from, int to) {
+        while (from < to && isWhitespace(bytes[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return the end of the range without its trailing whitespace.
+     */
+    public static int trimWhitespace(byte[] bytes, int from, int to) {
+        while (to > from && isWhitespace(bytes[to - 1])) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * @return the offset of the first whitespace byte in the range, or {@code to}.
+     */
+    public static int tokenEnd(byte[] bytes, int from, int to) {
+        while (from < to && !isWhitespace(bytes[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return true for space, horizontal tab, CR and LF.
+     */
+    public static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+}
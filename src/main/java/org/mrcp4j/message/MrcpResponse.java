@@ -22,6 +22,10 @@
  */
 package org.mrcp4j.message;
 
+import org.mrcp4j.util.Utf8Encoder;
+
+import java.nio.ByteBuffer;
+
 /**
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
@@ -113,4 +117,27 @@ public class MrcpResponse extends MrcpServerMessage {
         return sb;
     }
 
+    @Override
+    protected final int getStartLineLength() {
+        return Utf8Encoder.length(String.valueOf(getVersion())) + 1
+            + 1 + Utf8Encoder.decimalLength(getRequestID())
+            + 1 + Utf8Encoder.decimalLength(getStatusCode())
+            + 1 + Utf8Encoder.length(String.valueOf(getRequestState()))
+            + CRLF.length();
+    }
+
+    @Override
+    protected final void encodeStartLine(ByteBuffer buffer) {
+        Utf8Encoder.encode(String.valueOf(getVersion()), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encodeDecimal(getMessageLength(), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encodeDecimal(getRequestID(), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encodeDecimal(getStatusCode(), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encode(String.valueOf(getRequestState()), buffer);
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.MrcpRequestFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * Parses the start-lines of MRCP messages directly from the received bytes.
+ *
+ * <p>The start-line is scanned once, token by token.  Numbers are parsed in place and method names, event names
+ * and request states are resolved from the bytes of their tokens, see for example
+ * {@link org.mrcp4j.MrcpMethodName#fromBytes(byte[], int, int)}, so apart from the message itself no
+ * objects are created for well-formed start-lines: no strings, no token arrays and no exceptions.  Whether a
+ * start-line received from a server is a response-line or an event-line is decided by the third token, which
+ * consists only of digits for a response-line.</p>
+ *
+ * <p>Tokens are separated by one or more spaces or tabs, and whitespace around the start-line, including its
+ * terminating CRLF, is ignored.  The error offset of a {@link java.text.ParseException} thrown by this class is the
+ * offset of the offending token relative to the start of the line.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpStartLineParser {
+
+    private static final byte[] MRCP_VERSION_2_0_BYTES = MrcpMessage.MRCP_VERSION_2_0.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Maximum number of digits accepted in the request-id field, which keeps the value within a long.
+     */
+    private static final int REQUEST_ID_MAX_DIGITS = 18;
+
+    private static final int STATUS_CODE_MAX_DIGITS = 4;
+
+    private MrcpStartLineParser() {
+        // static methods only
+    }
+
+    /**
+     * Parses a request-line: {@code mrcp-version SP message-length SP method-name SP request-id}.
+     * @param bytes  the buffer holding the line.
+     * @param offset the offset of the line in the buffer.
+     * @param length the length of the line, with or without its terminating CRLF.
+     * @return a request populated from the request-line.
+     * @throws ParseException if the line is not a correctly formatted request-line.
+     */
+    public static MrcpRequest parseRequestLine(byte[] bytes, int offset, int length) throws ParseException {
+        int end = MrcpMessageFraming.trimWhitespace(bytes, offset, offset + length);
+
+        int versionStart = MrcpMessageFraming.skipWhitespace(bytes, offset, end);
+        int versionEnd = MrcpMessageFraming.tokenEnd(bytes, versionStart, end);
+        int lengthStart = MrcpMessageFraming.skipWhitespace(bytes, versionEnd, end);
+        int lengthEnd = MrcpMessageFraming.tokenEnd(bytes, lengthStart, end);
+        int methodStart = MrcpMessageFraming.skipWhitespace(bytes, lengthEnd, end);
+        int methodEnd = MrcpMessageFraming.tokenEnd(bytes, methodStart, end);
+        int requestIDStart = MrcpMessageFraming.skipWhitespace(bytes, methodEnd, end);
+        int requestIDEnd = MrcpMessageFraming.tokenEnd(bytes, requestIDStart, end);
+        if (versionStart == end || requestIDStart == end || requestIDEnd != end) {
+            throw new ParseException("Incorrect request-line format: " + toString(bytes, offset, end), 0);
+        }
+
+        // construct request from method-name
+        MrcpMethodName methodName = MrcpMethodName.fromBytes(bytes, methodStart, methodEnd - methodStart);
+        if (methodName == null) {
+            throw new ParseException("Incorrect method-name format!", methodStart - offset);
+        }
+        MrcpRequest request = MrcpRequestFactory.createRequest(methodName);
+
+        request.setVersion(parseVersion(bytes, versionStart, versionEnd));
+        request.setMessageLength((int) parseNumber(bytes, lengthStart, lengthEnd,
+                MrcpMessageFraming.MESSAGE_LENGTH_MAX_DIGITS, "Incorrect message-length format!", offset));
+        request.setRequestID(parseNumber(bytes, requestIDStart, requestIDEnd, REQUEST_ID_MAX_DIGITS,
+                "Incorrect request-id format!", offset));
+        return request;
+    }
+
+    /**
+     * Parses the start-line of a message sent by a server, which is either a response-line:
+     * {@code mrcp-version SP message-length SP request-id SP status-code SP request-state}, or an event-line:
+     * {@code mrcp-version SP message-length SP event-name SP request-id SP request-state}.
+     * @param bytes  the buffer holding the line.
+     * @param offset the offset of the line in the buffer.
+     * @param length the length of the line, with or without its terminating CRLF.
+     * @return an {@link org.mrcp4j.message.MrcpResponse} or an {@link org.mrcp4j.message.MrcpEvent} populated from
+     *         the start-line.
+     * @throws ParseException if the line is neither a correctly formatted response-line nor event-line.
+     */
+    public static MrcpServerMessage parseServerMessageLine(byte[] bytes, int offset, int length) throws ParseException {
+        return parseServerMessageLine(bytes, offset, length, true, true);
+    }
+
+    /**
+     * Parses a response-line: {@code mrcp-version SP message-length SP request-id SP status-code SP request-state}.
+     * @param bytes  the buffer holding the line.
+     * @param offset the offset of the line in the buffer.
+     * @param length the length of the line, with or without its terminating CRLF.
+     * @return a response populated from the response-line.
+     * @throws ParseException if the line is not a correctly formatted response-line.
+     */
+    public static MrcpResponse parseResponseLine(byte[] bytes, int offset, int length) throws ParseException {
+        return (MrcpResponse) parseServerMessageLine(bytes, offset, length, true, false);
+    }
+
+    /**
+     * Parses an event-line: {@code mrcp-version SP message-length SP event-name SP request-id SP request-state}.
+     * @param bytes  the buffer holding the line.
+     * @param offset the offset of the line in the buffer.
+     * @param length the length of the line, with or without its terminating CRLF.
+     * @return an event populated from the event-line.
+     * @throws ParseException if the line is not a correctly formatted event-line.
+     */
+    public static MrcpEvent parseEventLine(byte[] bytes, int offset, int length) throws ParseException {
+        return (MrcpEvent) parseServerMessageLine(bytes, offset, length, false, true);
+    }
+
+    private static MrcpServerMessage parseServerMessageLine(byte[] bytes, int offset, int length,
+            boolean acceptResponse, boolean acceptEvent) throws ParseException {
+        int end = MrcpMessageFraming.trimWhitespace(bytes, offset, offset + length);
+
+        int versionStart = MrcpMessageFraming.skipWhitespace(bytes, offset, end);
+        int versionEnd = MrcpMessageFraming.tokenEnd(bytes, versionStart, end);
+        int lengthStart = MrcpMessageFraming.skipWhitespace(bytes, versionEnd, end);
+        int lengthEnd = MrcpMessageFraming.tokenEnd(bytes, lengthStart, end);
+        int thirdStart = MrcpMessageFraming.skipWhitespace(bytes, lengthEnd, end);
+        int thirdEnd = MrcpMessageFraming.tokenEnd(bytes, thirdStart, end);
+        int fourthStart = MrcpMessageFraming.skipWhitespace(bytes, thirdEnd, end);
+        int fourthEnd = MrcpMessageFraming.tokenEnd(bytes, fourthStart, end);
+        int stateStart = MrcpMessageFraming.skipWhitespace(bytes, fourthEnd, end);
+        int stateEnd = MrcpMessageFraming.tokenEnd(bytes, stateStart, end);
+        if (versionStart == end || stateStart == end || stateEnd != end) {
+            throw new ParseException("Incorrect start-line format: " + toString(bytes, offset, end), 0);
+        }
+
+        // a response-line carries the request-id where an event-line carries the event-name
+        boolean isResponse = isDigits(bytes, thirdStart, thirdEnd);
+        MrcpServerMessage message;
+        if (isResponse) {
+            if (!acceptResponse) {
+                throw new ParseException("Incorrect event-name format!", thirdStart - offset);
+            }
+            MrcpResponse response = new MrcpResponse();
+            response.setRequestID(parseNumber(bytes, thirdStart, thirdEnd, REQUEST_ID_MAX_DIGITS,
+                    "Incorrect request-id format!", offset));
+            long statusCode = parseNumber(bytes, fourthStart, fourthEnd, STATUS_CODE_MAX_DIGITS,
+                    "Incorrect status-code format!", offset);
+            if (statusCode > Short.MAX_VALUE) {
+                throw new ParseException("Incorrect status-code format!", fourthStart - offset);
+            }
+            response.setStatusCode((short) statusCode);
+            message = response;
+        } else {
+            if (!acceptEvent) {
+                throw new ParseException("Incorrect request-id format!", thirdStart - offset);
+            }
+            MrcpEventName eventName = MrcpEventName.fromBytes(bytes, thirdStart, thirdEnd - thirdStart);
+            if (eventName == null) {
+                throw new ParseException("Incorrect event-name format!", thirdStart - offset);
+            }
+            MrcpEvent event = new MrcpEvent();
+            event.setEventName(eventName);
+            event.setRequestID(parseNumber(bytes, fourthStart, fourthEnd, REQUEST_ID_MAX_DIGITS,
+                    "Incorrect request-id format!", offset));
+            message = event;
+        }
+
+        MrcpRequestState requestState = MrcpRequestState.fromBytes(bytes, stateStart, stateEnd - stateStart);
+        if (requestState == null) {
+            throw new ParseException("Incorrect request-state format!", stateStart - offset);
+        }
+        message.setRequestState(requestState);
+        message.setVersion(parseVersion(bytes, versionStart, versionEnd));
+        message.setMessageLength((int) parseNumber(bytes, lengthStart, lengthEnd,
+                MrcpMessageFraming.MESSAGE_LENGTH_MAX_DIGITS, "Incorrect message-length format!", offset));
+        return message;
+    }
+
+    private static String parseVersion(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (length == MRCP_VERSION_2_0_BYTES.length) {
+            int i = 0;
+            while (i < length && bytes[from + i] == MRCP_VERSION_2_0_BYTES[i]) {
+                i++;
+            }
+            if (i == length) {
+                return MrcpMessage.MRCP_VERSION_2_0;
+            }
+        }
+        return toString(bytes, from, to);
+    }
+
+    private static long parseNumber(byte[] bytes, int from, int to, int maxDigits, String error, int lineOffset)
+      throws ParseException {
+        if (from == to || to - from > maxDigits) {
+            throw new ParseException(error, from - lineOffset);
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new ParseException(error, from - lineOffset);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isDigits(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return false;
+            }
+        }
+        return from < to;
+    }
+
+    private static String toString(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -106,12 +106,15 @@ public class ChannelIdentifier {
          * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
          */
         public Object fromValueString(String valueString) throws IllegalValueException {
-            String[] tokens = valueString.split("@");
-            if (tokens.length != 2) {
+            int index = valueString.indexOf('@');
+            if (index < 0 || valueString.indexOf('@', index + 1) >= 0) {
                 throw new IllegalValueException("Illegal Channel-Identifier value: " + valueString);
             }
-            MrcpResourceType resourceType = MrcpResourceType.fromString(tokens[1].trim());
-            return new ChannelIdentifier(tokens[0].trim(), resourceType, valueString);
+            MrcpResourceType resourceType = MrcpResourceType.lookup(valueString.substring(index + 1).trim());
+            if (resourceType == null) {
+                throw new IllegalValueException("Illegal resource type in Channel-Identifier value: " + valueString);
+            }
+            return new ChannelIdentifier(valueString.substring(0, index).trim(), resourceType, valueString);
         }
 
     }
@@ -47,7 +47,8 @@ public class GenericValueFactory extends BaseValueFactory {
      */
     public Object fromValueString(String valueString) throws IllegalValueException {
         try {
-            Object valueObject = _constructor.newInstance(valueString);
+            // string values need no conversion
+            Object valueObject = (getValueClass() == String.class) ? valueString : _constructor.newInstance(valueString);
             validateObject(valueObject);
             return valueObject;
         } catch (InvocationTargetException e) {
@@ -22,15 +22,41 @@
  */
 package org.mrcp4j.message.header;
 
+import org.mrcp4j.util.Utf8Encoder;
+
+import java.nio.ByteBuffer;
+
 /**
+ * A header field of an MRCP message.
+ *
+ * <p>Headers decoded from the network only hold the value string at first.  The value object is created from the
+ * value string the first time it is asked for, by {@link #getValueObject()} or {@link #isValidValue()}, and then
+ * cached, so headers that are never inspected cost neither the parsing of their value nor, for illegal values, the
+ * construction of an exception.  Only the error message of an illegal value is cached, the exception is created each
+ * time {@link #getValueObject()} throws it.</p>
+ *
+ * <p>Numeric and boolean values can also be read with the primitive accessors such as {@link #getLongValue()}, which
+ * parse the value string directly, applying the same validation as the value object, without boxing or otherwise
+ * allocating memory for valid values.</p>
+ *
+ * <p>Encoders write headers with {@link #encodeTo(java.nio.ByteBuffer)}, which copies the pre-encoded field-name of
+ * the {@link org.mrcp4j.message.header.MrcpHeaderName} and encodes the value directly into the output buffer.  Headers
+ * that are sent with many messages, such as the Channel-Identifier of a channel, can keep their complete encoded line
+ * (see {@link #cacheEncoding()}), which turns encoding them into a single bulk copy.</p>
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
 public class MrcpHeader {
 
+    /**
+     * Placeholder for the value object of a header whose value string has not been parsed yet.
+     */
+    private static final Object UNPARSED = new Object();
+
     private MrcpHeaderName _name;
     private String _valueString;
-    private Object _valueObject;
+    private volatile Object _valueObject;
+    private volatile byte[] _encodedLine;
 
     /*public MrcpHeader(MrcpHeaderName name, Object valueObject) {
         this(name, valueObject.toString(), valueObject);
@@ -42,6 +68,17 @@ public class MrcpHeader {
         _valueObject = valueObject;
     }
 
+    /**
+     * Constructs a header whose value object is created from the value string on first use.
+     * @param name the name of the header.
+     * @param valueString the value string of the header.
+     */
+    MrcpHeader(MrcpHeaderName name, String valueString) {
+        _name = name;
+        _valueString = valueString;
+        _valueObject = UNPARSED;
+    }
+
     public MrcpHeaderName getHeaderName() {
         return _name;
     }
@@ -51,31 +88,143 @@ public class MrcpHeader {
     }
 
     public boolean isValidValue() {
-        return !(_valueObject == null || _valueObject instanceof Throwable);
+        Object valueObject = parseValue();
+        return !(valueObject == null || valueObject instanceof IllegalValue || valueObject instanceof Throwable);
     }
 
     public Object getValueObject() throws IllegalValueException {
-        if (_valueObject == null) {
+        Object valueObject = parseValue();
+        if (valueObject == null) {
             throw new IllegalValueException("Value object could not be constructed for value string: " + _valueString);
         }
 
-        if (_valueObject instanceof Throwable) {
-            if (_valueObject instanceof IllegalValueException) {
-                throw (IllegalValueException) _valueObject;
+        if (valueObject instanceof IllegalValue) {
+            throw new IllegalValueException(((IllegalValue) valueObject)._message);
+        }
+
+        if (valueObject instanceof Throwable) {
+            if (valueObject instanceof IllegalValueException) {
+                throw (IllegalValueException) valueObject;
             }
             throw new IllegalValueException("Value object could not be constructed for value string: " +
-                    _valueString, (Throwable) _valueObject);
+                    _valueString, (Throwable) valueObject);
+        }
+
+        return valueObject;
+    }
+
+    /**
+     * Creates the value object from the value string unless this has been done before.  Threads racing to parse
+     * the same value create equal value objects, so it does not matter which of them is cached.
+     * @return the value object, or an {@code IllegalValue} holding the error message if the value is illegal.
+     */
+    private Object parseValue() {
+        Object valueObject = _valueObject;
+        if (valueObject == UNPARSED) {
+            try {
+                valueObject = _name.createHeaderValue(_valueString);
+            } catch (IllegalValueException e) {
+                // the exception and its stack trace are not kept
+                valueObject = new IllegalValue(e.getMessage());
+            }
+            _valueObject = valueObject;
         }
+        return valueObject;
+    }
+
+    /**
+     * Parses the value of the header as an integer, without creating the value object.
+     * @return the integer value of the header.
+     * @throws IllegalValueException if the value is not an integer or is not valid for the header.
+     */
+    public int getIntValue() throws IllegalValueException {
+        return getPrimitiveValueFactory().intValue(_valueString);
+    }
+
+    /**
+     * Parses the value of the header as a long integer, without creating the value object.
+     * @return the long integer value of the header.
+     * @throws IllegalValueException if the value is not an integer or is not valid for the header.
+     */
+    public long getLongValue() throws IllegalValueException {
+        return getPrimitiveValueFactory().longValue(_valueString);
+    }
 
-        return _valueObject;
+    /**
+     * Parses the value of the header as a floating point number, without creating the value object.
+     * @return the floating point value of the header.
+     * @throws IllegalValueException if the value is not a number or is not valid for the header.
+     */
+    public float getFloatValue() throws IllegalValueException {
+        return getPrimitiveValueFactory().floatValue(_valueString);
+    }
+
+    /**
+     * Parses the value of the header as a boolean, without creating the value object.
+     * @return true if the value of the header is <code>true</code>, ignoring case, false otherwise.
+     */
+    public boolean getBooleanValue() {
+        return getPrimitiveValueFactory().booleanValue(_valueString);
+    }
+
+    private PrimitiveValueFactory getPrimitiveValueFactory() {
+        ValueFactory factory = (_name == null) ? null : _name.getValueFactory();
+        return (factory instanceof PrimitiveValueFactory) ? (PrimitiveValueFactory) factory : PrimitiveValueFactory.UNCHECKED;
     }
 
     public String getValueString() {
         return _valueString;
     }
 
+    /**
+     * @return the field-name followed by a colon, encoded as sent on the wire.  The array must not be modified.
+     */
+    byte[] getEncodedName() {
+        return _name.getEncodedName();
+    }
+
+    /**
+     * Encodes the complete header line once and keeps it for all subsequent calls to
+     * {@link #encodeTo(java.nio.ByteBuffer)}.  Intended for headers that are added to many messages.
+     * @return this header.
+     */
+    public MrcpHeader cacheEncoding() {
+        if (_encodedLine == null) {
+            ByteBuffer line = ByteBuffer.allocate(getEncodedLength());
+            encodeTo(line);
+            _encodedLine = line.array();
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of bytes written by {@link #encodeTo(java.nio.ByteBuffer)}.
+     */
+    public int getEncodedLength() {
+        byte[] encodedLine = _encodedLine;
+        if (encodedLine != null) {
+            return encodedLine.length;
+        }
+        return getEncodedName().length + Utf8Encoder.length(String.valueOf(_valueString)) + 2;
+    }
+
+    /**
+     * Writes the header line, terminated by CRLF, in the form it is sent on the wire.
+     * @param buffer the buffer to write to, which must have at least {@link #getEncodedLength()} bytes remaining.
+     */
+    public void encodeTo(ByteBuffer buffer) {
+        byte[] encodedLine = _encodedLine;
+        if (encodedLine != null) {
+            buffer.put(encodedLine);
+            return;
+        }
+        buffer.put(getEncodedName());
+        Utf8Encoder.encode(String.valueOf(_valueString), buffer);
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
     public StringBuilder appendTo(StringBuilder sb) {
-        sb.append(_name);
+        sb.append(getNameString());
         sb.append(":");
         sb.append(_valueString);
         return sb;
@@ -86,4 +235,17 @@ public class MrcpHeader {
         return appendTo(new StringBuilder()).toString();
     }
 
+    /**
+     * Placeholder for the value object of a header whose value string is illegal.
+     */
+    private static class IllegalValue {
+
+        private String _message;
+
+        IllegalValue(String message) {
+            _message = message;
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -23,6 +23,9 @@
 package org.mrcp4j.message.header;
 
 import org.mrcp4j.MrcpResourceType;
+import org.mrcp4j.util.TokenTable;
+
+import java.nio.charset.StandardCharsets;
 
 import java.util.EnumSet;
 
@@ -289,7 +292,10 @@ public enum MrcpHeaderName {
             SPEECH_COMPLETE_TIMEOUT, NEW_AUDIO_CHANNEL, ABORT_VERIFICATION, START_INPUT_TIMERS
     );
 
+    private static final TokenTable<MrcpHeaderName> FIELD_NAMES = new TokenTable<MrcpHeaderName>(values());
+
     private String _name;
+    private byte[] _encodedName;
     private ValueFactory _valueFactory;
 
     private MrcpHeaderName(String name) {
@@ -298,14 +304,27 @@ public enum MrcpHeaderName {
     }
 
     private MrcpHeaderName(String name, Class valueClass) {
-        this(name, new GenericValueFactory(valueClass));
+        this(name, PrimitiveValueFactory.forClass(valueClass));
     }
 
     private MrcpHeaderName(String name, ValueFactory valueFactory) {
         _name = name;
+        _encodedName = (name + ':').getBytes(StandardCharsets.US_ASCII);
         _valueFactory = valueFactory;
     }
 
+    /**
+     * @return the field-name followed by the colon separating it from the field-value, encoded as sent on the wire.
+     *         The array is shared and must not be modified.
+     */
+    byte[] getEncodedName() {
+        return _encodedName;
+    }
+
+    ValueFactory getValueFactory() {
+        return _valueFactory;
+    }
+
     /**
      * Tests whether an MRCP header field-name in string format matches this enum instance.
      * @param name MRCP header field-name.
@@ -371,12 +390,34 @@ public enum MrcpHeaderName {
      * an existing MRCP header field-name
      */
     public static MrcpHeaderName fromString(String str) throws IllegalArgumentException {
-        for (MrcpHeaderName value : MrcpHeaderName.values()) {
-            if (value.toString().equalsIgnoreCase(str)) {
-                return value;
-            }
+        MrcpHeaderName value = lookup(str);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MRCP header field-name: " + str);
         }
-        throw new IllegalArgumentException("Invalid MRCP header field-name: " + str);
+        return value;
+    }
+
+    /**
+     * Resolves an MRCP header field-name in string format, without throwing an exception for unknown field-names.
+     * @param str MRCP header field-name
+     * @return the header name enum instance matching the field-name, ignoring case, or null if the field-name
+     *         is not an MRCP header field-name known to MRCP4J.
+     */
+    public static MrcpHeaderName lookup(String str) {
+        return (str == null) ? null : FIELD_NAMES.get(str);
+    }
+
+    /**
+     * Resolves an MRCP header field-name held in a range of bytes, as received from the network, without first
+     * converting it to a string.
+     * @param bytes array holding the field-name in US-ASCII encoding.
+     * @param offset the index of the first byte of the field-name.
+     * @param length the number of bytes of the field-name.
+     * @return the header name enum instance matching the field-name, ignoring case, or null if the field-name
+     *         is not an MRCP header field-name known to MRCP4J.
+     */
+    public static MrcpHeaderName fromBytes(byte[] bytes, int offset, int length) {
+        return FIELD_NAMES.get(bytes, offset, length);
     }
 
     public MrcpHeader constructHeader(Object valueObject) throws ClassCastException, IllegalArgumentException {
@@ -396,16 +437,13 @@ public enum MrcpHeaderName {
     }
 
     /**
-     * Creates a new {@code MrcpHeader} instance based on this {@code MrcpHeaderName}.
+     * Creates a new {@code MrcpHeader} instance based on this {@code MrcpHeaderName}.  The value string is
+     * not parsed until the value object of the header is first asked for.
      * @param valueString the string value for the new {@code MrcpHeader} instance.
      * @return a new instance using the {@code MrcpHeaderName} and supplied value.
      */
     public MrcpHeader createHeader(String valueString) {
-        try {
-            return new MrcpHeader(this, valueString, createHeaderValue(valueString));
-        } catch (IllegalValueException e) {
-            return new MrcpHeader(this, valueString, e);
-        }
+        return new MrcpHeader(this, valueString);
     }
 
     /**
@@ -415,35 +453,30 @@ public enum MrcpHeaderName {
      * @return a new instance of {@code MrcpHeaderName} using the supplied field-name and field-value.
      */
     public static MrcpHeader createHeader(String name, String valueString) {
-        MrcpHeaderName headerName = null;
-        try {
-            headerName = fromString(name);
-        } catch (IllegalArgumentException e) {
-            return new UnknownHeader(name, (valueString == null) ? "" : valueString.trim());
+        MrcpHeaderName headerName = FIELD_NAMES.get(name);
+        if (headerName == null) {
+            return createUnknownHeader(name, valueString);
         }
         return headerName.createHeader(valueString);
     }
 
     /**
-     * TODOC
+     * Factory method to create headers whose field-name is not known to MRCP4J, such as vendor specific headers.
+     * @param  name field-name of the header.
+     * @param  valueString field-value of the header.
+     * @return a new instance of {@code UnknownHeader} using the supplied field-name and field-value.
      */
-    private static class NonNegativeIntegerFactory extends GenericValueFactory {
+    public static MrcpHeader createUnknownHeader(String name, String valueString) {
+        return new UnknownHeader(name, (valueString == null) ? "" : valueString.trim());
+    }
 
-        private static final Integer VALUE_MIN = new Integer(0);
+    /**
+     * TODOC
+     */
+    private static class NonNegativeIntegerFactory extends PrimitiveValueFactory.IntegerFactory {
 
         protected NonNegativeIntegerFactory() {
-            super(Integer.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Integer value = (Integer) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0) {
-                throw new IllegalValueException("Illegal non-negative-integer value: " + valueObject);
-            }
+            super(0, Integer.MAX_VALUE, "non-negative-integer");
         }
 
     }
@@ -451,23 +484,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class PositiveIntegerFactory extends GenericValueFactory {
-
-        private static final Integer VALUE_MIN = new Integer(1);
+    private static class PositiveIntegerFactory extends PrimitiveValueFactory.IntegerFactory {
 
         protected PositiveIntegerFactory() {
-            super(Integer.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Integer value = (Integer) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0) {
-                throw new IllegalValueException("Illegal positive-integer value: " + valueObject);
-            }
+            super(1, Integer.MAX_VALUE, "positive-integer");
         }
 
     }
@@ -475,24 +495,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class ZeroOneFloatFactory extends GenericValueFactory {
-
-        private static final Float VALUE_MIN = new Float(0.0f);
-        private static final Float VALUE_MAX = new Float(1.0f);
+    private static class ZeroOneFloatFactory extends PrimitiveValueFactory.FloatFactory {
 
         protected ZeroOneFloatFactory() {
-            super(Float.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Float value = (Float) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal zero-one-float value: " + valueObject);
-            }
+            super(0.0f, 1.0f, "zero-one-float");
         }
 
     }
@@ -500,24 +506,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class MinusOnePlusOneFloatFactory extends GenericValueFactory {
-
-        private static final Float VALUE_MIN = new Float(-1.0f);
-        private static final Float VALUE_MAX = new Float(1.0f);
+    private static class MinusOnePlusOneFloatFactory extends PrimitiveValueFactory.FloatFactory {
 
         protected MinusOnePlusOneFloatFactory() {
-            super(Float.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Float value = (Float) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal minus_one-plus_one-float value: " + valueObject);
-            }
+            super(-1.0f, 1.0f, "minus_one-plus_one-float");
         }
 
     }
@@ -525,24 +517,10 @@ public enum MrcpHeaderName {
     /**
      * TODOC
      */
-    private static class TimeoutFactory extends GenericValueFactory {
-
-        private static final Long VALUE_MIN = new Long(0);
-        private static final Long VALUE_MAX = new Long(10 * 60 * 1000);  // arbitrary maximum but ten minutes should be sufficient!
+    private static class TimeoutFactory extends PrimitiveValueFactory.LongFactory {
 
         protected TimeoutFactory() {
-            super(Long.class);
-        }
-
-        /* (non-Javadoc)
-         * @see org.mrcp4j.message.header.GenericValueFactory#validateObject(java.lang.Object)
-         */
-        @Override
-        protected void validateObject(Object valueObject) throws IllegalValueException {
-            Long value = (Long) valueObject;
-            if (value.compareTo(VALUE_MIN) < 0 || value.compareTo(VALUE_MAX) > 0) {
-                throw new IllegalValueException("Illegal value for timeout: " + valueObject);
-            }
+            super(0, 10 * 60 * 1000, "timeout");  // arbitrary maximum but ten minutes should be sufficient!
         }
 
     }
@@ -0,0 +1,369 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+/**
+ * {@link org.mrcp4j.message.header.ValueFactory} for header values of a primitive type, parsed by hand-written
+ * parsers instead of the reflective constructor calls of {@link org.mrcp4j.message.header.GenericValueFactory}.
+ *
+ * <p>Besides creating boxed value objects, factories of this type back the primitive accessors of
+ * {@link org.mrcp4j.message.header.MrcpHeader} such as {@link org.mrcp4j.message.header.MrcpHeader#getLongValue()},
+ * which parse and validate the value string without boxing or any other allocation.  Values are only rejected with
+ * an {@link org.mrcp4j.message.header.IllegalValueException} if they are malformed or out of range.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+abstract class PrimitiveValueFactory extends BaseValueFactory {
+
+    /**
+     * Parses values of headers that have no primitive value type, without any range check.
+     */
+    static final PrimitiveValueFactory UNCHECKED = new PrimitiveValueFactory(String.class) {
+        public Object fromValueString(String valueString) {
+            return valueString;
+        }
+    };
+
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Largest mantissa that is represented exactly by a float.
+     */
+    private static final long FLOAT_EXACT_MANTISSA = 1L << 24;
+
+    protected PrimitiveValueFactory(Class<?> valueClass) {
+        super(valueClass);
+    }
+
+    /**
+     * Creates the factory to be used for headers whose values are of the specified class.
+     * @param valueClass the class of the value objects.
+     * @return a primitive value factory for boolean and numeric value classes, a generic factory otherwise.
+     */
+    static ValueFactory forClass(Class<?> valueClass) {
+        if (valueClass == Boolean.class) {
+            return new BooleanFactory();
+        }
+        if (valueClass == Integer.class) {
+            return new IntegerFactory(Integer.MIN_VALUE, Integer.MAX_VALUE, "integer");
+        }
+        if (valueClass == Long.class) {
+            return new LongFactory(Long.MIN_VALUE, Long.MAX_VALUE, "long");
+        }
+        if (valueClass == Float.class) {
+            return new FloatFactory(Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, "float");
+        }
+        return new GenericValueFactory(valueClass);
+    }
+
+    int intValue(String valueString) throws IllegalValueException {
+        long value = parseLong(valueString, Integer.MIN_VALUE, Integer.MAX_VALUE, "integer");
+        return (int) value;
+    }
+
+    long longValue(String valueString) throws IllegalValueException {
+        return parseLong(valueString, Long.MIN_VALUE, Long.MAX_VALUE, "long");
+    }
+
+    float floatValue(String valueString) throws IllegalValueException {
+        return parseFloat(valueString, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, "float");
+    }
+
+    boolean booleanValue(String valueString) {
+        return parseBoolean(valueString);
+    }
+
+    /**
+     * Parses a decimal integer, ignoring surrounding whitespace.
+     */
+    static long parseLong(String s, long min, long max, String type) throws IllegalValueException {
+        int start = skipWhitespace(s);
+        int end = trimWhitespace(s, start);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = (s.charAt(i++) == '-');
+        }
+        if (i == end) {
+            throw illegalValue(s, type);
+        }
+        // accumulate negatively so that Long.MIN_VALUE can be represented
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value < (limit + digit) / 10) {
+                throw illegalValue(s, type);
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            value = -value;
+        }
+        if (value < min || value > max) {
+            throw illegalValue(s, type);
+        }
+        return value;
+    }
+
+    /**
+     * Parses a decimal number with an optional fraction, ignoring surrounding whitespace.  Numbers of up to
+     * seven significant digits are computed directly and exactly, any other number format accepted by
+     * {@link java.lang.Float#parseFloat(java.lang.String)} is left to it.  Like that method, an unbounded range
+     * accepts <code>NaN</code> and <code>Infinity</code>, a bounded range rejects values outside of it, including
+     * <code>NaN</code>.
+     */
+    static float parseFloat(String s, float min, float max, String type) throws IllegalValueException {
+        int start = skipWhitespace(s);
+        int end = trimWhitespace(s, start);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = (s.charAt(i++) == '-');
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (++digits > 18) {
+                    break;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        float value;
+        if (i == end && digits > 0 && mantissa <= FLOAT_EXACT_MANTISSA &&
+                fractionDigits < FLOAT_POWERS_OF_TEN.length) {
+            // both operands are exact, so the single division is correctly rounded
+            value = (fractionDigits <= 0) ? (float) mantissa : (float) mantissa / FLOAT_POWERS_OF_TEN[fractionDigits];
+            if (negative) {
+                value = -value;
+            }
+        } else {
+            try {
+                value = Float.parseFloat(s.substring(start, end));
+            } catch (NumberFormatException e) {
+                throw illegalValue(s, type);
+            }
+        }
+        if (Float.isNaN(value) ? (min != Float.NEGATIVE_INFINITY || max != Float.POSITIVE_INFINITY)
+                               : (value < min || value > max)) {
+            throw illegalValue(s, type);
+        }
+        return value;
+    }
+
+    /**
+     * Parses a boolean the same way as {@link java.lang.Boolean#parseBoolean(java.lang.String)}, ignoring
+     * surrounding whitespace: any value other than <code>true</code> is false.
+     */
+    static boolean parseBoolean(String s) {
+        int start = skipWhitespace(s);
+        int end = trimWhitespace(s, start);
+        return end - start == 4 && s.regionMatches(true, start, "true", 0, 4);
+    }
+
+    private static int skipWhitespace(String s) {
+        int i = 0;
+        while (i < s.length() && s.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimWhitespace(String s, int start) {
+        int end = s.length();
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static IllegalValueException illegalValue(String valueString, String type) {
+        return new IllegalValueException("Illegal " + type + " value: " + valueString);
+    }
+
+    /**
+     * Factory for boolean values.
+     */
+    static class BooleanFactory extends PrimitiveValueFactory {
+
+        BooleanFactory() {
+            super(Boolean.class);
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+         */
+        public Object fromValueString(String valueString) {
+            return Boolean.valueOf(parseBoolean(valueString));
+        }
+
+    }
+
+    /**
+     * Factory for integer values within a range.
+     */
+    static class IntegerFactory extends PrimitiveValueFactory {
+
+        private int _min;
+        private int _max;
+        private String _type;
+
+        IntegerFactory(int min, int max, String type) {
+            super(Integer.class);
+            _min = min;
+            _max = max;
+            _type = type;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+         */
+        public Object fromValueString(String valueString) throws IllegalValueException {
+            return Integer.valueOf(intValue(valueString));
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.header.BaseValueFactory#validateObject(java.lang.Object)
+         */
+        @Override
+        protected void validateObject(Object valueObject) throws IllegalValueException {
+            int value = ((Integer) valueObject).intValue();
+            if (value < _min || value > _max) {
+                throw new IllegalValueException("Illegal " + _type + " value: " + valueObject);
+            }
+        }
+
+        @Override
+        int intValue(String valueString) throws IllegalValueException {
+            return (int) parseLong(valueString, _min, _max, _type);
+        }
+
+        @Override
+        long longValue(String valueString) throws IllegalValueException {
+            return parseLong(valueString, _min, _max, _type);
+        }
+
+    }
+
+    /**
+     * Factory for long integer values within a range.
+     */
+    static class LongFactory extends PrimitiveValueFactory {
+
+        private long _min;
+        private long _max;
+        private String _type;
+
+        LongFactory(long min, long max, String type) {
+            super(Long.class);
+            _min = min;
+            _max = max;
+            _type = type;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+         */
+        public Object fromValueString(String valueString) throws IllegalValueException {
+            return Long.valueOf(longValue(valueString));
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.header.BaseValueFactory#validateObject(java.lang.Object)
+         */
+        @Override
+        protected void validateObject(Object valueObject) throws IllegalValueException {
+            long value = ((Long) valueObject).longValue();
+            if (value < _min || value > _max) {
+                throw new IllegalValueException("Illegal " + _type + " value: " + valueObject);
+            }
+        }
+
+        @Override
+        int intValue(String valueString) throws IllegalValueException {
+            return (int) parseLong(valueString, Math.max(_min, Integer.MIN_VALUE), Math.min(_max, Integer.MAX_VALUE), _type);
+        }
+
+        @Override
+        long longValue(String valueString) throws IllegalValueException {
+            return parseLong(valueString, _min, _max, _type);
+        }
+
+    }
+
+    /**
+     * Factory for floating point values within a range.
+     */
+    static class FloatFactory extends PrimitiveValueFactory {
+
+        private float _min;
+        private float _max;
+        private String _type;
+
+        FloatFactory(float min, float max, String type) {
+            super(Float.class);
+            _min = min;
+            _max = max;
+            _type = type;
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.header.ValueFactory#fromValueString(java.lang.String)
+         */
+        public Object fromValueString(String valueString) throws IllegalValueException {
+            return Float.valueOf(floatValue(valueString));
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.message.header.BaseValueFactory#validateObject(java.lang.Object)
+         */
+        @Override
+        protected void validateObject(Object valueObject) throws IllegalValueException {
+            float value = ((Float) valueObject).floatValue();
+            if (Float.isNaN(value) ? (_min != Float.NEGATIVE_INFINITY || _max != Float.POSITIVE_INFINITY)
+                                   : (value < _min || value > _max)) {
+                throw new IllegalValueException("Illegal " + _type + " value: " + valueObject);
+            }
+        }
+
+        @Override
+        float floatValue(String valueString) throws IllegalValueException {
+            return parseFloat(valueString, _min, _max, _type);
+        }
+
+    }
+
+}
@@ -22,6 +22,8 @@
  */
 package org.mrcp4j.message.header;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
@@ -29,6 +31,7 @@ package org.mrcp4j.message.header;
 public class UnknownHeader extends MrcpHeader {
 
     private String _nameString;
+    private byte[] _encodedName;
 
     UnknownHeader(String name, String value) {
         super(null, value, value);
@@ -39,4 +42,17 @@ public class UnknownHeader extends MrcpHeader {
         return _nameString;
     }
 
+    /* (non-Javadoc)
+     * @see org.mrcp4j.message.header.MrcpHeader#getEncodedName()
+     */
+    @Override
+    byte[] getEncodedName() {
+        byte[] encodedName = _encodedName;
+        if (encodedName == null) {
+            encodedName = (_nameString + ':').getBytes(StandardCharsets.UTF_8);
+            _encodedName = encodedName;
+        }
+        return encodedName;
+    }
+
 }
\ No newline at end of file
@@ -24,6 +24,9 @@ package org.mrcp4j.message.request;
 
 import org.mrcp4j.MrcpMethodName;
 import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.util.Utf8Encoder;
+
+import java.nio.ByteBuffer;
 
 /**
  *
@@ -51,4 +54,24 @@ public abstract class MrcpRequest extends MrcpMessage {
         return sb;
     }
 
+    @Override
+    protected final int getStartLineLength() {
+        return Utf8Encoder.length(String.valueOf(getVersion())) + 1
+            + 1 + Utf8Encoder.length(getMethodName().toString())
+            + 1 + Utf8Encoder.decimalLength(getRequestID())
+            + CRLF.length();
+    }
+
+    @Override
+    protected final void encodeStartLine(ByteBuffer buffer) {
+        Utf8Encoder.encode(String.valueOf(getVersion()), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encodeDecimal(getMessageLength(), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encode(getMethodName().toString(), buffer);
+        buffer.put((byte) ' ');
+        Utf8Encoder.encodeDecimal(getRequestID(), buffer);
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
 }
\ No newline at end of file
@@ -32,8 +32,29 @@ import org.apache.mina.protocol.ProtocolEncoder;
  */
 public class MrcpCodecFactory implements ProtocolCodecFactory {
 
+    private volatile int _maxMessageLength = MrcpServerSocket.DEFAULT_MAX_MESSAGE_LENGTH;
+
+    /**
+     * Sets the maximum length in bytes of a request accepted by decoders created from now on.
+     * @param maxMessageLength the maximum message length in bytes, must be positive.
+     * @throws IllegalArgumentException if the message length is not positive.
+     */
+    public void setMaxMessageLength(int maxMessageLength) {
+        if (maxMessageLength < 1) {
+            throw new IllegalArgumentException("Maximum message length must be positive: " + maxMessageLength);
+        }
+        _maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * @return the maximum length in bytes of a request accepted by new decoders.
+     */
+    public int getMaxMessageLength() {
+        return _maxMessageLength;
+    }
+
     public ProtocolDecoder newDecoder() {
-        return new MrcpRequestDecoder();
+        return new MrcpRequestDecoder(_maxMessageLength);
     }
 
     public ProtocolEncoder newEncoder() {
@@ -0,0 +1,56 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+/**
+ * Determines the threads on which an {@link org.mrcp4j.server.MrcpServerSocket} processes received requests.
+ *
+ * <p>A request occupies its thread only while the request handler produces the response.  The events of a request
+ * remaining in progress are written to the client by the threads posting them, so no thread is held while the
+ * request waits for its events.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.server.MrcpServerSocket#setExecutionMode(org.mrcp4j.server.MrcpExecutionMode)
+ */
+public enum MrcpExecutionMode {
+
+    /**
+     * Requests are processed by a pool with a maximum number of threads.  Requests arriving while all threads are
+     * busy wait in a queue of limited size, requests arriving while the queue is full are rejected with a
+     * {@link org.mrcp4j.message.MrcpResponse#STATUS_SERVER_INTERNAL_ERROR} response.
+     */
+    BOUNDED_POOL,
+
+    /**
+     * Each request is processed by a new virtual thread, so request handlers that block cost no platform threads.
+     * Requires Java 21 or later, falls back to {@link #BOUNDED_POOL} on older runtimes.
+     */
+    VIRTUAL_THREAD,
+
+    /**
+     * Requests are processed directly on the I/O thread that decoded them.  Lowest latency for request handlers
+     * that never block, but a handler that blocks delays every other connection serviced by the same I/O thread.
+     */
+    CALLER_RUNS
+
+}
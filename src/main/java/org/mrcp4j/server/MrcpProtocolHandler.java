@@ -23,10 +23,14 @@
 package org.mrcp4j.server;
 
 import org.mrcp4j.MrcpRequestState;
-import org.mrcp4j.message.MrcpEvent;
 import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpServerMessage;
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.mina.protocol.ProtocolHandlerAdapter;
 import org.apache.mina.protocol.ProtocolSession;
 
@@ -36,10 +40,37 @@ import org.apache.mina.protocol.ProtocolSession;
  */
 public class MrcpProtocolHandler extends ProtocolHandlerAdapter {
 
+    private static Log _log = LogFactory.getLog(MrcpProtocolHandler.class);
+
     private MrcpRequestProcessor _requestProcessor;
+    private MrcpRequestExecutor _requestExecutor;
+    private boolean _ownsRequestExecutor;
 
+    /**
+     * Creates a handler processing requests with its own pool of threads, which must be released by calling
+     * {@link #close()} once the handler is no longer in use.
+     * @param requestProcessor the processor of received requests.
+     */
     public MrcpProtocolHandler(MrcpRequestProcessor requestProcessor) {
+        this(requestProcessor, new MrcpRequestExecutor(MrcpServerSocket.DEFAULT_EXECUTION_MODE,
+                MrcpServerSocket.DEFAULT_MAX_REQUEST_THREADS, MrcpServerSocket.DEFAULT_MAX_QUEUED_REQUESTS));
+        _ownsRequestExecutor = true;
+    }
+
+    MrcpProtocolHandler(MrcpRequestProcessor requestProcessor, MrcpRequestExecutor requestExecutor) {
         _requestProcessor = requestProcessor;
+        _requestExecutor = requestExecutor;
+    }
+
+    /**
+     * Releases the threads created by this handler, after the requests already received have been processed.
+     * Requests received afterwards are rejected.  Has no effect on a handler sharing the threads of an
+     * {@link org.mrcp4j.server.MrcpServerSocket}.
+     */
+    public void close() {
+        if (_ownsRequestExecutor) {
+            _requestExecutor.shutdown();
+        }
     }
 
     /* (non-Javadoc)
@@ -57,16 +88,39 @@ public class MrcpProtocolHandler extends ProtocolHandlerAdapter {
     @Override
     public void messageReceived(ProtocolSession session, Object message) {
         MrcpRequest request = (MrcpRequest) message;
-        new EventThread(_requestProcessor, session, request).start(); // TODO: move threading down chain
+        if (!_requestExecutor.execute(new RequestTask(_requestProcessor, session, request))) {
+            _log.warn("Request processing capacity exhausted, rejecting request " + request.getRequestID());
+            session.write(createErrorResponse(request, MrcpResponse.STATUS_SERVER_INTERNAL_ERROR));
+        }
     }
 
-    private static class EventThread extends Thread {
+    /**
+     * Creates the final response to a request that is rejected without being processed.
+     */
+    static MrcpResponse createErrorResponse(MrcpRequest request, short statusCode) {
+        MrcpResponse response = new MrcpResponse();
+        response.setVersion(request.getVersion());
+        response.setRequestID(request.getRequestID());
+        response.setStatusCode(statusCode);
+        response.setRequestState(MrcpRequestState.COMPLETE);
+        MrcpHeader channelID = request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER);
+        if (channelID != null) {
+            response.addHeader(channelID);
+        }
+        return response;
+    }
+
+    /**
+     * Processes a request and writes its response to the client.  The events of a request remaining in progress
+     * are written by the threads posting them, so the task ends as soon as the response has been written.
+     */
+    private static class RequestTask implements Runnable, MrcpServerMessageSink {
 
         private MrcpRequestProcessor _requestProcessor;
         private ProtocolSession _session;
         private MrcpRequest _request;
 
-        EventThread(MrcpRequestProcessor requestProcessor, ProtocolSession session, MrcpRequest request) {
+        RequestTask(MrcpRequestProcessor requestProcessor, ProtocolSession session, MrcpRequest request) {
             _request = request;
             _requestProcessor = requestProcessor;
             _session = session;
@@ -75,21 +129,18 @@ public class MrcpProtocolHandler extends ProtocolHandlerAdapter {
         /* (non-Javadoc)
          * @see java.lang.Runnable#run()
          */
-        @Override
         public void run() {
-            MrcpResponse response = _requestProcessor.processRequest(_request);
-            _session.write(response);
-
-            MrcpRequestState requestState = response.getRequestState();
-
-            while (!requestState.equals(MrcpRequestState.COMPLETE) && _session.isConnected()) {
-                MrcpEvent event = _requestProcessor.getNextEvent(_request);
-                if (event != null) {
-                    _session.write(event);
-                    requestState = event.getRequestState();
-                } else {
-                    break;
-                }
+            _requestProcessor.processRequest(_request, this);
+        }
+
+        /* (non-Javadoc)
+         * @see org.mrcp4j.server.MrcpServerMessageSink#write(org.mrcp4j.message.MrcpServerMessage)
+         */
+        public void write(MrcpServerMessage message) {
+            if (_session.isConnected()) {
+                _session.write(message);
+            } else if (_log.isDebugEnabled()) {
+                _log.debug("Client disconnected, dropping message for request " + _request.getRequestID());
             }
         }
     }
@@ -22,75 +22,118 @@
  */
 package org.mrcp4j.server;
 
+import org.mrcp4j.message.MrcpContent;
+import org.mrcp4j.message.MrcpMessageFraming;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.MrcpStartLineParser;
 import org.mrcp4j.message.header.IllegalValueException;
 import org.mrcp4j.message.header.MrcpHeader;
 import org.mrcp4j.message.header.MrcpHeaderName;
 import org.mrcp4j.message.request.MrcpRequest;
-import org.mrcp4j.message.request.MrcpRequestFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.mina.common.ByteBuffer;
-import org.apache.mina.protocol.ProtocolDecoder;
 import org.apache.mina.protocol.ProtocolDecoderOutput;
 import org.apache.mina.protocol.ProtocolSession;
 import org.apache.mina.protocol.ProtocolViolationException;
+import org.apache.mina.protocol.codec.CumulativeProtocolDecoder;
 
 /**
  * Decodes request messages received in MRCPv2 format into {@link org.mrcp4j.message.request.MrcpRequest} instances.
  *
+ * <p>TCP delivers the bytes of a connection in segments that bear no relation to message boundaries: a request may
+ * arrive spread over several reads, and a single read may carry several requests.  The decoder therefore accumulates
+ * the received bytes (see {@link org.apache.mina.protocol.codec.CumulativeProtocolDecoder}) and frames each request
+ * by the message-length field of its request-line.  A request is only decoded once all of its bytes have been
+ * received, and every complete request in the accumulated bytes is decoded before the decoder waits for more.  The
+ * message-length of a partially received request is remembered, so decoding resumes without scanning its
+ * request-line again, whether the request was split within its headers or within its body.</p>
+ *
+ * <p>Each request is copied out of the receive buffer once, and its body is kept as a view of that copy.</p>
+ *
+ * <p>A request whose message-length exceeds the maximum message length of the decoder is not accumulated.  It is
+ * answered with a {@link org.mrcp4j.message.MrcpResponse#STATUS_MESSAGE_TOO_LARGE} response as soon as its
+ * message-header has been received, and its remaining bytes are skipped as they arrive.</p>
+ *
  * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
  */
-public class MrcpRequestDecoder implements ProtocolDecoder {
+public class MrcpRequestDecoder extends CumulativeProtocolDecoder {
 
     private static Log _log = LogFactory.getLog(MrcpRequestDecoder.class);
 
-    private StringBuilder decodeBuf = new StringBuilder();
+    private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Maximum number of bytes of an oversized request examined for the request-id and Channel-Identifier of the
+     * response rejecting it.
+     */
+    private static final int REJECTED_HEADER_MAX_LENGTH = DEFAULT_BUFFER_SIZE;
+
+    private int _maxMessageLength;
+    private int _pendingMessageLength = -1;
+    private int _discardLength;
+
+    public MrcpRequestDecoder() {
+        this(MrcpServerSocket.DEFAULT_MAX_MESSAGE_LENGTH);
+    }
 
-    public void decode(ProtocolSession session, ByteBuffer in, ProtocolDecoderOutput out)
+    /**
+     * @param maxMessageLength the maximum length in bytes of a request accepted by this decoder.  Longer requests
+     *                         are answered with a {@link org.mrcp4j.message.MrcpResponse#STATUS_MESSAGE_TOO_LARGE}
+     *                         response and skipped without being buffered.
+     */
+    public MrcpRequestDecoder(int maxMessageLength) {
+        super(DEFAULT_BUFFER_SIZE);
+        _maxMessageLength = maxMessageLength;
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.protocol.codec.CumulativeProtocolDecoder#doDecode(org.apache.mina.protocol.ProtocolSession, org.apache.mina.common.ByteBuffer, org.apache.mina.protocol.ProtocolDecoderOutput)
+     */
+    @Override
+    protected boolean doDecode(ProtocolSession session, ByteBuffer in, ProtocolDecoderOutput out)
       throws ProtocolViolationException {
-        try {
 
-            // create request from request-line
-            MrcpRequest request = createRequest(readLine(in));
-            
-            // read message-header
-            String line = null;
-            while ( (line = readLine(in)) != null && !(line = line.trim()).equals("") ) {
-                // TODO: handle multi-line headers
-                int index = line.indexOf(':');
-                if (index < 1) {
-                    throw new ParseException("Incorrect message-header format!", -1);
-                }
-                String name = line.substring(0, index);
-                String value = line.substring(index + 1).trim();
-                MrcpHeader header = MrcpHeaderName.createHeader(name, value);
-
-                request.addHeader(header);
+        if (_discardLength > 0) {
+            return discard(in);
+        }
+        if (_pendingMessageLength < 0) {
+            // skip blank lines between messages
+            while (in.hasRemaining() && MrcpMessageFraming.isWhitespace(in.get(in.position()))) {
+                in.get();
             }
-
-            // read request message body if present
-            MrcpHeader contentLengthHeader = request.getHeader(MrcpHeaderName.CONTENT_LENGTH);
-            int contentLength = 0;
             try {
-                contentLength = (contentLengthHeader == null) ? 0 : ((Integer) contentLengthHeader.getValueObject()).intValue();
-            } catch (IllegalValueException e) {
-                throw new ProtocolViolationException(e.getMessage(), e);
+                _pendingMessageLength = MrcpMessageFraming.readMessageLength(in.buf());
+            } catch (ParseException e) {
+                throw (ProtocolViolationException) new ProtocolViolationException(e.getMessage()).initCause(e);
             }
-            if (contentLength > 0) {
-                StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < contentLength; i++) {
-                    byte b = in.get();
-                    sb.append((char) b);
-                } // TODO: handle exceptions
-                request.setContent(sb.toString());
+            if (_pendingMessageLength < 0) {
+                return false;
             }
+        }
+        if (_pendingMessageLength > _maxMessageLength) {
+            if (!rejectOversizedRequest(session, in)) {
+                return false;
+            }
+            _discardLength = _pendingMessageLength;
+            _pendingMessageLength = -1;
+            return discard(in);
+        }
+        if (in.remaining() < _pendingMessageLength) {
+            return false;
+        }
 
-            // write request object to out
-            out.write(request);
+        // consume the message from the buffer before parsing so a malformed message is skipped as a whole
+        byte[] bytes = new byte[_pendingMessageLength];
+        in.get(bytes);
+        _pendingMessageLength = -1;
 
+        try {
+            out.write(decode(bytes));
         } catch (ParseException e) {
             //TODO: return 408 response to client?
             _log.debug(e, e);
@@ -99,83 +142,126 @@ public class MrcpRequestDecoder implements ProtocolDecoder {
             _log.debug(e, e);
             throw e;
         }
+        return true;
     }
 
-    private String readLine(ByteBuffer in) {
-        if (!in.hasRemaining()) {
-            return null;
-        }
+    /**
+     * Skips the received bytes of a request that was rejected as too large.
+     */
+    private boolean discard(ByteBuffer in) {
+        int count = Math.min(_discardLength, in.remaining());
+        in.position(in.position() + count);
+        _discardLength -= count;
+        return true;
+    }
 
-        decodeBuf.delete(0, decodeBuf.length());
-        boolean done = false;
-        do {
-            byte b = in.get();
-            switch(b) {
-            case '\r':
-                break;
-            case '\n':
-                done = true;
+    /**
+     * Answers a request longer than the maximum message length with a response rejecting it, as soon as its
+     * request-line and message-header have been received.  Only the first bytes of the request are examined.
+     * @return false if more bytes are needed to address the response.
+     */
+    private boolean rejectOversizedRequest(ProtocolSession session, ByteBuffer in) throws ProtocolViolationException {
+        int limit = Math.min(_pendingMessageLength, REJECTED_HEADER_MAX_LENGTH);
+        int length = Math.min(in.remaining(), limit);
+        byte[] bytes = new byte[length];
+        in.buf().duplicate().get(bytes);
+
+        // only complete lines are examined, up to the empty line ending the message-header
+        int end = 0;
+        boolean headerComplete = false;
+        while (end < length && !headerComplete) {
+            int newline = MrcpMessageFraming.indexOf(bytes, end, length, (byte) '\n');
+            if (newline < 0) {
                 break;
-            default:
-                decodeBuf.append((char) b);
             }
-        } while (!done && in.hasRemaining());
+            headerComplete = (end > 0 && MrcpMessageFraming.isBlank(bytes, end, newline));
+            end = newline + 1;
+        }
+        if (!headerComplete && length < limit) {
+            return false;
+        }
 
-        return decodeBuf.toString();
+        MrcpRequest request;
+        try {
+            int lineEnd = MrcpMessageFraming.indexOfLineEnd(bytes, 0, end);
+            request = MrcpStartLineParser.parseRequestLine(bytes, 0, lineEnd);
+            decodeHeaders(request, bytes, MrcpMessageFraming.skipLineEnd(bytes, lineEnd, end), end);
+        } catch (ParseException e) {
+            _log.debug(e, e);
+            throw (ProtocolViolationException) new ProtocolViolationException(e.getMessage()).initCause(e);
+        }
+        _log.warn("Rejecting request " + request.getRequestID() + ", message-length " + _pendingMessageLength +
+                " exceeds the maximum message length of " + _maxMessageLength + " bytes");
+        session.write(MrcpProtocolHandler.createErrorResponse(request, MrcpResponse.STATUS_MESSAGE_TOO_LARGE));
+        return true;
     }
 
-    private static final int REQUEST_LINE_MRCP_VERSION_PART   = 0;
-    private static final int REQUEST_LINE_MESSAGE_LENGTH_PART = 1;
-    private static final int REQUEST_LINE_METHOD_NAME_PART    = 2;
-    private static final int REQUEST_LINE_REQUEST_ID_PART     = 3;
-    private static final int REQUEST_LINE_PART_COUNT          = 4;
+    private static MrcpRequest decode(byte[] bytes) throws ParseException {
+        int end = bytes.length;
 
-    public static MrcpRequest createRequest(String requestLine) throws ParseException {
+        // create request from request-line
+        int lineEnd = MrcpMessageFraming.indexOfLineEnd(bytes, 0, end);
+        MrcpRequest request = MrcpStartLineParser.parseRequestLine(bytes, 0, lineEnd);
+        int pos = decodeHeaders(request, bytes, MrcpMessageFraming.skipLineEnd(bytes, lineEnd, end), end);
 
-        if (requestLine == null || (requestLine = requestLine.trim()).length() < 1) {
-            throw new ParseException("No request-line provided!", -1);
+        // read request message body if present
+        MrcpHeader contentLengthHeader = request.getHeader(MrcpHeaderName.CONTENT_LENGTH);
+        int contentLength = 0;
+        try {
+            contentLength = (contentLengthHeader == null) ? 0 : contentLengthHeader.getIntValue();
+        } catch (IllegalValueException e) {
+            throw (ParseException) new ParseException(e.getMessage(), -1).initCause(e);
         }
-
-        String[] requestLineParts = requestLine.split(" ");
-        if (requestLineParts.length != REQUEST_LINE_PART_COUNT) {
-            throw new ParseException("Incorrect request-line format!", -1);
+        if (contentLength > 0) {
+            if (contentLength > end - pos) {
+                throw new ParseException("Content-Length " + contentLength + " exceeds message-length, only " +
+                        (end - pos) + " bytes of content available", -1);
+            }
+            // the body is decoded in the charset named by the Content-Type header only if the application asks
+            // for it as text
+            request.setMessageBody(MrcpContent.wrap(bytes, pos, contentLength,
+                    MrcpContent.charsetOf(request.getContentType())));
         }
 
-        MrcpRequest request = null;
+        return request;
+    }
 
-        // construct request from method-name
-        try {
-            request = MrcpRequestFactory.createRequest(requestLineParts[REQUEST_LINE_METHOD_NAME_PART]);
-        } catch (IllegalArgumentException e){
-            String message = "Incorrect method-name format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
+    /**
+     * Adds the header fields of the message-header starting at {@code pos} to the request.
+     * @return the offset following the empty line that ends the message-header, or {@code end}.
+     */
+    private static int decodeHeaders(MrcpRequest request, byte[] bytes, int pos, int end) throws ParseException {
+        while (pos < end) {
+            int lineEnd = MrcpMessageFraming.indexOfLineEnd(bytes, pos, end);
+            int lineStart = pos;
+            pos = MrcpMessageFraming.skipLineEnd(bytes, lineEnd, end);
+            if (MrcpMessageFraming.isBlank(bytes, lineStart, lineEnd)) {
+                break;
+            }
+            // TODO: handle multi-line headers
+            int index = MrcpMessageFraming.indexOf(bytes, lineStart, lineEnd, (byte) ':');
+            if (index < 0 || MrcpMessageFraming.isBlank(bytes, lineStart, index)) {
+                throw new ParseException("Incorrect message-header format!", -1);
+            }
+            int nameStart = MrcpMessageFraming.skipWhitespace(bytes, lineStart, index);
+            int nameEnd = MrcpMessageFraming.trimWhitespace(bytes, nameStart, index);
+            MrcpHeaderName headerName = MrcpHeaderName.fromBytes(bytes, nameStart, nameEnd - nameStart);
+            String value = new String(bytes, index + 1, lineEnd - index - 1, StandardCharsets.UTF_8).trim();
+            MrcpHeader header = (headerName != null) ? headerName.createHeader(value) : MrcpHeaderName.createUnknownHeader(
+                    new String(bytes, nameStart, nameEnd - nameStart, StandardCharsets.US_ASCII), value);
+            request.addHeader(header);
         }
+        return pos;
+    }
 
-        // mrcp-version
-        request.setVersion(requestLineParts[REQUEST_LINE_MRCP_VERSION_PART]);  //TODO: need to check here if version is supported, or maybe at higher level...
-
-        // message-length
-        try {
-            request.setMessageLength(
-                Integer.parseInt(requestLineParts[REQUEST_LINE_MESSAGE_LENGTH_PART])
-            );
-        } catch (NumberFormatException e){
-            String message = "Incorrect message-length format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
-        }
+    public static MrcpRequest createRequest(String requestLine) throws ParseException {
 
-        // request-id
-        try {
-            request.setRequestID(
-                Long.parseLong(requestLineParts[REQUEST_LINE_REQUEST_ID_PART])
-            );
-        } catch (NumberFormatException e){
-            String message = "Incorrect request-id format!";
-            throw (ParseException) new ParseException(message, -1).initCause(e);
+        if (requestLine == null || (requestLine = requestLine.trim()).length() < 1) {
+            throw new ParseException("No request-line provided!", -1);
         }
 
-        return request;
+        byte[] bytes = requestLine.getBytes(StandardCharsets.US_ASCII);
+        return MrcpStartLineParser.parseRequestLine(bytes, 0, bytes.length);
     }
 
-
 }
@@ -0,0 +1,220 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mrcp4j.util.NamedThreadFactory;
+import org.mrcp4j.util.VirtualThreads;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the processing of requests received by an {@link org.mrcp4j.server.MrcpServerSocket} according to its
+ * {@link org.mrcp4j.server.MrcpExecutionMode} and keeps track of the queued and active requests (for internal
+ * library use only).
+ *
+ * <p>The execution settings may be changed while requests are being processed.  Requests received afterwards are
+ * run by the new executor, while requests already queued or running complete on the previous one.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+class MrcpRequestExecutor {
+
+    private static Log _log = LogFactory.getLog(MrcpRequestExecutor.class);
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        public void execute(Runnable task) {
+            task.run();
+        }
+    };
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    // the following fields are guarded by this
+    private MrcpExecutionMode _mode;
+    private int _maxThreads;
+    private int _maxQueued;
+    private ExecutorService _executorService;
+
+    private volatile Executor _executor;
+
+    private AtomicInteger _queuedCount = new AtomicInteger();
+    private AtomicInteger _activeCount = new AtomicInteger();
+    private AtomicLong _completedCount = new AtomicLong();
+    private AtomicLong _rejectedCount = new AtomicLong();
+
+    /**
+     * @param mode       the execution mode.
+     * @param maxThreads the maximum number of threads, only used in {@link MrcpExecutionMode#BOUNDED_POOL} mode.
+     * @param maxQueued  the maximum number of waiting requests, only used in {@link MrcpExecutionMode#BOUNDED_POOL}
+     *                   mode.
+     */
+    MrcpRequestExecutor(MrcpExecutionMode mode, int maxThreads, int maxQueued) {
+        configure(mode, maxThreads, maxQueued);
+    }
+
+    /**
+     * Replaces the executor running subsequently received requests.  The previous executor is shut down once the
+     * requests queued to it have been processed.
+     */
+    synchronized void configure(MrcpExecutionMode mode, int maxThreads, int maxQueued) {
+        if (mode == null) {
+            throw new NullPointerException("Execution mode argument was null!");
+        }
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Maximum request threads must be positive: " + maxThreads);
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Maximum queued requests must not be negative: " + maxQueued);
+        }
+
+        ExecutorService previous = _executorService;
+        ExecutorService executorService = null;
+        Executor executor;
+        if (mode == MrcpExecutionMode.VIRTUAL_THREAD) {
+            executorService = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            if (executorService == null) {
+                _log.warn("Virtual threads not supported by this JVM, falling back to " + MrcpExecutionMode.BOUNDED_POOL);
+                mode = MrcpExecutionMode.BOUNDED_POOL;
+            }
+        }
+        switch (mode) {
+        case BOUNDED_POOL:
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                (maxQueued == 0) ? new SynchronousQueue<Runnable>()
+                                 : new LinkedBlockingQueue<Runnable>(maxQueued),
+                new NamedThreadFactory("MRCP server request", true));
+            pool.allowCoreThreadTimeOut(true);
+            executorService = pool;
+            executor = pool;
+            break;
+        case CALLER_RUNS:
+            executor = DIRECT_EXECUTOR;
+            break;
+        default:
+            executor = executorService;
+            break;
+        }
+
+        _mode = mode;
+        _maxThreads = maxThreads;
+        _maxQueued = maxQueued;
+        _executorService = executorService;
+        _executor = executor;
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Shuts down the current executor once the requests queued to it have been processed.  Requests received
+     * afterwards are rejected.
+     */
+    synchronized void shutdown() {
+        if (_executorService != null) {
+            _executorService.shutdown();
+        }
+    }
+
+    synchronized MrcpExecutionMode getMode() {
+        return _mode;
+    }
+
+    synchronized int getMaxThreads() {
+        return _maxThreads;
+    }
+
+    synchronized int getMaxQueued() {
+        return _maxQueued;
+    }
+
+    /**
+     * Runs the processing of a request.
+     * @param task the processing of the request.
+     * @return true if the task has been run or accepted for running, false if it was rejected because all threads
+     *         are busy and the queue is full.
+     */
+    boolean execute(final Runnable task) {
+        Runnable trackedTask = new Runnable() {
+            public void run() {
+                _queuedCount.decrementAndGet();
+                _activeCount.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    _activeCount.decrementAndGet();
+                    _completedCount.incrementAndGet();
+                }
+            }
+        };
+
+        _queuedCount.incrementAndGet();
+        Executor executor = _executor;
+        while (true) {
+            try {
+                executor.execute(trackedTask);
+                return true;
+            } catch (RejectedExecutionException e) {
+                if (executor == _executor) {
+                    _queuedCount.decrementAndGet();
+                    _rejectedCount.incrementAndGet();
+                    return false;
+                }
+                // the executor was replaced and shut down concurrently, retry with the new one
+                executor = _executor;
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for a thread.
+     */
+    int getQueuedCount() {
+        return _queuedCount.get();
+    }
+
+    /**
+     * @return the number of requests whose response is being produced.
+     */
+    int getActiveCount() {
+        return _activeCount.get();
+    }
+
+    long getCompletedCount() {
+        return _completedCount.get();
+    }
+
+    long getRejectedCount() {
+        return _rejectedCount.get();
+    }
+
+}
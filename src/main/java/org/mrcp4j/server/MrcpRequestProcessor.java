@@ -34,6 +34,16 @@ public interface MrcpRequestProcessor {
 
     public MrcpResponse processRequest(MrcpRequest request);
 
+    /**
+     * Processes a request without waiting for its events.  The response and, for a request remaining in progress,
+     * each event subsequently posted to its {@link org.mrcp4j.server.MrcpSession} are written to the specified sink
+     * in order, on the thread producing them, so no thread is held while the request is in progress.
+     * @param request the request to process.
+     * @param sink    receives the response and the events of the request.
+     * @return the response, already written to the sink.
+     */
+    public MrcpResponse processRequest(MrcpRequest request, MrcpServerMessageSink sink);
+
     public MrcpEvent getNextEvent(MrcpRequest request);
 
 }
@@ -59,11 +59,18 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
 
 
     public MrcpResponse processRequest(MrcpRequest request) {
+        return processRequest(request, null);
+    }
+
+    /* (non-Javadoc)
+     * @see org.mrcp4j.server.MrcpRequestProcessor#processRequest(org.mrcp4j.message.request.MrcpRequest, org.mrcp4j.server.MrcpServerMessageSink)
+     */
+    public MrcpResponse processRequest(MrcpRequest request, MrcpServerMessageSink sink) {
         _log.debug("MrcpRequestProcessorImpl.processRequest()...");
 
         MrcpResponse response = null;
 
-        MrcpSessionImpl session = new MrcpSessionImpl(request);
+        MrcpSessionImpl session = new MrcpSessionImpl(request, sink);
 
         try {
             ChannelIdentifier channelIdentifier = request.getChannelIdentifier();
@@ -92,10 +99,14 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
                                     MrcpResponse.STATUS_SERVER_INTERNAL_ERROR, MrcpRequestState.COMPLETE);
                         } else {
                             _log.debug("MrcpRequestProcessorImpl got response from request handler.");
+                            if (sink != null) {
+                                // still holding the session lock, so that no event can overtake the response
+                                sink.write(response);
+                            }
                             session._ready = true;
                             if (response.getRequestState().equals(MrcpRequestState.COMPLETE)) {
                                 session._complete = true;
-                            } else {
+                            } else if (sink == null) {
                                 _sessions.put(getRequestKey(request), session);
                             }
                         }
@@ -107,6 +118,9 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
             response.addHeader(request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER));
         }
 
+        if (sink != null && !session._ready) {
+            sink.write(response);
+        }
 
         return response;
     }
@@ -119,7 +133,8 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
         return _requestHandlers.remove(channelID);
     }
 
-    // TODOC: Once this method has returned a null event or an event with MrcpRequestState.COMPLETE
+    // TODOC: Only applies to requests processed without a sink.
+    //        Once this method has returned a null event or an event with MrcpRequestState.COMPLETE
     //        the method can no longer be called for the same request or an IllegalStateException will be thrown.
     public MrcpEvent getNextEvent(MrcpRequest request) {
 
@@ -158,9 +173,11 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
         boolean _complete = false;
 
         private MrcpRequest _request;
+        private MrcpServerMessageSink _sink;
 
-        private MrcpSessionImpl(MrcpRequest request) {
+        private MrcpSessionImpl(MrcpRequest request, MrcpServerMessageSink sink) {
             _request = request;
+            _sink = sink;
         }
 
         /* (non-Javadoc)
@@ -218,6 +235,12 @@ public class MrcpRequestProcessorImpl implements MrcpRequestProcessor {
                 throw new NullPointerException("Event argument was null!");
             }
 
+            if (_sink != null) {
+                _sink.write(event);
+                _complete = event.getRequestState().equals(MrcpRequestState.COMPLETE);
+                return;
+            }
+
             BlockingQueue<ObjectWrapper<MrcpEvent>> eventQueue = null;
             synchronized (_lock) {
                 eventQueue = _eventQueue;
@@ -0,0 +1,43 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import org.mrcp4j.message.MrcpServerMessage;
+
+/**
+ * Receives the response to a request and the events subsequently posted for it, in the order they are to be sent
+ * to the client.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ * @see org.mrcp4j.server.MrcpRequestProcessor#processRequest(org.mrcp4j.message.request.MrcpRequest, org.mrcp4j.server.MrcpServerMessageSink)
+ */
+public interface MrcpServerMessageSink {
+
+    /**
+     * Sends a response or event to the client.  Called on the thread producing the message, which may be a
+     * request handler thread or a thread posting an event, so implementations must not block.
+     * @param message the response or event to send.
+     */
+    public void write(MrcpServerMessage message);
+
+}
@@ -33,7 +33,9 @@ import org.mrcp4j.server.delegator.RecorderRequestDelegator;
 import org.mrcp4j.server.delegator.SpeakVerifyRequestDelegator;
 import org.mrcp4j.server.delegator.SpeechSynthRequestDelegator;
 import org.mrcp4j.server.delegator.VoiceEnrollmentRequestDelegator;
+import org.mrcp4j.server.mina.IoSSLFilter;
 import org.mrcp4j.server.mina.IoTextLoggingFilter;
+import org.mrcp4j.server.mina.IoWriteCoalescingFilter;
 import org.mrcp4j.server.mina.SimpleProtocolProvider;
 import org.mrcp4j.server.provider.RecogOnlyRequestHandler;
 import org.mrcp4j.server.provider.RecorderRequestHandler;
@@ -44,9 +46,11 @@ import org.mrcp4j.server.provider.VoiceEnrollmentRequestHandler;
 import java.io.IOException;
 import java.util.concurrent.TimeoutException;
 
+import javax.net.ssl.SSLContext;
+
 import org.apache.mina.common.TransportType;
 import org.apache.mina.io.IoAcceptor;
-import org.apache.mina.protocol.ProtocolCodecFactory;
+import org.apache.mina.io.filter.SSLFilter;
 import org.apache.mina.registry.Service;
 import org.apache.mina.registry.ServiceRegistry;
 import org.apache.mina.registry.SimpleServiceRegistry;
@@ -62,10 +66,35 @@ public class MrcpServerSocket {
 
     private static Log _log = LogFactory.getLog(MrcpServerSocket.class);
 
-    private static ProtocolCodecFactory CODEC_FACTORY = new MrcpCodecFactory();
+    /**
+     * Default mode for processing received requests.
+     */
+    public static final MrcpExecutionMode DEFAULT_EXECUTION_MODE = MrcpExecutionMode.BOUNDED_POOL;
+
+    /**
+     * Default maximum number of threads processing requests in {@link MrcpExecutionMode#BOUNDED_POOL} mode.
+     */
+    public static final int DEFAULT_MAX_REQUEST_THREADS = 256;
+
+    /**
+     * Default maximum number of requests waiting for a thread in {@link MrcpExecutionMode#BOUNDED_POOL} mode.
+     */
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = 1024;
+
+    /**
+     * Default maximum length in bytes of a request accepted from a client.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
+
+    private MrcpCodecFactory _codecFactory = new MrcpCodecFactory();
 
     private MrcpRequestProcessorImpl _requestProcessorImpl;
 
+    private MrcpRequestExecutor _requestExecutor = new MrcpRequestExecutor(DEFAULT_EXECUTION_MODE,
+            DEFAULT_MAX_REQUEST_THREADS, DEFAULT_MAX_QUEUED_REQUESTS);
+
+    private IoWriteCoalescingFilter _writeCoalescingFilter = new IoWriteCoalescingFilter();
+
     private int _port;
 
     /**
@@ -75,14 +104,34 @@ public class MrcpServerSocket {
      * @throws IOException if an I/O error occurs when opening the socket.
      */
     public MrcpServerSocket(int port) throws IOException {
+        this(port, null);
+    }
+
+    /**
+     * Creates a MRCP server socket for the TCP/TLS/MRCPv2 transport, bound to the specified port.
+     *
+     * <p>TLS sessions are cached by the server session context of the {@code SSLContext}, so that clients
+     * reconnecting or opening additional connections can resume their session with an abbreviated handshake.
+     * The size and lifetime of the cache can be tuned through {@link javax.net.ssl.SSLContext#getServerSessionContext()}.</p>
+     *
+     * @param port       the port number to bind to
+     * @param sslContext the context providing the server certificate, or null to accept plain TCP connections
+     * @throws IOException if an I/O error occurs when opening the socket.
+     */
+    public MrcpServerSocket(int port, SSLContext sslContext) throws IOException {
         _port = port;
 
         _requestProcessorImpl = new MrcpRequestProcessorImpl();
 
         ServiceRegistry registry = new SimpleServiceRegistry();
+        if (sslContext != null) {
+            addSSLFilter(registry, sslContext);
+        }
         addLogger(registry);
+        registry.getIoAcceptor(TransportType.SOCKET).getFilterChain().addLast("coalescer", _writeCoalescingFilter);
         Service service = new Service("MRCPv2", TransportType.SOCKET, port);
-        registry.bind(service, new SimpleProtocolProvider(CODEC_FACTORY, new MrcpProtocolHandler(_requestProcessorImpl)));
+        registry.bind(service, new SimpleProtocolProvider(_codecFactory,
+                new MrcpProtocolHandler(_requestProcessorImpl, _requestExecutor)));
 
         if (_log.isDebugEnabled()) {
             _log.debug("MRCPv2 protocol provider listening on port " + port);
@@ -98,6 +147,127 @@ public class MrcpServerSocket {
         return _port;
     }
 
+    /**
+     * Retrieves the number of writes to client connections, each of which may carry several responses and
+     * events that were coalesced while a previous write to the same connection was in progress.
+     * @return the number of socket writes since this server socket was created.
+     */
+    public long getFlushCount() {
+        return _writeCoalescingFilter.getFlushCount();
+    }
+
+    /**
+     * Retrieves the average number of responses and events carried by each write to a client connection.
+     * @return the average number of messages per socket write, or 0 if nothing was written yet.
+     */
+    public double getMessagesPerFlush() {
+        return _writeCoalescingFilter.getMessagesPerFlush();
+    }
+
+    /**
+     * Sets the maximum length in bytes of a request accepted from a client.  A longer request is answered with a
+     * {@link org.mrcp4j.message.MrcpResponse#STATUS_MESSAGE_TOO_LARGE} response and skipped without being buffered.
+     * Only affects connections accepted from now on.
+     * @param maxMessageLength the maximum message length in bytes, must be positive.
+     * @throws IllegalArgumentException if the message length is not positive.
+     */
+    public void setMaxMessageLength(int maxMessageLength) {
+        _codecFactory.setMaxMessageLength(maxMessageLength);
+    }
+
+    /**
+     * @return the maximum length in bytes of a request accepted from a client.
+     */
+    public int getMaxMessageLength() {
+        return _codecFactory.getMaxMessageLength();
+    }
+
+    /**
+     * Sets the threads on which received requests are processed.  May be changed at any time, requests already
+     * queued or being processed complete on the threads they were handed to.
+     * @param executionMode the execution mode.
+     */
+    public void setExecutionMode(MrcpExecutionMode executionMode) {
+        synchronized (_requestExecutor) {
+            _requestExecutor.configure(executionMode, _requestExecutor.getMaxThreads(), _requestExecutor.getMaxQueued());
+        }
+    }
+
+    /**
+     * @return the threads on which received requests are processed.
+     */
+    public MrcpExecutionMode getExecutionMode() {
+        return _requestExecutor.getMode();
+    }
+
+    /**
+     * Sets the maximum number of threads processing requests in {@link MrcpExecutionMode#BOUNDED_POOL} mode.
+     * A request occupies its thread only while its request handler produces the response.
+     * @param maxRequestThreads the maximum number of threads, must be at least one.
+     * @throws IllegalArgumentException if the thread count is less than one.
+     */
+    public void setMaxRequestThreads(int maxRequestThreads) {
+        synchronized (_requestExecutor) {
+            _requestExecutor.configure(_requestExecutor.getMode(), maxRequestThreads, _requestExecutor.getMaxQueued());
+        }
+    }
+
+    /**
+     * @return the maximum number of threads processing requests in {@link MrcpExecutionMode#BOUNDED_POOL} mode.
+     */
+    public int getMaxRequestThreads() {
+        return _requestExecutor.getMaxThreads();
+    }
+
+    /**
+     * Sets the maximum number of requests waiting for a thread in {@link MrcpExecutionMode#BOUNDED_POOL} mode.
+     * Requests received while the queue is full are rejected with a
+     * {@link org.mrcp4j.message.MrcpResponse#STATUS_SERVER_INTERNAL_ERROR} response.
+     * @param maxQueuedRequests the maximum number of waiting requests, zero to reject requests whenever all
+     *                          threads are busy.
+     * @throws IllegalArgumentException if the queue size is negative.
+     */
+    public void setMaxQueuedRequests(int maxQueuedRequests) {
+        synchronized (_requestExecutor) {
+            _requestExecutor.configure(_requestExecutor.getMode(), _requestExecutor.getMaxThreads(), maxQueuedRequests);
+        }
+    }
+
+    /**
+     * @return the maximum number of requests waiting for a thread in {@link MrcpExecutionMode#BOUNDED_POOL} mode.
+     */
+    public int getMaxQueuedRequests() {
+        return _requestExecutor.getMaxQueued();
+    }
+
+    /**
+     * @return the number of received requests currently waiting for a thread to process them.
+     */
+    public int getQueuedRequestCount() {
+        return _requestExecutor.getQueuedCount();
+    }
+
+    /**
+     * @return the number of requests whose request handler is currently producing the response.
+     */
+    public int getActiveRequestCount() {
+        return _requestExecutor.getActiveCount();
+    }
+
+    /**
+     * @return the number of requests answered with a response since this server socket was created.
+     */
+    public long getCompletedRequestCount() {
+        return _requestExecutor.getCompletedCount();
+    }
+
+    /**
+     * @return the number of requests rejected because all threads were busy and the queue was full.
+     */
+    public long getRejectedRequestCount() {
+        return _requestExecutor.getRejectedCount();
+    }
+
     public void openChannel(String channelID, RecogOnlyRequestHandler requestHandler) {
         validateChannelID(channelID, RecogOnlyRequestHandler.RESOURCE_TYPES);
         openChannel(channelID, new RecogOnlyRequestDelegator(requestHandler));
@@ -144,6 +314,15 @@ public class MrcpServerSocket {
         _requestProcessorImpl.unregisterRequestHandler(channelID);
     }
 
+    private static void addSSLFilter(ServiceRegistry registry, SSLContext sslContext) {
+        SSLFilter sslFilter = new IoSSLFilter(sslContext);
+        sslFilter.setUseClientMode(false);
+        // encrypt after coalescing, so that merged writes are sent as few large TLS records
+        IoAcceptor acceptor = registry.getIoAcceptor(TransportType.SOCKET);
+        acceptor.getFilterChain().addLast("sslFilter", sslFilter);
+        _log.debug("TLS ON");
+    }
+
     private static void addLogger(ServiceRegistry registry) {
         IoAcceptor acceptor = registry.getIoAcceptor(TransportType.SOCKET);
         acceptor.getFilterChain().addLast("logger", new IoTextLoggingFilter());
@@ -0,0 +1,68 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server.mina;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+
+import org.apache.mina.common.ByteBuffer;
+import org.apache.mina.io.IoSession;
+import org.apache.mina.io.filter.SSLFilter;
+
+/**
+ * {@link SSLFilter} that also decrypts the application data received in the same read as the end of the handshake.
+ *
+ * <p>{@code SSLFilter} only decrypts the records following the last handshake message of a read if unwrapping that
+ * message finishes the handshake.  A TLS 1.3 server still sends its session ticket after unwrapping the Finished
+ * message of the client, so the records behind it stay buffered until the next read, although a client sends its
+ * first request right behind its Finished message and then waits for the response.  This filter passes an empty
+ * read to {@code SSLFilter} as soon as a read has completed the handshake, which decrypts and forwards the
+ * remaining records.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class IoSSLFilter extends SSLFilter {
+
+    public IoSSLFilter(SSLContext sslContext) {
+        super(sslContext);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.filter.SSLFilter#dataRead(org.apache.mina.io.IoFilter.NextFilter, org.apache.mina.io.IoSession, org.apache.mina.common.ByteBuffer)
+     */
+    @Override
+    public void dataRead(NextFilter nextFilter, IoSession session, ByteBuffer buf) throws SSLException {
+        boolean handshaking = (getSSLSession(session) == null);
+        super.dataRead(nextFilter, session, buf);
+        if (handshaking && getSSLSession(session) != null) {
+            ByteBuffer empty = ByteBuffer.allocate(0);
+            empty.limit(0);
+            try {
+                super.dataRead(nextFilter, session, empty);
+            } finally {
+                empty.release();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server.mina;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.mina.common.ByteBuffer;
+import org.apache.mina.common.IdleStatus;
+import org.apache.mina.io.IoFilter;
+import org.apache.mina.io.IoSession;
+import org.apache.mina.io.socket.SocketSessionConfig;
+
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the buffers written to a session while a previous write is still outstanding.
+ *
+ * <p>A buffer written to an idle session is passed on immediately, so a lightly loaded connection sees no
+ * additional latency.  Buffers written while the session still has a write in flight are appended to a single
+ * merged buffer that is passed on as one write as soon as the outstanding writes have completed.  Under load,
+ * responses and events for many channels sharing a connection thus leave in a few large TCP segments instead
+ * of one small segment per message.  Completion of a merged write is reported to the next filter once for each
+ * of the original writes, so the protocol layer still sees a <code>messageSent</code> for every message.</p>
+ *
+ * <p>Since writes are batched here, Nagle's algorithm is disabled on the socket of every session, which would
+ * otherwise hold back each write that follows a partly unacknowledged one until the peer's delayed ACK.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class IoWriteCoalescingFilter implements IoFilter {
+
+    private static Log _log = LogFactory.getLog(IoWriteCoalescingFilter.class);
+
+    /**
+     * Default upper bound for the size of a merged write.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64 * 1024;
+
+    private static final String STATE_ATTRIBUTE = IoWriteCoalescingFilter.class.getName() + ".state";
+
+    private int _maxBatchSize;
+
+    private AtomicLong _flushCount = new AtomicLong();
+    private AtomicLong _messagesFlushed = new AtomicLong();
+
+    public IoWriteCoalescingFilter() {
+        this(DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param maxBatchSize number of bytes after which a merged write is passed on even though earlier writes
+     *        are still outstanding.
+     */
+    public IoWriteCoalescingFilter(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the number of writes passed on to the socket, each of which may carry several coalesced messages.
+     */
+    public long getFlushCount() {
+        return _flushCount.get();
+    }
+
+    /**
+     * @return the number of messages written to the socket.
+     */
+    public long getMessagesFlushed() {
+        return _messagesFlushed.get();
+    }
+
+    /**
+     * @return the average number of messages carried by each write to the socket, or 0 if nothing was written yet.
+     */
+    public double getMessagesPerFlush() {
+        long flushCount = _flushCount.get();
+        return (flushCount == 0) ? 0 : (double) _messagesFlushed.get() / flushCount;
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.IoFilter#sessionOpened(org.apache.mina.io.IoFilter.NextFilter,
+     *      org.apache.mina.io.IoSession)
+     */
+    public void sessionOpened(NextFilter nextFilter, IoSession session) {
+        session.setAttribute(STATE_ATTRIBUTE, new WriteState());
+        if (session.getConfig() instanceof SocketSessionConfig) {
+            try {
+                ((SocketSessionConfig) session.getConfig()).setTcpNoDelay(true);
+            } catch (SocketException e) {
+                _log.warn("Could not disable Nagle's algorithm for " + session.getRemoteAddress(), e);
+            }
+        }
+        nextFilter.sessionOpened(session);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.IoFilter#sessionClosed(org.apache.mina.io.IoFilter.NextFilter,
+     *      org.apache.mina.io.IoSession)
+     */
+    public void sessionClosed(NextFilter nextFilter, IoSession session) {
+        WriteState state = (WriteState) session.getAttribute(STATE_ATTRIBUTE);
+        if (state != null) {
+            state.discard();
+        }
+        nextFilter.sessionClosed(session);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.IoFilter#sessionIdle(org.apache.mina.io.IoFilter.NextFilter,
+     *      org.apache.mina.io.IoSession, org.apache.mina.common.IdleStatus)
+     */
+    public void sessionIdle(NextFilter nextFilter, IoSession session, IdleStatus status) {
+        nextFilter.sessionIdle(session, status);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.IoFilter#exceptionCaught(org.apache.mina.io.IoFilter.NextFilter,
+     *      org.apache.mina.io.IoSession, java.lang.Throwable)
+     */
+    public void exceptionCaught(NextFilter nextFilter, IoSession session, Throwable cause) {
+        nextFilter.exceptionCaught(session, cause);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.IoFilter#dataRead(org.apache.mina.io.IoFilter.NextFilter,
+     *      org.apache.mina.io.IoSession, org.apache.mina.common.ByteBuffer)
+     */
+    public void dataRead(NextFilter nextFilter, IoSession session, ByteBuffer buf) {
+        nextFilter.dataRead(session, buf);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.IoFilter#dataWritten(org.apache.mina.io.IoFilter.NextFilter,
+     *      org.apache.mina.io.IoSession, java.lang.Object)
+     */
+    public void dataWritten(NextFilter nextFilter, IoSession session, Object marker) {
+        WriteState state = (WriteState) session.getAttribute(STATE_ATTRIBUTE);
+        if (state != null) {
+            state.writeCompleted(nextFilter, session);
+        }
+        if (marker instanceof MergedWrite) {
+            for (Object original : ((MergedWrite) marker)._markers) {
+                nextFilter.dataWritten(session, original);
+            }
+        } else {
+            nextFilter.dataWritten(session, marker);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.mina.io.IoFilter#filterWrite(org.apache.mina.io.IoFilter.NextFilter,
+     *      org.apache.mina.io.IoSession, org.apache.mina.common.ByteBuffer,
+     *      java.lang.Object)
+     */
+    public void filterWrite(NextFilter nextFilter, IoSession session, ByteBuffer buf, Object marker) {
+        WriteState state = (WriteState) session.getAttribute(STATE_ATTRIBUTE);
+        if (state == null) {
+            nextFilter.filterWrite(session, buf, marker);
+        } else {
+            state.write(nextFilter, session, buf, marker);
+        }
+    }
+
+    /**
+     * Marker of a merged write, holding the markers of the writes it replaces.
+     */
+    private static class MergedWrite {
+
+        private List<Object> _markers = new ArrayList<Object>();
+
+    }
+
+    /**
+     * Per session write state.
+     */
+    private class WriteState {
+
+        private int _outstanding;
+        private ByteBuffer _pending;
+        private MergedWrite _pendingWrite;
+        private int _pendingMessages;
+
+        synchronized void write(NextFilter nextFilter, IoSession session, ByteBuffer buf, Object marker) {
+            if (_outstanding == 0) {
+                _outstanding++;
+                passOn(nextFilter, session, buf, marker, (marker == null) ? 0 : 1);
+                return;
+            }
+
+            if (_pending == null) {
+                _pending = ByteBuffer.allocate(Math.min(Math.max(buf.remaining(), 1024), _maxBatchSize));
+                _pending.setAutoExpand(true);
+                _pendingWrite = new MergedWrite();
+            }
+            _pending.put(buf);
+            buf.release();
+            _pendingWrite._markers.add(marker);
+            if (marker != null) {
+                _pendingMessages++;
+            }
+
+            if (_pending.position() >= _maxBatchSize) {
+                flushPending(nextFilter, session);
+            }
+        }
+
+        synchronized void writeCompleted(NextFilter nextFilter, IoSession session) {
+            if (_outstanding > 0) {
+                _outstanding--;
+            }
+            if (_outstanding == 0 && _pending != null) {
+                flushPending(nextFilter, session);
+            }
+        }
+
+        synchronized void discard() {
+            if (_pending != null) {
+                _pending.release();
+                _pending = null;
+                _pendingWrite = null;
+                _pendingMessages = 0;
+            }
+        }
+
+        private void flushPending(NextFilter nextFilter, IoSession session) {
+            ByteBuffer merged = _pending;
+            MergedWrite mergedWrite = _pendingWrite;
+            int messages = _pendingMessages;
+            _pending = null;
+            _pendingWrite = null;
+            _pendingMessages = 0;
+
+            merged.flip();
+            _outstanding++;
+            passOn(nextFilter, session, merged, mergedWrite, messages);
+        }
+
+        private void passOn(NextFilter nextFilter, IoSession session, ByteBuffer buf, Object marker, int messages) {
+            _flushCount.incrementAndGet();
+            _messagesFlushed.addAndGet(messages);
+            nextFilter.filterWrite(session, buf, marker);
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of byte buffers for encoding outgoing messages.
+ *
+ * <p>Buffers are kept in size classes of powers of two, starting at {@value #MIN_BUFFER_SIZE} bytes.  A request for
+ * a buffer is served from the smallest size class that fits, with the limit of the buffer set to the requested
+ * capacity.  Requests larger than the largest size class are served with a new buffer of exactly the requested
+ * capacity, which is not taken back by {@link #release(java.nio.ByteBuffer)}.  Each size class retains at most a
+ * fixed number of released buffers, any further buffers are left to the garbage collector.</p>
+ *
+ * <p>Instances are safe for concurrent use.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class ByteBufferPool {
+
+    public static final int MIN_BUFFER_SIZE = 256;
+
+    private static final int MIN_SIZE_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+
+    private SizeClass[] _sizeClasses;
+    private int _maxBufferSize;
+    private int _maxRetained;
+    private boolean _direct;
+
+    /**
+     * Constructs a pool.
+     * @param maxBufferSize the capacity of the largest pooled buffers, rounded up to a power of two.
+     * @param maxRetained   the maximum number of released buffers retained per size class.
+     * @param direct        true to allocate direct buffers, false for heap buffers.
+     */
+    public ByteBufferPool(int maxBufferSize, int maxRetained, boolean direct) {
+        if (maxBufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Maximum buffer size must be at least " + MIN_BUFFER_SIZE + ": " + maxBufferSize);
+        }
+        _maxBufferSize = sizeOf(indexOf(maxBufferSize));
+        _maxRetained = maxRetained;
+        _direct = direct;
+        _sizeClasses = new SizeClass[indexOf(_maxBufferSize) + 1];
+        for (int i = 0; i < _sizeClasses.length; i++) {
+            _sizeClasses[i] = new SizeClass();
+        }
+    }
+
+    /**
+     * @return the capacity of the largest pooled buffers, larger buffers are allocated anew on each request.
+     */
+    public int getMaxBufferSize() {
+        return _maxBufferSize;
+    }
+
+    /**
+     * Retrieves a cleared buffer with room for the given number of bytes.
+     * @param capacity the number of bytes required.
+     * @return a buffer positioned at zero with its limit set to the requested capacity.
+     */
+    public ByteBuffer acquire(int capacity) {
+        if (capacity > _maxBufferSize) {
+            return allocate(capacity);
+        }
+        int index = indexOf(capacity);
+        SizeClass sizeClass = _sizeClasses[index];
+        ByteBuffer buffer = sizeClass._buffers.poll();
+        if (buffer == null) {
+            buffer = allocate(sizeOf(index));
+        } else {
+            sizeClass._count.decrementAndGet();
+        }
+        buffer.limit(capacity);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire(int)} to the pool.  The buffer must not be used any more
+     * by the caller.
+     * @param buffer the buffer to be returned, buffers of a kind or capacity the pool does not allocate are ignored.
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (capacity > _maxBufferSize || capacity < MIN_BUFFER_SIZE || Integer.bitCount(capacity) != 1
+                || buffer.isDirect() != _direct || buffer.isReadOnly()) {
+            return;
+        }
+        SizeClass sizeClass = _sizeClasses[indexOf(capacity)];
+        if (sizeClass._count.incrementAndGet() > _maxRetained) {
+            sizeClass._count.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        sizeClass._buffers.add(buffer);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return _direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static int indexOf(int capacity) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, MIN_BUFFER_SIZE) - 1);
+        return shift - MIN_SIZE_SHIFT;
+    }
+
+    private static int sizeOf(int index) {
+        return 1 << (index + MIN_SIZE_SHIFT);
+    }
+
+    private static class SizeClass {
+
+        private Queue<ByteBuffer> _buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+        private AtomicInteger _count = new AtomicInteger();
+
+    }
+
+}
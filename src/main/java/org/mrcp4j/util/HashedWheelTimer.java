@@ -0,0 +1,320 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules large numbers of short lived timeouts on a single thread with constant cost per operation.
+ *
+ * <p>Timeouts are hashed into the buckets of a wheel by their deadline.  A worker thread advances the wheel
+ * by one bucket every tick and expires the timeouts of the bucket it reaches, so a timeout fires at the
+ * earliest on its deadline and at the latest one tick later.  This suits deadlines that are almost always
+ * cancelled before they expire, like request timeouts: adding and cancelling a timeout only enqueues it, and
+ * no thread or {@link java.util.concurrent.ScheduledFuture} is needed per timeout.</p>
+ *
+ * <p>Expiration tasks run on the worker thread and must therefore be short.  The worker thread is started
+ * when the first timeout is added.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class HashedWheelTimer {
+
+    private static Log _log = LogFactory.getLog(HashedWheelTimer.class);
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_STARTED = 1;
+    private static final int STATE_STOPPED = 2;
+
+    private String _threadName;
+    private long _tickNanos;
+    private Bucket[] _wheel;
+    private int _mask;
+
+    private Queue<Timeout> _newTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private Queue<Timeout> _cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private AtomicInteger _state = new AtomicInteger(STATE_INIT);
+    private volatile long _startTime;
+    private Thread _worker;
+
+    /**
+     * @param threadName    the name of the worker thread.
+     * @param tickDuration  the duration of one tick, i.e. the precision of the timer.
+     * @param unit          the time unit of the tick duration.
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to the next power of two.
+     */
+    public HashedWheelTimer(String threadName, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+        if (ticksPerWheel < 1 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("Ticks per wheel out of range: " + ticksPerWheel);
+        }
+        _threadName = threadName;
+        _tickNanos = unit.toNanos(tickDuration);
+        int wheelSize = 1;
+        while (wheelSize < ticksPerWheel) {
+            wheelSize <<= 1;
+        }
+        _wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            _wheel[i] = new Bucket();
+        }
+        _mask = wheelSize - 1;
+    }
+
+    /**
+     * Schedules a task to be run once the specified delay has elapsed.
+     * @param task  the task to run on expiration, on the worker thread of this timer.
+     * @param delay the delay after which the task is run.
+     * @param unit  the time unit of the delay.
+     * @return a handle that can be used to cancel the timeout.
+     * @throws IllegalStateException if the timer has been stopped.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("Task argument was null!");
+        }
+        start();
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - _startTime;
+        Timeout timeout = new Timeout(task, deadline);
+        _newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread.  Timeouts that have not yet expired are dropped without running their tasks.
+     */
+    public void stop() {
+        if (_state.getAndSet(STATE_STOPPED) == STATE_STARTED) {
+            _worker.interrupt();
+        }
+    }
+
+    private void start() {
+        switch (_state.get()) {
+        case STATE_INIT:
+            synchronized (this) {
+                if (_state.get() == STATE_INIT) {
+                    _startTime = System.nanoTime();
+                    _worker = new Thread(new Worker(), _threadName);
+                    _worker.setDaemon(true);
+                    _state.set(STATE_STARTED);
+                    _worker.start();
+                }
+            }
+            if (_state.get() == STATE_STOPPED) {
+                throw new IllegalStateException("Timer stopped");
+            }
+            break;
+        case STATE_STARTED:
+            break;
+        default:
+            throw new IllegalStateException("Timer stopped");
+        }
+    }
+
+    /**
+     * Handle of a task scheduled with {@link HashedWheelTimer#newTimeout(Runnable, long, TimeUnit)}.
+     */
+    public class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private Runnable _task;
+        private long _deadline;
+        private AtomicInteger _timeoutState = new AtomicInteger(PENDING);
+
+        // the following fields are only accessed by the worker thread
+        private long _remainingRounds;
+        private Bucket _bucket;
+        private Timeout _next;
+        private Timeout _prev;
+
+        Timeout(Runnable task, long deadline) {
+            _task = task;
+            _deadline = deadline;
+        }
+
+        /**
+         * Cancels this timeout.
+         * @return true if the timeout was cancelled, false if it already expired or was cancelled before.
+         */
+        public boolean cancel() {
+            if (!_timeoutState.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            // let the worker unlink it so that cancelled timeouts do not accumulate in the wheel
+            _cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return _timeoutState.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return _timeoutState.get() == EXPIRED;
+        }
+
+        void expire() {
+            if (_timeoutState.compareAndSet(PENDING, EXPIRED)) {
+                try {
+                    _task.run();
+                } catch (Throwable t) {
+                    _log.warn("Timeout task threw an exception", t);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Doubly linked list of the timeouts hashed to one slot of the wheel (only accessed by the worker thread).
+     */
+    private static class Bucket {
+
+        private Timeout _head;
+        private Timeout _tail;
+
+        void add(Timeout timeout) {
+            timeout._bucket = this;
+            if (_head == null) {
+                _head = _tail = timeout;
+            } else {
+                _tail._next = timeout;
+                timeout._prev = _tail;
+                _tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout._next;
+            if (timeout._prev != null) {
+                timeout._prev._next = next;
+            }
+            if (next != null) {
+                next._prev = timeout._prev;
+            }
+            if (timeout == _head) {
+                _head = next;
+            }
+            if (timeout == _tail) {
+                _tail = timeout._prev;
+            }
+            timeout._prev = null;
+            timeout._next = null;
+            timeout._bucket = null;
+            return next;
+        }
+
+        void expire() {
+            Timeout timeout = _head;
+            while (timeout != null) {
+                if (timeout._remainingRounds <= 0) {
+                    Timeout next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else {
+                    timeout._remainingRounds--;
+                    timeout = timeout._next;
+                }
+            }
+        }
+
+    }
+
+    private class Worker implements Runnable {
+
+        private long _tick;
+
+        /* (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+            while (_state.get() == STATE_STARTED) {
+                if (!waitForNextTick()) {
+                    break;
+                }
+                removeCancelledTimeouts();
+                transferNewTimeouts();
+                _wheel[(int) (_tick & _mask)].expire();
+                _tick++;
+            }
+        }
+
+        /**
+         * @return false if the timer was stopped while waiting for the end of the current tick.
+         */
+        private boolean waitForNextTick() {
+            long deadline = _tickNanos * (_tick + 1);
+            while (true) {
+                long sleepNanos = deadline - (System.nanoTime() - _startTime);
+                if (sleepNanos <= 0) {
+                    return true;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (_state.get() == STATE_STOPPED) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            Timeout timeout;
+            while ((timeout = _cancelledTimeouts.poll()) != null) {
+                if (timeout._bucket != null) {
+                    timeout._bucket.remove(timeout);
+                }
+            }
+        }
+
+        private void transferNewTimeouts() {
+            Timeout timeout;
+            while ((timeout = _newTimeouts.poll()) != null) {
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                long expireTick = timeout._deadline / _tickNanos;
+                timeout._remainingRounds = (expireTick - _tick) / _wheel.length;
+                long tick = Math.max(expireTick, _tick);
+                _wheel[(int) (tick & _mask)].add(timeout);
+            }
+        }
+
+    }
+
+}
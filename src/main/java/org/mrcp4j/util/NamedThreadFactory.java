@@ -0,0 +1,57 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates threads named after a common prefix and a sequence number, e.g. "MRCP client dispatch 0".
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+    private String _prefix;
+    private boolean _daemon;
+    private AtomicInteger _threadNumber = new AtomicInteger();
+
+    /**
+     * @param prefix the name prefix of the created threads.
+     * @param daemon whether the created threads are daemon threads.
+     */
+    public NamedThreadFactory(String prefix, boolean daemon) {
+        _prefix = prefix;
+        _daemon = daemon;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+     */
+    public Thread newThread(Runnable task) {
+        Thread thread = new Thread(task, _prefix + ' ' + _threadNumber.getAndIncrement());
+        thread.setDaemon(_daemon);
+        return thread;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executes tasks one at a time and in submission order on top of a possibly multi-threaded executor.
+ *
+ * <p>Many instances can share one backing executor: tasks submitted to the same {@code SerialExecutor} never
+ * run concurrently and run in the order they were submitted, while tasks submitted to different instances may
+ * run in parallel.  A task that throws a runtime exception is logged and does not prevent subsequent tasks
+ * from running.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class SerialExecutor implements Executor {
+
+    private static Log _log = LogFactory.getLog(SerialExecutor.class);
+
+    private Executor _executor;
+    private Queue<Runnable> _tasks = new ConcurrentLinkedQueue<Runnable>();
+    private AtomicBoolean _scheduled = new AtomicBoolean();
+
+    private Runnable _drain = new Runnable() {
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * @param executor the executor that runs the tasks submitted to this instance.
+     */
+    public SerialExecutor(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("Executor argument was null!");
+        }
+        _executor = executor;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+     */
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("Task argument was null!");
+        }
+        _tasks.add(task);
+        schedule();
+    }
+
+    /**
+     * @return the number of submitted tasks that have not yet started.
+     */
+    public int getQueuedTaskCount() {
+        return _tasks.size();
+    }
+
+    private void schedule() {
+        if (_scheduled.compareAndSet(false, true)) {
+            try {
+                _executor.execute(_drain);
+            } catch (RejectedExecutionException e) {
+                _scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            while ((task = _tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    _log.warn(e, e);
+                }
+            }
+        } finally {
+            _scheduled.set(false);
+        }
+        // a task may have been added after the queue was found empty but before the flag was cleared
+        if (!_tasks.isEmpty()) {
+            schedule();
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+/**
+ * Immutable table mapping protocol tokens, such as header field-names or method names, to the values they stand for,
+ * ignoring the case of the tokens.
+ *
+ * <p>Tokens are stored case-folded in an open-addressing hash table, so a lookup hashes the token once and compares
+ * it with at most a few candidates, independent of the number of tokens in the table.  Tokens can be looked up
+ * either as strings or directly from a range of bytes in a receive buffer, without first creating a string.  Only
+ * US-ASCII letters are folded, as MRCP tokens are restricted to US-ASCII characters.</p>
+ *
+ * <p>Instances are safe for concurrent use once constructed.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ *
+ * @param <V> type of the values identified by the tokens
+ */
+public class TokenTable<V> {
+
+    private final byte[][] _tokens;
+    private final Object[] _values;
+    private final int _mask;
+
+    /**
+     * Constructs a table identifying each value by the string returned by its {@code toString()} method.
+     * @param values the values to be looked up, typically the constants of an enum type.
+     * @throws IllegalArgumentException if two values have tokens that differ only in case, or a token contains
+     *                                  characters outside of US-ASCII.
+     */
+    public TokenTable(V[] values) {
+        int capacity = Integer.highestOneBit(Math.max(values.length, 1) * 4 - 1) << 1;
+        _tokens = new byte[capacity][];
+        _values = new Object[capacity];
+        _mask = capacity - 1;
+        for (V value : values) {
+            put(value.toString(), value);
+        }
+    }
+
+    private void put(String token, V value) {
+        byte[] folded = new byte[token.length()];
+        for (int i = 0; i < folded.length; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                throw new IllegalArgumentException("Token is not US-ASCII: " + token);
+            }
+            folded[i] = fold(c);
+        }
+        int index = hash(folded, 0, folded.length) & _mask;
+        while (_tokens[index] != null) {
+            if (equals(_tokens[index], folded, 0, folded.length)) {
+                throw new IllegalArgumentException("Duplicate token: " + token);
+            }
+            index = (index + 1) & _mask;
+        }
+        _tokens[index] = folded;
+        _values[index] = value;
+    }
+
+    /**
+     * Looks up a token, ignoring case.
+     * @param token the token to be looked up.
+     * @return the value identified by the token, or null if the token is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String token) {
+        int length = token.length();
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                return null;
+            }
+            h = 31 * h + fold(c);
+        }
+        for (int index = h & _mask; _tokens[index] != null; index = (index + 1) & _mask) {
+            byte[] candidate = _tokens[index];
+            if (candidate.length == length && equals(candidate, token)) {
+                return (V) _values[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up a token held in a range of bytes, ignoring case.
+     * @param bytes array holding the token.
+     * @param offset the index of the first byte of the token.
+     * @param length the number of bytes of the token.
+     * @return the value identified by the token, or null if the token is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(byte[] bytes, int offset, int length) {
+        int h = hash(bytes, offset, length);
+        for (int index = h & _mask; _tokens[index] != null; index = (index + 1) & _mask) {
+            if (equals(_tokens[index], bytes, offset, length)) {
+                return (V) _values[index];
+            }
+        }
+        return null;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + fold(bytes[i]);
+        }
+        return h;
+    }
+
+    private static boolean equals(byte[] folded, byte[] bytes, int offset, int length) {
+        if (folded.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (folded[i] != fold(bytes[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(byte[] folded, String token) {
+        for (int i = 0; i < folded.length; i++) {
+            if (folded[i] != fold(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte fold(int c) {
+        return (byte) ((c >= 'A' && c <= 'Z') ? c + ('a' - 'A') : c);
+    }
+
+}
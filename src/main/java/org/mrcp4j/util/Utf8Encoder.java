@@ -0,0 +1,125 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes strings and decimal numbers in UTF-8 directly into a {@link java.nio.ByteBuffer}.
+ *
+ * <p>Encoders use this class to compute the exact encoded length of a message before writing it, and then to
+ * write the message in a single pass.  Strings consisting only of US-ASCII characters, which covers all protocol
+ * tokens, and decimal numbers are written without allocating memory.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class Utf8Encoder {
+
+    private Utf8Encoder() {
+        // static methods only
+    }
+
+    /**
+     * Computes the length of a string encoded in UTF-8, counting unpaired surrogates as the single replacement
+     * byte the encoder substitutes for them.
+     * @param s the string to be measured.
+     * @return the number of bytes written by {@link #encode(String, java.nio.ByteBuffer)}.
+     */
+    public static int length(String s) {
+        int length = s.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    // four bytes for the two chars of the pair
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes a string encoded in UTF-8.
+     * @param s      the string to be written.
+     * @param buffer the buffer to write to, which must have at least {@link #length(String)} bytes remaining.
+     */
+    public static void encode(String s, ByteBuffer buffer) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 0x80) {
+                // rare, let the charset handle the remainder
+                buffer.put(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    /**
+     * @param value a number.
+     * @return the number of characters in the decimal representation of the number, including a minus sign.
+     */
+    public static int decimalLength(long value) {
+        int length = 1;
+        if (value < 0) {
+            length++;
+        } else {
+            // count on the negative side, which also covers Long.MIN_VALUE
+            value = -value;
+        }
+        while (value <= -10) {
+            value /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the decimal representation of a number, as {@link java.lang.Long#toString(long)} would.
+     * @param value  the number to be written.
+     * @param buffer the buffer to write to, which must have at least {@link #decimalLength(long)} bytes remaining.
+     */
+    public static void encodeDecimal(long value, ByteBuffer buffer) {
+        int end = buffer.position() + decimalLength(value);
+        if (value < 0) {
+            buffer.put((byte) '-');
+        } else {
+            value = -value;
+        }
+        int index = end;
+        do {
+            buffer.put(--index, (byte) ('0' - (value % 10)));
+            value /= 10;
+        } while (value != 0);
+        buffer.position(end);
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.message.MrcpEvent;
+import org.mrcp4j.message.MrcpMessage;
+import org.mrcp4j.message.MrcpResponse;
+
+/**
+ * Unit tests for the message-length framing of {@link org.mrcp4j.client.MrcpMessageDecoder}.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpMessageDecoderTest {
+
+    private static final String RESPONSE = frame(" 543257 200 COMPLETE\r\n" +
+            "Channel-Identifier: 32AECB23433801@speechsynth\r\n" +
+            "\r\n");
+
+    private static final String EVENT = frame(" RECOGNITION-COMPLETE 543258 COMPLETE\r\n" +
+            "Channel-Identifier: 32AECB23433802@speechrecog\r\n" +
+            "Completion-Cause: 000 success\r\n" +
+            "Content-Type: application/nlsml+xml\r\n" +
+            "Content-Length: 11\r\n" +
+            "\r\n" +
+            "<result/>\r\n");
+
+    private static final String IN_PROGRESS = frame(" 543259 200 IN-PROGRESS\r\n" +
+            "Channel-Identifier: 32AECB23433801@speechsynth\r\n" +
+            "\r\n");
+
+    @Test
+    public void testDecodeSingleMessage() throws IOException, ParseException {
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        ByteBuffer in = ByteBuffer.wrap(ascii(EVENT));
+
+        MrcpMessage message = decoder.decode(in);
+
+        Assert.assertTrue(message instanceof MrcpEvent);
+        MrcpEvent event = (MrcpEvent) message;
+        Assert.assertEquals(MrcpEventName.RECOGNITION_COMPLETE, event.getEventName());
+        Assert.assertEquals(543258, event.getRequestID());
+        Assert.assertEquals(EVENT.length(), event.getMessageLength());
+        Assert.assertEquals("<result/>\r\n", event.getContent());
+        Assert.assertFalse(in.hasRemaining());
+        Assert.assertEquals(-1, decoder.getPendingMessageLength());
+    }
+
+    @Test
+    public void testDecodeSeveralMessagesFromOneBuffer() throws IOException, ParseException {
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        ByteBuffer in = ByteBuffer.wrap(ascii(RESPONSE + EVENT + "\r\n" + IN_PROGRESS));
+
+        Assert.assertEquals(543257, decoder.decode(in).getRequestID());
+        Assert.assertEquals(543258, decoder.decode(in).getRequestID());
+        Assert.assertEquals(543259, decoder.decode(in).getRequestID());
+        Assert.assertNull(decoder.decode(in));
+        Assert.assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    public void testDecodeAcrossSplitReads() throws IOException, ParseException {
+        String stream = RESPONSE + EVENT + IN_PROGRESS + RESPONSE;
+        byte[] bytes = ascii(stream);
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            List<MrcpMessage> messages = decodeInChunks(new MrcpMessageDecoder(), bytes, chunkSize, false);
+            assertRequestIDs(messages, "chunk size " + chunkSize, 543257, 543258, 543259, 543257);
+        }
+    }
+
+    @Test
+    public void testDecodeAcrossSplitReadsFromDirectBuffer() throws IOException, ParseException {
+        byte[] bytes = ascii(RESPONSE + EVENT + IN_PROGRESS);
+        for (int chunkSize : new int[] {1, 7, 64, bytes.length}) {
+            List<MrcpMessage> messages = decodeInChunks(new MrcpMessageDecoder(), bytes, chunkSize, true);
+            assertRequestIDs(messages, "chunk size " + chunkSize, 543257, 543258, 543259);
+        }
+    }
+
+    @Test
+    public void testPendingMessageLength() throws IOException, ParseException {
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        byte[] bytes = ascii(EVENT);
+
+        // the message-length is not complete until the space following it has been received
+        ByteBuffer in = ByteBuffer.wrap(bytes, 0, "MRCP/2.0 1".length());
+        Assert.assertNull(decoder.decode(in));
+        Assert.assertEquals(-1, decoder.getPendingMessageLength());
+        Assert.assertEquals(0, in.position());
+
+        in = ByteBuffer.wrap(bytes, 0, bytes.length - 1);
+        Assert.assertNull(decoder.decode(in));
+        Assert.assertEquals(bytes.length, decoder.getPendingMessageLength());
+        Assert.assertEquals(0, in.position());
+
+        in = ByteBuffer.wrap(bytes);
+        Assert.assertNotNull(decoder.decode(in));
+        Assert.assertEquals(-1, decoder.getPendingMessageLength());
+    }
+
+    @Test
+    public void testResetDiscardsPartialMessage() throws IOException, ParseException {
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        byte[] bytes = ascii(EVENT);
+        Assert.assertNull(decoder.decode(ByteBuffer.wrap(bytes, 0, 40)));
+        Assert.assertEquals(bytes.length, decoder.getPendingMessageLength());
+
+        decoder.reset();
+
+        Assert.assertEquals(-1, decoder.getPendingMessageLength());
+        Assert.assertEquals(543257, decoder.decode(ByteBuffer.wrap(ascii(RESPONSE))).getRequestID());
+    }
+
+    @Test
+    public void testMalformedMessageIsSkipped() throws IOException, ParseException {
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        String malformed = frame(" 543256 200 COMPLETE\r\nno colon in this header\r\n\r\n");
+        ByteBuffer in = ByteBuffer.wrap(ascii(malformed + RESPONSE));
+
+        try {
+            decoder.decode(in);
+            Assert.fail("malformed message decoded");
+        } catch (ParseException e) {
+            // expected
+        }
+        Assert.assertEquals(malformed.length(), in.position());
+        Assert.assertEquals(543257, decoder.decode(in).getRequestID());
+    }
+
+    @Test
+    public void testMessageLongerThanMaximumIsRejected() throws ParseException {
+        MrcpMessageDecoder decoder = new MrcpMessageDecoder();
+        decoder.setMaxMessageLength(RESPONSE.length() - 1);
+        try {
+            // rejected as soon as the message-length has been received
+            decoder.decode(ByteBuffer.wrap(ascii(RESPONSE.substring(0, 16))));
+            Assert.fail("message longer than the maximum accepted");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUnframeableStreamIsRejected() throws ParseException {
+        for (String garbage : new String[] {"MRCP/2.0 12x4 ", "MRCP/2.0 1234567890123 ",
+                "MRCP/2.0 5 ", "GET-A-VERY-LONG-TOKEN-THAT-IS-NO-MRCP-VERSION"}) {
+            try {
+                new MrcpMessageDecoder().decode(ByteBuffer.wrap(ascii(garbage)));
+                Assert.fail("framed " + garbage);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Feeds the bytes to the decoder in chunks of the given size, the way the socket fills its read buffer.
+     */
+    private static List<MrcpMessage> decodeInChunks(MrcpMessageDecoder decoder, byte[] bytes, int chunkSize,
+            boolean direct) throws IOException, ParseException {
+        List<MrcpMessage> messages = new ArrayList<MrcpMessage>();
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            buffer.put(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+            buffer.flip();
+            MrcpMessage message;
+            while ((message = decoder.decode(buffer)) != null) {
+                messages.add(message);
+            }
+            buffer.compact();
+        }
+        Assert.assertEquals(0, buffer.position());
+        return messages;
+    }
+
+    private static void assertRequestIDs(List<MrcpMessage> messages, String context, long... requestIDs) {
+        Assert.assertEquals(context, requestIDs.length, messages.size());
+        for (int i = 0; i < requestIDs.length; i++) {
+            Assert.assertEquals(context, requestIDs[i], messages.get(i).getRequestID());
+        }
+        Assert.assertTrue(context, messages.get(0) instanceof MrcpResponse);
+    }
+
+    /**
+     * Completes a server message by prepending the version and message-length to the rest of its start-line.
+     */
+    private static String frame(String rest) {
+        String prefix = "MRCP/2.0 ";
+        int length = prefix.length() + rest.length();
+        int messageLength = length + Integer.toString(length).length();
+        if (Integer.toString(messageLength).length() > Integer.toString(length).length()) {
+            messageLength++;
+        }
+        return prefix + messageLength + rest;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
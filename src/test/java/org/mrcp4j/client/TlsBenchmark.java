@@ -0,0 +1,221 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.server.MrcpServerSocket;
+import org.mrcp4j.server.MrcpSession;
+import org.mrcp4j.server.provider.RecogOnlyRequestHandler;
+
+/**
+ * Compares the cost of the TCP/TLS/MRCPv2 transport with plain TCP/MRCPv2 against servers in the same JVM.
+ *
+ * <p>Connection setup is measured as the time {@link MrcpProvider#createChannel(String, InetAddress, int, String)}
+ * takes on a new provider, for plain TCP, for TLS with a new client {@code SSLContext} per connection, which
+ * forces a full handshake, and for TLS with one shared {@code SSLContext}, which lets later connections resume
+ * the cached session.  Each connection carries one request before it is closed, as a TLS 1.3 client only stores
+ * the session ticket for resumption after reading from the connection again.  Steady-state throughput is measured
+ * as the rate of pipelined RECOGNIZE requests completed on one channel of each transport.  Every round prints
+ * both, the first rounds serve as warm-up.</p>
+ *
+ * <p>The server certificate is a self-signed key pair generated with the {@code keytool} of the running JVM into
+ * a temporary key store.</p>
+ *
+ * <p>Run from the test classpath, with MINA on it:
+ * {@code java org.mrcp4j.client.TlsBenchmark [connections] [requests]}.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class TlsBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int PIPELINE_DEPTH = 200;
+    private static final String CHANNEL_ID = "32AECB23433801@speechrecog";
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    public static void main(String[] args) throws Exception {
+        int connections = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+        int requests = (args.length > 1) ? Integer.parseInt(args[1]) : 20000;
+
+        KeyStore keyStore = generateKeyStore();
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, PASSWORD);
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keyStore);
+
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(kmf.getKeyManagers(), null, null);
+
+        int plainPort = freePort();
+        int tlsPort = freePort();
+        openChannel(new MrcpServerSocket(plainPort));
+        openChannel(new MrcpServerSocket(tlsPort, serverContext));
+
+        InetAddress host = InetAddress.getByName("localhost");
+        SSLContext sharedContext = newClientContext(tmf);
+        for (int round = 1; round <= ROUNDS; round++) {
+            double plain = connect(host, plainPort, MrcpProvider.PROTOCOL_TCP_MRCPv2, null, null, connections);
+            double full = connect(host, tlsPort, MrcpProvider.PROTOCOL_TLS_MRCPv2, null, tmf, connections);
+            double resumed = connect(host, tlsPort, MrcpProvider.PROTOCOL_TLS_MRCPv2, sharedContext, null,
+                    connections);
+            System.out.printf("round %d: connect TCP %.2f ms, TLS full handshake %.2f ms, TLS resumed %.2f ms%n",
+                    round, plain, full, resumed);
+
+            double plainRate = throughput(host, plainPort, MrcpProvider.PROTOCOL_TCP_MRCPv2, null, requests);
+            double tlsRate = throughput(host, tlsPort, MrcpProvider.PROTOCOL_TLS_MRCPv2, sharedContext, requests);
+            System.out.printf("round %d: pipelined TCP %.0f requests/s, TLS %.0f requests/s%n",
+                    round, plainRate, tlsRate);
+        }
+
+        // the server sockets cannot be closed
+        System.exit(0);
+    }
+
+    /**
+     * @return the average time in milliseconds to create the first channel of a new provider.
+     */
+    private static double connect(InetAddress host, int port, String protocol, SSLContext sslContext,
+            TrustManagerFactory tmf, int connections) throws Exception {
+
+        long total = 0;
+        for (int i = 0; i < connections; i++) {
+            MrcpProvider provider = MrcpFactory.newInstance().createProvider();
+            try {
+                provider.setSSLContext((tmf == null) ? sslContext : newClientContext(tmf));
+                long start = System.nanoTime();
+                MrcpChannel channel = provider.createChannel(CHANNEL_ID, host, port, protocol);
+                total += System.nanoTime() - start;
+
+                // a TLS 1.3 server sends its session ticket after the handshake, the client only stores it for
+                // resumption once it reads from the connection again
+                channel.sendRequestAsync(channel.createRequest(MrcpMethodName.RECOGNIZE), 10, TimeUnit.SECONDS).get();
+            } finally {
+                provider.close();
+            }
+        }
+        return total / 1e6 / connections;
+    }
+
+    /**
+     * @return the rate of completed requests per second, keeping {@link #PIPELINE_DEPTH} requests outstanding.
+     */
+    private static double throughput(InetAddress host, int port, String protocol, SSLContext sslContext,
+            int requests) throws Exception {
+
+        MrcpProvider provider = MrcpFactory.newInstance().createProvider();
+        try {
+            provider.setSSLContext(sslContext);
+            MrcpChannel channel = provider.createChannel(CHANNEL_ID, host, port, protocol);
+            List<CompletableFuture<MrcpResponse>> pending = new ArrayList<CompletableFuture<MrcpResponse>>();
+            long start = System.nanoTime();
+            for (int sent = 0; sent < requests; sent += PIPELINE_DEPTH) {
+                for (int i = sent; i < Math.min(sent + PIPELINE_DEPTH, requests); i++) {
+                    pending.add(channel.sendRequestAsync(channel.createRequest(MrcpMethodName.RECOGNIZE),
+                            10, TimeUnit.SECONDS));
+                }
+                for (CompletableFuture<MrcpResponse> future : pending) {
+                    if (future.get().getStatusCode() != 200) {
+                        throw new IllegalStateException("Unexpected response: " + future.get());
+                    }
+                }
+                pending.clear();
+            }
+            return requests / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            provider.close();
+        }
+    }
+
+    private static void openChannel(MrcpServerSocket serverSocket) {
+        RecogOnlyRequestHandler handler = (RecogOnlyRequestHandler) Proxy.newProxyInstance(
+                TlsBenchmark.class.getClassLoader(), new Class<?>[] {RecogOnlyRequestHandler.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        // every request completes immediately
+                        return ((MrcpSession) args[1]).createResponse((short) 200, MrcpRequestState.COMPLETE);
+                    }
+                });
+        serverSocket.openChannel(CHANNEL_ID, handler);
+    }
+
+    private static SSLContext newClientContext(TrustManagerFactory tmf) throws Exception {
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, tmf.getTrustManagers(), null);
+        return context;
+    }
+
+    private static KeyStore generateKeyStore() throws Exception {
+        File file = File.createTempFile("mrcp4j-bench", ".p12");
+        file.delete();
+        try {
+            String keytool = new File(System.getProperty("java.home"), "bin" + File.separator + "keytool").getPath();
+            Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "server", "-keyalg", "RSA",
+                    "-keysize", "2048", "-validity", "1", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost",
+                    "-storetype", "PKCS12", "-keystore", file.getPath(), "-storepass", new String(PASSWORD),
+                    "-keypass", new String(PASSWORD)).inheritIO().start();
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("keytool failed with exit code " + process.exitValue());
+            }
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            InputStream in = new FileInputStream(file);
+            try {
+                keyStore.load(in, PASSWORD);
+            } finally {
+                in.close();
+            }
+            return keyStore;
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static int freePort() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mrcp4j.message.header.MrcpHeader;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Compares the header storage of {@link MrcpMessage} with the {@link LinkedHashMap} keyed by field-name it replaced.
+ *
+ * <p>Each operation creates a message, adds the headers of a typical RECOGNITION-COMPLETE event and gets each of
+ * them by {@link MrcpHeaderName}: the map hashes the field-name string on every put and get, {@link MrcpMessage}
+ * locates known headers by the ordinal of their name.  Every round prints the average time per operation, the
+ * first rounds serve as warm-up.</p>
+ *
+ * <p>The memory figures are the heap retained per message by many messages sharing the same header instances,
+ * measured after garbage collection.  The figure for {@link MrcpEvent} includes all other fields of the event, the
+ * figure for the map only the map itself, so the comparison is in favour of the map.</p>
+ *
+ * <p>Run from the test classpath: {@code java org.mrcp4j.message.HeaderStorageBenchmark [operations]}.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class HeaderStorageBenchmark {
+
+    private static final int ROUNDS = 8;
+    private static final int RETAINED_MESSAGES = 200000;
+
+    private static final MrcpHeader[] HEADERS = {
+        MrcpHeaderName.CHANNEL_IDENTIFIER.createHeader("32AECB23433801@speechrecog"),
+        MrcpHeaderName.COMPLETION_CAUSE.createHeader("000 success"),
+        MrcpHeaderName.SPEECH_LANGUAGE.createHeader("en-US"),
+        MrcpHeaderName.WAVEFORM_URI.createHeader("<http://example.com/recording.wav>;size=24000;duration=3000"),
+        MrcpHeaderName.CONTENT_TYPE.createHeader("application/nlsml+xml"),
+        MrcpHeaderName.CONTENT_LENGTH.createHeader("446")
+    };
+
+    private static final MrcpHeaderName[] NAMES = new MrcpHeaderName[HEADERS.length];
+
+    static {
+        for (int i = 0; i < HEADERS.length; i++) {
+            NAMES[i] = HEADERS[i].getHeaderName();
+        }
+    }
+
+    public static void main(String[] args) {
+        int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            int found = linkedHashMap(operations);
+            long map = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            found += mrcpMessage(operations);
+            long message = System.nanoTime() - start;
+
+            System.out.printf("round %d: LinkedHashMap %.1f ns/op, MrcpMessage %.1f ns/op (%d)%n",
+                    round, (double) map / operations, (double) message / operations, found);
+        }
+
+        Object[] retained = new Object[RETAINED_MESSAGES];
+        long before = usedMemory();
+        for (int i = 0; i < retained.length; i++) {
+            retained[i] = newLinkedHashMap();
+        }
+        long map = usedMemory() - before;
+        for (int i = 0; i < retained.length; i++) {
+            retained[i] = null;
+        }
+
+        before = usedMemory();
+        for (int i = 0; i < retained.length; i++) {
+            retained[i] = newMrcpEvent();
+        }
+        long message = usedMemory() - before;
+
+        System.out.printf("retained: LinkedHashMap %d bytes/message, MrcpEvent %d bytes/message (%d)%n",
+                map / retained.length, message / retained.length, retained.length);
+    }
+
+    private static Map<String, MrcpHeader> newLinkedHashMap() {
+        Map<String, MrcpHeader> headers = new LinkedHashMap<String, MrcpHeader>();
+        for (MrcpHeader header : HEADERS) {
+            headers.put(header.getNameString(), header);
+        }
+        return headers;
+    }
+
+    private static MrcpEvent newMrcpEvent() {
+        MrcpEvent event = new MrcpEvent();
+        for (MrcpHeader header : HEADERS) {
+            event.addHeader(header);
+        }
+        return event;
+    }
+
+    private static int linkedHashMap(int operations) {
+        int found = 0;
+        for (int i = 0; i < operations; i++) {
+            Map<String, MrcpHeader> headers = newLinkedHashMap();
+            for (MrcpHeaderName name : NAMES) {
+                if (headers.get(name.toString()) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int mrcpMessage(int operations) {
+        int found = 0;
+        for (int i = 0; i < operations; i++) {
+            MrcpEvent event = newMrcpEvent();
+            for (MrcpHeaderName name : NAMES) {
+                if (event.getHeader(name) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
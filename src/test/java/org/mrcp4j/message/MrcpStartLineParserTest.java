@@ -0,0 +1,182 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.MrcpRequestState;
+import org.mrcp4j.message.request.MrcpRequest;
+import org.mrcp4j.message.request.StopRequest;
+
+/**
+ * Unit tests for {@link org.mrcp4j.message.MrcpStartLineParser}.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpStartLineParserTest {
+
+    @Test
+    public void testParseRequestLine() throws ParseException {
+        MrcpRequest request = parseRequestLine("MRCP/2.0 112 SPEAK 543257\r\n");
+        Assert.assertEquals(MrcpMethodName.SPEAK, request.getMethodName());
+        Assert.assertSame(MrcpMessage.MRCP_VERSION_2_0, request.getVersion());
+        Assert.assertEquals(112, request.getMessageLength());
+        Assert.assertEquals(543257, request.getRequestID());
+
+        request = parseRequestLine("MRCP/2.0 80 stop 543258");
+        Assert.assertTrue(request instanceof StopRequest);
+        Assert.assertEquals(MrcpMethodName.STOP, request.getMethodName());
+    }
+
+    @Test
+    public void testParseRequestLineWithinBuffer() throws ParseException {
+        byte[] bytes = ascii("garbage MRCP/2.0 112 SPEAK 543257\r\nChannel-Identifier: 1@speechsynth\r\n");
+        int offset = "garbage ".length();
+        int length = "MRCP/2.0 112 SPEAK 543257\r\n".length();
+        MrcpRequest request = MrcpStartLineParser.parseRequestLine(bytes, offset, length);
+        Assert.assertEquals(543257, request.getRequestID());
+    }
+
+    @Test
+    public void testParseRequestLineToleratesExtraWhitespace() throws ParseException {
+        MrcpRequest request = parseRequestLine("  MRCP/2.0 \t112  SPEAK\t543257 \r\n");
+        Assert.assertEquals(MrcpMethodName.SPEAK, request.getMethodName());
+        Assert.assertEquals(112, request.getMessageLength());
+        Assert.assertEquals(543257, request.getRequestID());
+    }
+
+    @Test
+    public void testParseRequestLineKeepsOtherVersions() throws ParseException {
+        Assert.assertEquals("MRCP/2.1", parseRequestLine("MRCP/2.1 112 SPEAK 1").getVersion());
+    }
+
+    @Test
+    public void testParseRequestLineRejectsMalformedLines() {
+        assertRequestLineRejected("", 0);
+        assertRequestLineRejected("MRCP/2.0 112 SPEAK", 0);
+        assertRequestLineRejected("MRCP/2.0 112 SPEAK 543257 extra", 0);
+        assertRequestLineRejected("MRCP/2.0 112 SPEAKS 543257", 13);
+        assertRequestLineRejected("MRCP/2.0 11x SPEAK 543257", 9);
+        assertRequestLineRejected("MRCP/2.0 1234567890 SPEAK 543257", 9);
+        assertRequestLineRejected("MRCP/2.0 112 SPEAK 54325x", 19);
+        assertRequestLineRejected("MRCP/2.0 112 SPEAK 1234567890123456789", 19);
+        assertRequestLineRejected("MRCP/2.0 112 SPEAK -1", 19);
+    }
+
+    @Test
+    public void testParseResponseLine() throws ParseException {
+        MrcpServerMessage message = parseServerMessageLine("MRCP/2.0 79 543257 200 COMPLETE\r\n");
+        Assert.assertTrue(message instanceof MrcpResponse);
+        MrcpResponse response = (MrcpResponse) message;
+        Assert.assertEquals(79, response.getMessageLength());
+        Assert.assertEquals(543257, response.getRequestID());
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals(MrcpRequestState.COMPLETE, response.getRequestState());
+
+        response = MrcpStartLineParser.parseResponseLine(ascii("MRCP/2.0 79 1 404 complete"), 0, 26);
+        Assert.assertEquals(404, response.getStatusCode());
+        Assert.assertEquals(MrcpRequestState.COMPLETE, response.getRequestState());
+    }
+
+    @Test
+    public void testParseEventLine() throws ParseException {
+        MrcpServerMessage message = parseServerMessageLine("MRCP/2.0 209 START-OF-INPUT 543257 IN-PROGRESS\r\n");
+        Assert.assertTrue(message instanceof MrcpEvent);
+        MrcpEvent event = (MrcpEvent) message;
+        Assert.assertEquals(209, event.getMessageLength());
+        Assert.assertEquals(MrcpEventName.START_OF_INPUT, event.getEventName());
+        Assert.assertEquals(543257, event.getRequestID());
+        Assert.assertEquals(MrcpRequestState.IN_PROGRESS, event.getRequestState());
+
+        byte[] bytes = ascii("MRCP/2.0 209 speak-complete 7 COMPLETE");
+        event = MrcpStartLineParser.parseEventLine(bytes, 0, bytes.length);
+        Assert.assertEquals(MrcpEventName.SPEAK_COMPLETE, event.getEventName());
+    }
+
+    @Test
+    public void testResponseAndEventLinesAreNotConfused() {
+        byte[] response = ascii("MRCP/2.0 79 543257 200 COMPLETE");
+        byte[] event = ascii("MRCP/2.0 209 START-OF-INPUT 543257 IN-PROGRESS");
+        try {
+            MrcpStartLineParser.parseEventLine(response, 0, response.length);
+            Assert.fail("response-line accepted as event-line");
+        } catch (ParseException e) {
+            Assert.assertEquals(12, e.getErrorOffset());
+        }
+        try {
+            MrcpStartLineParser.parseResponseLine(event, 0, event.length);
+            Assert.fail("event-line accepted as response-line");
+        } catch (ParseException e) {
+            Assert.assertEquals(13, e.getErrorOffset());
+        }
+    }
+
+    @Test
+    public void testParseServerMessageLineRejectsMalformedLines() {
+        assertServerMessageLineRejected("MRCP/2.0 79 543257 200", 0);
+        assertServerMessageLineRejected("MRCP/2.0 79 543257 200 DONE", 23);
+        assertServerMessageLineRejected("MRCP/2.0 79 543257 2x0 COMPLETE", 19);
+        assertServerMessageLineRejected("MRCP/2.0 79 543257 40000 COMPLETE", 19);
+        assertServerMessageLineRejected("MRCP/2.0 79 543257 99999 COMPLETE", 19);
+        assertServerMessageLineRejected("MRCP/2.0 209 STARTOFINPUT 543257 IN-PROGRESS", 13);
+        assertServerMessageLineRejected("MRCP/2.0 209 START-OF-INPUT x IN-PROGRESS", 28);
+    }
+
+    private static MrcpRequest parseRequestLine(String line) throws ParseException {
+        byte[] bytes = ascii(line);
+        return MrcpStartLineParser.parseRequestLine(bytes, 0, bytes.length);
+    }
+
+    private static MrcpServerMessage parseServerMessageLine(String line) throws ParseException {
+        byte[] bytes = ascii(line);
+        return MrcpStartLineParser.parseServerMessageLine(bytes, 0, bytes.length);
+    }
+
+    private static void assertRequestLineRejected(String line, int errorOffset) {
+        try {
+            parseRequestLine(line);
+            Assert.fail("accepted request-line: " + line);
+        } catch (ParseException e) {
+            Assert.assertEquals(line, errorOffset, e.getErrorOffset());
+        }
+    }
+
+    private static void assertServerMessageLineRejected(String line, int errorOffset) {
+        try {
+            parseServerMessageLine(line);
+            Assert.fail("accepted start-line: " + line);
+        } catch (ParseException e) {
+            Assert.assertEquals(line, errorOffset, e.getErrorOffset());
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import org.mrcp4j.MrcpEventName;
+import org.mrcp4j.MrcpRequestState;
+
+/**
+ * Compares {@link MrcpStartLineParser} with the parsing of start-lines it replaced.
+ *
+ * <p>Each operation parses one start-line from a mix of response-lines and event-lines.  The replaced parsing
+ * decoded the line to a string, split it with {@link String#split(String)}, told responses from events by catching
+ * the {@link NumberFormatException} of parsing the third token as a number, and resolved event names and request
+ * states with a linear scan.  {@link MrcpStartLineParser#parseServerMessageLine(byte[], int, int)} scans the
+ * received bytes once.  Every round prints the average time per operation, the first rounds serve as warm-up.</p>
+ *
+ * <p>Run from the test classpath: {@code java org.mrcp4j.message.StartLineParserBenchmark [operations]}.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class StartLineParserBenchmark {
+
+    private static final int ROUNDS = 8;
+
+    private static final String[] LINES = {
+        "MRCP/2.0 79 543257 200 COMPLETE\r\n",
+        "MRCP/2.0 209 START-OF-INPUT 543258 IN-PROGRESS\r\n",
+        "MRCP/2.0 83 543259 200 IN-PROGRESS\r\n",
+        "MRCP/2.0 1121 RECOGNITION-COMPLETE 543258 COMPLETE\r\n",
+        "MRCP/2.0 152 SPEECH-MARKER 543260 IN-PROGRESS\r\n",
+        "MRCP/2.0 79 543261 407 COMPLETE\r\n"
+    };
+
+    private static final byte[][] BYTES = new byte[LINES.length][];
+
+    static {
+        for (int i = 0; i < LINES.length; i++) {
+            BYTES[i] = LINES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    public static void main(String[] args) throws ParseException {
+        int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 2000000;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = splitAndCatch(operations);
+            long split = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            checksum += startLineParser(operations);
+            long parser = System.nanoTime() - start;
+
+            System.out.printf("round %d: split and catch %.1f ns/op, MrcpStartLineParser %.1f ns/op (%d)%n",
+                    round, (double) split / operations, (double) parser / operations, checksum);
+        }
+    }
+
+    private static long splitAndCatch(int operations) throws ParseException {
+        long checksum = 0;
+        for (int i = 0; i < operations; i++) {
+            byte[] bytes = BYTES[i % BYTES.length];
+            checksum += parseWithSplit(bytes, 0, bytes.length).getRequestID();
+        }
+        return checksum;
+    }
+
+    private static long startLineParser(int operations) throws ParseException {
+        long checksum = 0;
+        for (int i = 0; i < operations; i++) {
+            byte[] bytes = BYTES[i % BYTES.length];
+            checksum += MrcpStartLineParser.parseServerMessageLine(bytes, 0, bytes.length).getRequestID();
+        }
+        return checksum;
+    }
+
+    /**
+     * The start-line parsing used before {@link MrcpStartLineParser}.
+     */
+    private static MrcpServerMessage parseWithSplit(byte[] bytes, int offset, int length) throws ParseException {
+        String line = new String(bytes, offset, length, StandardCharsets.UTF_8).trim();
+        String[] parts = line.split(" ");
+        if (parts.length != 5) {
+            throw new ParseException("Incorrect start-line format!", -1);
+        }
+        boolean isResponse = false;
+        try {
+            Long.parseLong(parts[2]);
+            isResponse = true;
+        } catch (NumberFormatException e) {
+            // ignore, message should be event
+        }
+        try {
+            MrcpServerMessage message;
+            if (isResponse) {
+                MrcpResponse response = new MrcpResponse();
+                response.setRequestID(Long.parseLong(parts[2]));
+                response.setStatusCode(Short.parseShort(parts[3]));
+                message = response;
+            } else {
+                MrcpEvent event = new MrcpEvent();
+                event.setEventName(scanEventName(parts[2]));
+                event.setRequestID(Long.parseLong(parts[3]));
+                message = event;
+            }
+            message.setVersion(parts[0]);
+            message.setMessageLength(Integer.parseInt(parts[1]));
+            message.setRequestState(scanRequestState(parts[4]));
+            return message;
+        } catch (IllegalArgumentException e) {
+            throw (ParseException) new ParseException("Incorrect start-line format!", -1).initCause(e);
+        }
+    }
+
+    private static MrcpEventName scanEventName(String str) {
+        for (MrcpEventName value : MrcpEventName.values()) {
+            if (value.toString().equalsIgnoreCase(str)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid MRCP event-name: " + str);
+    }
+
+    private static MrcpRequestState scanRequestState(String str) {
+        for (MrcpRequestState value : MrcpRequestState.values()) {
+            if (value.toString().equalsIgnoreCase(str)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid MRCP request-state: " + str);
+    }
+
+}
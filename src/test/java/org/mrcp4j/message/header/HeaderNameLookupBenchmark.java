@@ -0,0 +1,127 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the lookup of header field-names through the case-folded token table of {@link MrcpHeaderName} with the
+ * linear scan over all header names it replaced.
+ *
+ * <p>Each operation looks up one field-name from a mix of common, differently cased and unknown names, as found in
+ * received messages: the linear scan compares the name with every header name using
+ * {@link String#equalsIgnoreCase(String)}, {@link MrcpHeaderName#lookup(String)} hashes the name once, and
+ * {@link MrcpHeaderName#fromBytes(byte[], int, int)} hashes the name directly in the received bytes, without creating
+ * a string first.  Every round prints the average time per operation, the first rounds serve as warm-up.</p>
+ *
+ * <p>Run from the test classpath: {@code java org.mrcp4j.message.header.HeaderNameLookupBenchmark [operations]}.</p>
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class HeaderNameLookupBenchmark {
+
+    private static final int ROUNDS = 8;
+
+    private static final String[] NAMES = {
+        "Channel-Identifier", "Content-Type", "Content-Length", "Completion-Cause", "channel-identifier",
+        "CONTENT-LENGTH", "Speech-Language", "Vendor-Specific-Parameters", "Active-Request-Id-List", "X-Unknown-Header"
+    };
+
+    private static final byte[] LINES;
+    private static final int[] OFFSETS = new int[NAMES.length];
+
+    static {
+        // the names as they appear in the header lines of a receive buffer
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            OFFSETS[i] = lines.length();
+            lines.append(NAMES[i]).append(": value\r\n");
+        }
+        LINES = lines.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static void main(String[] args) {
+        int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 5000000;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            int found = linearScan(operations);
+            long scan = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            found += lookup(operations);
+            long lookup = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            found += fromBytes(operations);
+            long bytes = System.nanoTime() - start;
+
+            System.out.printf("round %d: linear scan %.1f ns/op, lookup %.1f ns/op, fromBytes %.1f ns/op (%d)%n",
+                    round, (double) scan / operations, (double) lookup / operations, (double) bytes / operations,
+                    found);
+        }
+    }
+
+    /**
+     * The lookup used before the token table, one {@code equalsIgnoreCase} per header name.
+     */
+    private static MrcpHeaderName scan(String name) {
+        for (MrcpHeaderName value : MrcpHeaderName.values()) {
+            if (value.toString().equalsIgnoreCase(name)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static int linearScan(int operations) {
+        int found = 0;
+        for (int i = 0; i < operations; i++) {
+            if (scan(NAMES[i % NAMES.length]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int lookup(int operations) {
+        int found = 0;
+        for (int i = 0; i < operations; i++) {
+            if (MrcpHeaderName.lookup(NAMES[i % NAMES.length]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int fromBytes(int operations) {
+        int found = 0;
+        for (int i = 0; i < operations; i++) {
+            int index = i % NAMES.length;
+            if (MrcpHeaderName.fromBytes(LINES, OFFSETS[index], NAMES[index].length()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+}
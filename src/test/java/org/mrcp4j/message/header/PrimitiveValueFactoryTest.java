@@ -0,0 +1,191 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.message.header;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for the hand-written number parsers of {@link org.mrcp4j.message.header.PrimitiveValueFactory}.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class PrimitiveValueFactoryTest {
+
+    @Test
+    public void testParseLong() throws IllegalValueException {
+        Assert.assertEquals(0, parseLong("0"));
+        Assert.assertEquals(42, parseLong("42"));
+        Assert.assertEquals(42, parseLong(" \t42 "));
+        Assert.assertEquals(7, parseLong("+7"));
+        Assert.assertEquals(-7, parseLong("-7"));
+        Assert.assertEquals(7, parseLong("0007"));
+    }
+
+    @Test
+    public void testParseLongLimits() throws IllegalValueException {
+        Assert.assertEquals(Long.MAX_VALUE, parseLong("9223372036854775807"));
+        Assert.assertEquals(Long.MIN_VALUE, parseLong("-9223372036854775808"));
+        assertIllegalLong("9223372036854775808");
+        assertIllegalLong("-9223372036854775809");
+        assertIllegalLong("92233720368547758070");
+        assertIllegalLong("99999999999999999999");
+    }
+
+    @Test
+    public void testParseLongRange() throws IllegalValueException {
+        Assert.assertEquals(Integer.MAX_VALUE,
+                PrimitiveValueFactory.parseLong("2147483647", Integer.MIN_VALUE, Integer.MAX_VALUE, "integer"));
+        Assert.assertEquals(Integer.MIN_VALUE,
+                PrimitiveValueFactory.parseLong("-2147483648", Integer.MIN_VALUE, Integer.MAX_VALUE, "integer"));
+        for (String s : new String[] {"2147483648", "-2147483649"}) {
+            try {
+                PrimitiveValueFactory.parseLong(s, Integer.MIN_VALUE, Integer.MAX_VALUE, "integer");
+                Assert.fail("accepted out of range value " + s);
+            } catch (IllegalValueException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseLongRejectsMalformedValues() {
+        for (String s : new String[] {"", " ", "-", "+", "+-1", "12a", "1 2", "1.0", "0x10", "\u0661"}) {
+            assertIllegalLong(s);
+        }
+    }
+
+    @Test
+    public void testParseLongMatchesLongParseLong() throws IllegalValueException {
+        Random random = new Random(17);
+        for (int i = 0; i < 10000; i++) {
+            long expected = (i % 2 == 0) ? random.nextLong() : random.nextInt(100000) - 50000;
+            Assert.assertEquals(expected, parseLong(Long.toString(expected)));
+        }
+    }
+
+    @Test
+    public void testParseFloat() throws IllegalValueException {
+        Assert.assertEquals(1.5f, parseFloat("1.5"), 0f);
+        Assert.assertEquals(0.5f, parseFloat(".5"), 0f);
+        Assert.assertEquals(5f, parseFloat("5."), 0f);
+        Assert.assertEquals(-0.25f, parseFloat(" -0.25 "), 0f);
+        Assert.assertEquals(0.25f, parseFloat("+0.25"), 0f);
+        Assert.assertEquals(0.1f, parseFloat("0.1"), 0f);
+        Assert.assertEquals(16777216f, parseFloat("16777216"), 0f);
+    }
+
+    @Test
+    public void testParseFloatFallsBackToFloatParseFloat() throws IllegalValueException {
+        // exponents, long mantissas and too many digits are left to Float.parseFloat
+        for (String s : new String[] {"1e3", "2.5E-3", "16777217", "123456789.123", "0.00000000001",
+                "3.14159265358979323846264338327950288", "1234567890123456789012345"}) {
+            Assert.assertEquals(s, Float.parseFloat(s), parseFloat(s), 0f);
+        }
+    }
+
+    @Test
+    public void testParseFloatMatchesFloatParseFloat() throws IllegalValueException {
+        Random random = new Random(17);
+        for (int i = 0; i < 10000; i++) {
+            String s = random.nextInt(100000) + "." + random.nextInt(1000);
+            Assert.assertEquals(s, Float.parseFloat(s), parseFloat(s), 0f);
+        }
+    }
+
+    @Test
+    public void testParseFloatRange() throws IllegalValueException {
+        Assert.assertEquals(1f, PrimitiveValueFactory.parseFloat("1.0", 0f, 1f, "confidence"), 0f);
+        Assert.assertEquals(0f, PrimitiveValueFactory.parseFloat("0", 0f, 1f, "confidence"), 0f);
+        for (String s : new String[] {"1.01", "-0.01", "1e1"}) {
+            try {
+                PrimitiveValueFactory.parseFloat(s, 0f, 1f, "confidence");
+                Assert.fail("accepted out of range value " + s);
+            } catch (IllegalValueException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseFloatRejectsMalformedValues() {
+        for (String s : new String[] {"", " ", "-", ".", "1.2.3", "1,5", "abc", "1 .5"}) {
+            try {
+                parseFloat(s);
+                Assert.fail("accepted malformed value '" + s + "'");
+            } catch (IllegalValueException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseFloatNonFiniteValues() throws IllegalValueException {
+        // accepted like Float.parseFloat does, unless the range excludes them
+        Assert.assertTrue(Float.isNaN(PrimitiveValueFactory.parseFloat("NaN",
+                Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, "float")));
+        Assert.assertEquals(Float.POSITIVE_INFINITY, PrimitiveValueFactory.parseFloat("Infinity",
+                Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, "float"), 0f);
+        Assert.assertEquals(Float.NEGATIVE_INFINITY, PrimitiveValueFactory.parseFloat(" -Infinity ",
+                Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, "float"), 0f);
+        for (String s : new String[] {"NaN", "Infinity", "-Infinity"}) {
+            try {
+                PrimitiveValueFactory.parseFloat(s, 0f, 1f, "confidence");
+                Assert.fail("accepted out of range value " + s);
+            } catch (IllegalValueException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseBoolean() {
+        Assert.assertTrue(PrimitiveValueFactory.parseBoolean("true"));
+        Assert.assertTrue(PrimitiveValueFactory.parseBoolean(" TRUE "));
+        Assert.assertTrue(PrimitiveValueFactory.parseBoolean("True"));
+        Assert.assertFalse(PrimitiveValueFactory.parseBoolean("false"));
+        Assert.assertFalse(PrimitiveValueFactory.parseBoolean("yes"));
+        Assert.assertFalse(PrimitiveValueFactory.parseBoolean("truest"));
+        Assert.assertFalse(PrimitiveValueFactory.parseBoolean(""));
+    }
+
+    private static long parseLong(String s) throws IllegalValueException {
+        return PrimitiveValueFactory.parseLong(s, Long.MIN_VALUE, Long.MAX_VALUE, "long");
+    }
+
+    private static float parseFloat(String s) throws IllegalValueException {
+        return PrimitiveValueFactory.parseFloat(s, -Float.MAX_VALUE, Float.MAX_VALUE, "float");
+    }
+
+    private static void assertIllegalLong(String s) {
+        try {
+            parseLong(s);
+            Assert.fail("accepted illegal value '" + s + "'");
+        } catch (IllegalValueException e) {
+            // expected
+        }
+    }
+
+}
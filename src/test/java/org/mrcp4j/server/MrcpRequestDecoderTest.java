@@ -0,0 +1,220 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.server;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.mina.common.ByteBuffer;
+import org.apache.mina.common.TransportType;
+import org.apache.mina.protocol.ProtocolDecoderOutput;
+import org.apache.mina.protocol.ProtocolSession;
+import org.apache.mina.protocol.ProtocolViolationException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mrcp4j.MrcpMethodName;
+import org.mrcp4j.message.MrcpResponse;
+import org.mrcp4j.message.header.MrcpHeaderName;
+import org.mrcp4j.message.request.MrcpRequest;
+
+/**
+ * Unit tests for the message-length framing of {@link org.mrcp4j.server.MrcpRequestDecoder}.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class MrcpRequestDecoderTest {
+
+    private static final String SSML = "<?xml version=\"1.0\"?>\r\n<speak>Hello world!</speak>\r\n";
+
+    private static final String SPEAK = frame(" SPEAK 543257\r\n" +
+            "Channel-Identifier: 32AECB23433802@speechsynth\r\n" +
+            "Content-Type: application/ssml+xml\r\n" +
+            "Content-Length: " + SSML.length() + "\r\n" +
+            "\r\n" +
+            SSML);
+
+    private static final String STOP = frame(" STOP 543258\r\n" +
+            "Channel-Identifier: 32AECB23433802@speechsynth\r\n" +
+            "\r\n");
+
+    private static final String RECOGNIZE = frame(" RECOGNIZE 543259\r\n" +
+            "Channel-Identifier: 32AECB23433801@speechrecog\r\n" +
+            "Confidence-Threshold: 0.9\r\n" +
+            "\r\n");
+
+    private List<Object> _decoded;
+    private List<Object> _written;
+    private ProtocolSession _session;
+    private ProtocolDecoderOutput _out;
+
+    @Before
+    public void setUp() {
+        _decoded = new ArrayList<Object>();
+        _written = new ArrayList<Object>();
+        _session = (ProtocolSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ProtocolSession.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getTransportType")) {
+                    return TransportType.SOCKET;
+                }
+                if (method.getName().equals("write")) {
+                    _written.add(args[0]);
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        _out = new ProtocolDecoderOutput() {
+            public void write(Object message) {
+                _decoded.add(message);
+            }
+        };
+    }
+
+    @Test
+    public void testDecodeSingleRequest() throws ProtocolViolationException {
+        new MrcpRequestDecoder().decode(_session, wrap(SPEAK), _out);
+
+        Assert.assertEquals(1, _decoded.size());
+        MrcpRequest request = (MrcpRequest) _decoded.get(0);
+        Assert.assertEquals(MrcpMethodName.SPEAK, request.getMethodName());
+        Assert.assertEquals(543257, request.getRequestID());
+        Assert.assertEquals(SPEAK.length(), request.getMessageLength());
+        Assert.assertEquals(SSML, request.getContent());
+        Assert.assertEquals("32AECB23433802@speechsynth",
+                request.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER).getValueString());
+    }
+
+    @Test
+    public void testDecodeSeveralRequestsFromOneRead() throws ProtocolViolationException {
+        new MrcpRequestDecoder().decode(_session, wrap(SPEAK + "\r\n" + STOP + RECOGNIZE), _out);
+
+        assertRequestIDs(_decoded, "", 543257, 543258, 543259);
+    }
+
+    @Test
+    public void testDecodeAcrossSplitReads() throws ProtocolViolationException {
+        byte[] bytes = ascii(SPEAK + STOP + RECOGNIZE + SPEAK);
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            _decoded.clear();
+            decodeInChunks(new MrcpRequestDecoder(), bytes, chunkSize);
+            assertRequestIDs(_decoded, "chunk size " + chunkSize, 543257, 543258, 543259, 543257);
+            Assert.assertEquals(SSML, ((MrcpRequest) _decoded.get(3)).getContent());
+        }
+    }
+
+    @Test
+    public void testOversizedRequestIsRejectedAndSkipped() throws ProtocolViolationException {
+        int maxMessageLength = Math.max(STOP.length(), RECOGNIZE.length());
+        byte[] bytes = ascii(STOP + SPEAK + RECOGNIZE);
+        for (int chunkSize : new int[] {1, 2, 7, 50, SPEAK.length(), bytes.length}) {
+            String context = "chunk size " + chunkSize;
+            _decoded.clear();
+            _written.clear();
+            decodeInChunks(new MrcpRequestDecoder(maxMessageLength), bytes, chunkSize);
+
+            assertRequestIDs(_decoded, context, 543258, 543259);
+            Assert.assertEquals(context, 1, _written.size());
+            MrcpResponse response = (MrcpResponse) _written.get(0);
+            Assert.assertEquals(MrcpResponse.STATUS_MESSAGE_TOO_LARGE, response.getStatusCode());
+            Assert.assertEquals(543257, response.getRequestID());
+            Assert.assertEquals("32AECB23433802@speechsynth",
+                    response.getHeader(MrcpHeaderName.CHANNEL_IDENTIFIER).getValueString());
+        }
+    }
+
+    @Test
+    public void testMalformedRequestIsSkipped() throws ProtocolViolationException {
+        MrcpRequestDecoder decoder = new MrcpRequestDecoder();
+        String malformed = frame(" STOP 543256\r\nno colon in this header\r\n\r\n");
+        try {
+            decoder.decode(_session, wrap(malformed + STOP), _out);
+            Assert.fail("malformed request decoded");
+        } catch (ProtocolViolationException e) {
+            // expected
+        }
+        Assert.assertTrue(_decoded.isEmpty());
+
+        decoder.decode(_session, wrap(RECOGNIZE), _out);
+
+        assertRequestIDs(_decoded, "", 543258, 543259);
+    }
+
+    @Test
+    public void testUnframeableStreamIsRejected() {
+        for (String garbage : new String[] {"MRCP/2.0 12x4 ", "MRCP/2.0 1234567890123 ", "MRCP/2.0 5 "}) {
+            try {
+                new MrcpRequestDecoder().decode(_session, wrap(garbage), _out);
+                Assert.fail("framed " + garbage);
+            } catch (ProtocolViolationException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Feeds the bytes to the decoder in reads of the given size.
+     */
+    private void decodeInChunks(MrcpRequestDecoder decoder, byte[] bytes, int chunkSize)
+      throws ProtocolViolationException {
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            byte[] chunk = Arrays.copyOfRange(bytes, offset, Math.min(offset + chunkSize, bytes.length));
+            decoder.decode(_session, ByteBuffer.wrap(chunk), _out);
+        }
+    }
+
+    private static void assertRequestIDs(List<Object> requests, String context, long... requestIDs) {
+        Assert.assertEquals(context, requestIDs.length, requests.size());
+        for (int i = 0; i < requestIDs.length; i++) {
+            Assert.assertEquals(context, requestIDs[i], ((MrcpRequest) requests.get(i)).getRequestID());
+        }
+    }
+
+    /**
+     * Completes a request by prepending the version and message-length to the rest of its request-line.
+     */
+    private static String frame(String rest) {
+        String prefix = "MRCP/2.0 ";
+        int length = prefix.length() + rest.length();
+        int messageLength = length + Integer.toString(length).length();
+        if (Integer.toString(messageLength).length() > Integer.toString(length).length()) {
+            messageLength++;
+        }
+        return prefix + messageLength + rest;
+    }
+
+    private static ByteBuffer wrap(String s) {
+        return ByteBuffer.wrap(ascii(s));
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
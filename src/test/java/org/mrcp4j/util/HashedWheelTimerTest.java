@@ -0,0 +1,156 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link org.mrcp4j.util.HashedWheelTimer}.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class HashedWheelTimerTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    private HashedWheelTimer _timer;
+
+    @Before
+    public void setUp() {
+        // a small wheel, so that longer delays take several rounds
+        _timer = new HashedWheelTimer("test-timer", TICK_MILLIS, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void tearDown() {
+        _timer.stop();
+    }
+
+    @Test
+    public void testTimeoutExpiresNotBeforeDeadline() throws InterruptedException {
+        for (long delay : new long[] {0, 25, 200}) {
+            final CountDownLatch expired = new CountDownLatch(1);
+            final AtomicLong expiredAt = new AtomicLong();
+            long start = System.nanoTime();
+            HashedWheelTimer.Timeout timeout = _timer.newTimeout(new Runnable() {
+                public void run() {
+                    expiredAt.set(System.nanoTime());
+                    expired.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+
+            Assert.assertTrue("timeout of " + delay + "ms did not expire", expired.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue("timeout of " + delay + "ms expired early",
+                    expiredAt.get() - start >= TimeUnit.MILLISECONDS.toNanos(delay));
+            Assert.assertTrue(timeout.isExpired());
+            Assert.assertFalse(timeout.isCancelled());
+            Assert.assertFalse(timeout.cancel());
+        }
+    }
+
+    @Test
+    public void testTimeoutsHashedToTheSameBucketExpireInTheirOwnRound() throws InterruptedException {
+        final long wheelMillis = 8 * TICK_MILLIS;
+        final CountDownLatch expired = new CountDownLatch(2);
+        final AtomicInteger order = new AtomicInteger();
+        final AtomicInteger firstOrder = new AtomicInteger();
+        final AtomicInteger secondOrder = new AtomicInteger();
+        _timer.newTimeout(new Runnable() {
+            public void run() {
+                secondOrder.set(order.incrementAndGet());
+                expired.countDown();
+            }
+        }, 30 + 2 * wheelMillis, TimeUnit.MILLISECONDS);
+        _timer.newTimeout(new Runnable() {
+            public void run() {
+                firstOrder.set(order.incrementAndGet());
+                expired.countDown();
+            }
+        }, 30, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(expired.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, firstOrder.get());
+        Assert.assertEquals(2, secondOrder.get());
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotExpire() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        HashedWheelTimer.Timeout timeout = _timer.newTimeout(new Runnable() {
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(timeout.cancel());
+        Assert.assertFalse("second cancel", timeout.cancel());
+        Assert.assertTrue(timeout.isCancelled());
+
+        // a later timeout expiring proves that the worker has passed the deadline of the cancelled one
+        final CountDownLatch later = new CountDownLatch(1);
+        _timer.newTimeout(new Runnable() {
+            public void run() {
+                later.countDown();
+            }
+        }, 150, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(later.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, runs.get());
+        Assert.assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopTimer() throws InterruptedException {
+        _timer.newTimeout(new Runnable() {
+            public void run() {
+                throw new IllegalStateException("expected by test");
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        final CountDownLatch expired = new CountDownLatch(1);
+        _timer.newTimeout(new Runnable() {
+            public void run() {
+                expired.countDown();
+            }
+        }, 2 * TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(expired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStoppedTimerRejectsTimeouts() {
+        _timer.stop();
+        _timer.newTimeout(new Runnable() {
+            public void run() {
+                // never scheduled
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * MRCP4J - Java API implementation of MRCPv2 specification
+ *
+ * Copyright (C) 2005-2006 SpeechForge - http://www.speechforge.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * Contact: ngodfredsen@users.sourceforge.net
+ *
+ */
+package org.mrcp4j.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mrcp4j.message.header.MrcpHeaderName;
+
+/**
+ * Unit tests for {@link org.mrcp4j.util.TokenTable}.
+ *
+ * @author Niels Godfredsen {@literal <}<a href="mailto:ngodfredsen@users.sourceforge.net">ngodfredsen@users.sourceforge.net</a>{@literal >}
+ */
+public class TokenTableTest {
+
+    private static final String[] TOKENS = {"Content-Type", "Content-Length", "Channel-Identifier", "speechrecog", "a"};
+
+    private TokenTable<String> _table = new TokenTable<String>(TOKENS);
+
+    @Test
+    public void testGetStringIgnoresCase() {
+        for (String token : TOKENS) {
+            Assert.assertSame(token, _table.get(token));
+            Assert.assertSame(token, _table.get(token.toUpperCase()));
+            Assert.assertSame(token, _table.get(token.toLowerCase()));
+        }
+        Assert.assertSame("Content-Type", _table.get("cOnTeNt-TyPe"));
+    }
+
+    @Test
+    public void testGetBytesIgnoresCase() {
+        byte[] bytes = ascii("xxCHANNEL-identifier: 1@speechrecog\r\n");
+        Assert.assertSame("Channel-Identifier", _table.get(bytes, 2, "Channel-Identifier".length()));
+        Assert.assertSame("speechrecog", _table.get(bytes, bytes.length - 2 - "speechrecog".length(), "speechrecog".length()));
+        for (String token : TOKENS) {
+            byte[] upper = ascii(token.toUpperCase());
+            Assert.assertSame(token, _table.get(upper, 0, upper.length));
+        }
+    }
+
+    @Test
+    public void testUnknownTokens() {
+        for (String token : new String[] {"", "Content", "Content-Type2", "Content-Typ", "Content_Type", "b", "aa"}) {
+            Assert.assertNull(token, _table.get(token));
+            byte[] bytes = ascii(token);
+            Assert.assertNull(token, _table.get(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void testOnlyAsciiLettersAreFolded() {
+        // '@' and '`' differ from 'A' and 'a' by the same bit as case, but are not letters
+        TokenTable<String> table = new TokenTable<String>(new String[] {"x@y", "x[y"});
+        Assert.assertSame("x@y", table.get("X@Y"));
+        Assert.assertNull(table.get("x`y"));
+        Assert.assertNull(table.get("x{y"));
+        Assert.assertNull(_table.get("\u00c1"));
+        byte[] latin1 = {(byte) 0xc1};
+        Assert.assertNull(_table.get(latin1, 0, 1));
+    }
+
+    @Test
+    public void testEmptyTable() {
+        TokenTable<String> table = new TokenTable<String>(new String[0]);
+        Assert.assertNull(table.get("a"));
+        Assert.assertNull(table.get(new byte[] {'a'}, 0, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTokensDifferingOnlyInCaseAreRejected() {
+        new TokenTable<String>(new String[] {"Content-Type", "content-type"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonAsciiTokensAreRejected() {
+        new TokenTable<String>(new String[] {"caf\u00e9"});
+    }
+
+    @Test
+    public void testAllHeaderNamesResolve() {
+        for (MrcpHeaderName name : MrcpHeaderName.values()) {
+            byte[] bytes = ascii("  " + name.toString().toUpperCase() + ":");
+            Assert.assertSame(name, MrcpHeaderName.fromBytes(bytes, 2, bytes.length - 3));
+            Assert.assertSame(name, MrcpHeaderName.fromString(name.toString().toLowerCase()));
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+}